@@ -0,0 +1,71 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.CircularLinkedList;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CircularLinkedList get, rotate and remove, the linked ring the technician rotation used before TechnicianRotation
+ *
+ * @author Jasmine Saffold
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircularLinkedListBenchmark {
+
+    @Param({"6", "64", "1024"})
+    public int size;
+
+    private CircularLinkedList<Integer> ring;
+    private Integer[] values;
+    private int probe;
+
+    @Setup
+    public void setUp() {
+        ring = new CircularLinkedList<>();
+        values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+            ring.add(values[i]);
+        }
+    }
+
+    private int nextProbe() {
+        probe = (probe + 5) % size;
+        return probe;
+    }
+
+    @Benchmark
+    public Integer get() {
+        return ring.get(nextProbe()).getData();
+    }
+
+    @Benchmark
+    public Integer rotate() {
+        ring.rotate(values[nextProbe()]);
+        return ring.get(0).getData();
+    }
+
+    @Benchmark
+    public int removeAndAdd() {
+        Integer value = values[nextProbe()];
+        ring.remove(value);
+        ring.add(value);
+        return ring.size();
+    }
+}
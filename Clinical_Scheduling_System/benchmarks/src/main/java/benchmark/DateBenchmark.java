@@ -0,0 +1,58 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.Date;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date validation and comparison on the booking hot path
+ *
+ * @author Jasmine Saffold
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateBenchmark {
+
+    private Date[] dates;
+    private int probe;
+
+    @Setup
+    public void setUp() {
+        String[] days = Fixtures.businessDays();
+        dates = new Date[days.length];
+        for (int i = 0; i < days.length; i++) {
+            String[] mdy = days[i].split("/");
+            dates[i] = Date.of(Integer.parseInt(mdy[2]), Integer.parseInt(mdy[0]), Integer.parseInt(mdy[1]));
+        }
+    }
+
+    private Date nextDate() {
+        probe = (probe + 1) % dates.length;
+        return dates[probe];
+    }
+
+    @Benchmark
+    public boolean isValidAppTime() {
+        return nextDate().isValidAppTime();
+    }
+
+    @Benchmark
+    public int compareTo() {
+        Date date = nextDate();
+        return date.compareTo(dates[dates.length - 1 - probe]);
+    }
+}
@@ -0,0 +1,156 @@
+package benchmark;
+
+import clinic.ClinicManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+
+/**
+ * Shared set-up for the benchmarks
+ * Builds synthetic provider files and fills the clinic with appointments through the real commands
+ *
+ * @author Jasmine Saffold
+ */
+final class Fixtures {
+    /**
+     * Number of timeslots in a day
+     */
+    static final int SLOTS = 12;
+    /**
+     * Technicians generated per location
+     */
+    static final int TECHS_PER_LOCATION = 3;
+
+    private static final String[] LOCATIONS = {"BRIDGEWATER", "EDISON", "PISCATAWAY", "PRINCETON", "MORRISTOWN", "CLARK"};
+    private static final String[] SPECIALTIES = {"FAMILY", "PEDIATRICIAN", "ALLERGIST"};
+    private static final DateTimeFormatter MDY = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private Fixtures() {
+    }
+
+    /**
+     * Gives the weekdays that are valid appointment dates, as MM/DD/YYYY strings
+     * Leaves a few days of margin at both ends of the six month window
+     *
+     * @return bookable dates in order
+     */
+    static String[] businessDays() {
+        LocalDate day = LocalDate.now().plusDays(2);
+        LocalDate last = LocalDate.now().plusMonths(6).minusDays(2);
+        ArrayList<String> days = new ArrayList<>();
+        while (!day.isAfter(last)) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                days.add(day.format(MDY));
+            }
+            day = day.plusDays(1);
+        }
+        return days.toArray(new String[0]);
+    }
+
+    /**
+     * Gives the NPI of a generated doctor
+     *
+     * @param doctor - doctor number
+     * @return NPI string
+     */
+    static String npi(int doctor) {
+        return String.format("%06d", doctor + 1);
+    }
+
+    /**
+     * Writes a provider file with generated doctors and technicians
+     *
+     * @param doctors - number of doctors
+     * @return path of the temporary file
+     */
+    static Path writeProviders(int doctors) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < doctors; i++) {
+            sb.append("D  DOC").append(i).append("  DOCTOR").append(i).append("  01/01/1970  ")
+                    .append(LOCATIONS[i % LOCATIONS.length]).append("  ")
+                    .append(SPECIALTIES[i % SPECIALTIES.length]).append("  ").append(npi(i)).append('\n');
+        }
+        for (int loc = 0; loc < LOCATIONS.length; loc++) {
+            for (int t = 0; t < TECHS_PER_LOCATION; t++) {
+                sb.append("T  TECH").append(t).append("  ").append(LOCATIONS[loc]).append("TECH  02/02/1980  ")
+                        .append(LOCATIONS[loc]).append("  ").append(100 + t * 10).append('\n');
+            }
+        }
+        try {
+            Path file = Files.createTempFile("providers", ".txt");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, sb.toString());
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gives the number of doctors needed to hold the appointments, plus one spare for probes
+     *
+     * @param appointments - number of office appointments to fill
+     * @param days - bookable dates
+     * @return number of doctors
+     */
+    static int doctorsFor(int appointments, int days) {
+        int perDoctor = days * SLOTS;
+        return (appointments + perDoctor - 1) / perDoctor + 1;
+    }
+
+    /**
+     * Builds the D command for the i-th filler appointment
+     *
+     * @param i - appointment number
+     * @param days - bookable dates
+     * @return command tokens
+     */
+    static String[] officeCommand(int i, String[] days) {
+        int perDoctor = days.length * SLOTS;
+        int doctor = i / perDoctor;
+        int day = (i / SLOTS) % days.length;
+        int slot = i % SLOTS + 1;
+        return new String[]{"D", days[day], String.valueOf(slot), "P" + i, "PATIENT", "01/01/1980", npi(doctor)};
+    }
+
+    /**
+     * Resets the clinic and books the given number of office appointments
+     * Console output is discarded
+     *
+     * @param appointments - number of appointments to book
+     * @param days - bookable dates
+     * @return number of doctors loaded, the last one has no appointments
+     */
+    static int loadClinic(int appointments, String[] days) {
+        silenceConsole();
+        int doctors = doctorsFor(appointments, days.length);
+        ClinicManager.reset();
+        try {
+            ClinicManager.loadProviders(writeProviders(doctors).toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int i = 0; i < appointments; i++) {
+            ClinicManager.scheduleAppointment(officeCommand(i, days));
+        }
+        if (ClinicManager.engine().getAppointments().size() != appointments) {
+            throw new IllegalStateException("expected " + appointments + " appointments, booked " + ClinicManager.engine().getAppointments().size());
+        }
+        return doctors;
+    }
+
+    /**
+     * Sends System.out to a sink so printing does not dominate the measurements
+     */
+    static void silenceConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
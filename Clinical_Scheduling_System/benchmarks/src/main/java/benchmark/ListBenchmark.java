@@ -0,0 +1,98 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.List;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * util.List add, contains, remove and sort
+ *
+ * @author Jasmine Saffold
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Integer[] values;   // shuffled 0..size-1
+    private List<Integer> full; // holds every value
+    private List<Integer> unsorted;
+    private int probe;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        Random random = new Random(42);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+        full = new List<>();
+        for (Integer value : values) {
+            full.add(value);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        unsorted = new List<>();
+        for (Integer value : values) {
+            unsorted.add(value);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> add() {
+        List<Integer> list = new List<>();
+        for (Integer value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public boolean contains() {
+        probe = (probe + 7919) % size;
+        return full.contains(values[probe]);
+    }
+
+    @Benchmark
+    public int removeAndAdd() {
+        probe = (probe + 7919) % size;
+        Integer value = values[probe];
+        full.remove(value);
+        full.add(value);
+        return full.size();
+    }
+
+    @Benchmark
+    public List<Integer> sort() {
+        unsorted.sort(Comparator.naturalOrder());
+        return unsorted;
+    }
+}
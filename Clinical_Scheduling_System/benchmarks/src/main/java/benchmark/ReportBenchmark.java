@@ -0,0 +1,64 @@
+package benchmark;
+
+import clinic.ReportEngine;
+import clinic.SchedulingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileNotFoundException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PA, PP, PS and PC on the sequential path and on the fork/join path of the report engine
+ *
+ * @author Jasmine Saffold
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ReportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int appointments;
+
+    @Param({"PA", "PP", "PS", "PC"})
+    public String report;
+
+    @Param({"sequential", "parallel"})
+    public String path;
+
+    private SchedulingEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws FileNotFoundException {
+        String[] days = Fixtures.businessDays();
+        Path providers = Fixtures.writeProviders(Fixtures.doctorsFor(appointments, days.length));
+        engine = new SchedulingEngine(new ReportEngine(ForkJoinPool.commonPool(),
+                path.equals("parallel") ? ReportEngine.DEFAULT_THRESHOLD : Integer.MAX_VALUE));
+        engine.loadProviders(providers.toString());
+        for (int i = 0; i < appointments; i++) {
+            engine.scheduleAppointment(Fixtures.officeCommand(i, days));
+        }
+    }
+
+    @Benchmark
+    public Object print() {
+        return engine.execute(report, Writer.nullWriter());
+    }
+}
@@ -0,0 +1,127 @@
+package benchmark;
+
+import clinic.ClinicManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end throughput of the D, T and C commands against a schedule that already holds
+ * 1k, 100k or 1M appointments
+ * A booking's probe is canceled and a cancel's probe is booked outside the measured call, so the schedule size stays fixed
+ *
+ * @author Jasmine Saffold
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SchedulingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int appointments;
+
+    private String[][] bookOffice;    // D commands for the spare doctor
+    private String[][] bookImaging;   // T commands for a probe patient
+    private String[][] cancel;        // C commands matching both of the above
+    private String[][] conflicting;   // D commands for slots that are already taken
+    private int next;
+
+    @Setup
+    public void setUp() {
+        String[] days = Fixtures.businessDays();
+        int doctors = Fixtures.loadClinic(appointments, days);
+        String spareNpi = Fixtures.npi(doctors - 1);
+
+        int probes = days.length * Fixtures.SLOTS;
+        bookOffice = new String[probes][];
+        bookImaging = new String[probes][];
+        cancel = new String[probes][];
+        conflicting = new String[probes][];
+        for (int i = 0; i < probes; i++) {
+            String day = days[i / Fixtures.SLOTS];
+            String slot = String.valueOf(i % Fixtures.SLOTS + 1);
+            bookOffice[i] = new String[]{"D", day, slot, "Probe", "Patient", "05/05/1985", spareNpi};
+            bookImaging[i] = new String[]{"T", day, slot, "Probe", "Patient", "05/05/1985", "XRAY"};
+            cancel[i] = new String[]{"C", day, slot, "Probe", "Patient", "05/05/1985"};
+            conflicting[i] = Fixtures.officeCommand(i % appointments, days).clone();
+            conflicting[i][3] = "Other"; // same doctor and slot, different patient
+        }
+    }
+
+    /**
+     * Free probe slot for one booking, the booking is canceled again after the call
+     */
+    @State(Scope.Thread)
+    public static class FreeProbe {
+        private int i;
+
+        @Setup(Level.Invocation)
+        public void pick(SchedulingBenchmark clinic) {
+            i = clinic.nextProbe();
+        }
+
+        @TearDown(Level.Invocation)
+        public void cancel(SchedulingBenchmark clinic) {
+            ClinicManager.cancelAppointment(clinic.cancel[i]);
+        }
+    }
+
+    /**
+     * Probe slot booked before the call, for the cancel to remove
+     */
+    @State(Scope.Thread)
+    public static class BookedProbe {
+        private int i;
+
+        @Setup(Level.Invocation)
+        public void book(SchedulingBenchmark clinic) {
+            i = clinic.nextProbe();
+            ClinicManager.scheduleAppointment(clinic.bookOffice[i]);
+        }
+    }
+
+    private int nextProbe() {
+        int i = next;
+        next = (i + 1) % bookOffice.length;
+        return i;
+    }
+
+    @Benchmark
+    public int scheduleAppointment(FreeProbe probe) {
+        ClinicManager.scheduleAppointment(bookOffice[probe.i]);
+        return ClinicManager.engine().getAppointments().size();
+    }
+
+    @Benchmark
+    public int scheduleImagingAppointment(FreeProbe probe) {
+        ClinicManager.scheduleImagingAppointment(bookImaging[probe.i]);
+        return ClinicManager.engine().getAppointments().size();
+    }
+
+    @Benchmark
+    public int cancelAppointment(BookedProbe probe) {
+        ClinicManager.cancelAppointment(cancel[probe.i]);
+        return ClinicManager.engine().getAppointments().size();
+    }
+
+    @Benchmark
+    public int scheduleAppointmentConflict() {
+        ClinicManager.scheduleAppointment(conflicting[nextProbe()]);
+        return ClinicManager.engine().getAppointments().size();
+    }
+}
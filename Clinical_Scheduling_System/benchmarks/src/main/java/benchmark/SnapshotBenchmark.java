@@ -0,0 +1,73 @@
+package benchmark;
+
+import clinic.ClinicManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and restoring a binary snapshot of the clinic
+ *
+ * @author Jasmine Saffold
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SnapshotBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int appointments;
+
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] days = Fixtures.businessDays();
+        Fixtures.silenceConsole();
+        Path providers = Fixtures.writeProviders(Fixtures.doctorsFor(appointments, days.length));
+        snapshot = Files.createTempFile("clinic", ".snapshot");
+
+        ClinicManager.reset();
+        ClinicManager.loadProviders(providers.toString());
+        for (int i = 0; i < appointments; i++) {
+            ClinicManager.scheduleAppointment(Fixtures.officeCommand(i, days));
+        }
+        ClinicManager.saveSnapshot(new String[]{"SNAPSHOT", snapshot.toString()});
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ClinicManager.reset();
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public int snapshot() {
+        ClinicManager.saveSnapshot(new String[]{"SNAPSHOT", snapshot.toString()});
+        return ClinicManager.engine().getAppointments().size();
+    }
+
+    @Benchmark
+    public int restore() {
+        ClinicManager.restoreSnapshot(new String[]{"RESTORE", snapshot.toString()});
+        return ClinicManager.engine().getAppointments().size();
+    }
+}
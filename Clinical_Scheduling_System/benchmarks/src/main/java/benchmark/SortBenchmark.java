@@ -0,0 +1,85 @@
+package benchmark;
+
+import clinic.Appointment;
+import clinic.ClinicManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.List;
+import util.Sort;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sort.appointment for every report key, on a shuffled copy of the schedule
+ * The result is walked, so the filtered views of 'o' and 'i' pay for their filtering like a copy would
+ *
+ * @author Jasmine Saffold
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SortBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int appointments;
+
+    @Param({"t", "d", "p", "r", "l", "o", "i"})
+    public String key;
+
+    private Appointment[] shuffled;
+    private List<Appointment> list;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        String[] days = Fixtures.businessDays();
+        Fixtures.loadClinic(appointments, days);
+        // add some imaging so the 'i' and 'o' keys both have work to do
+        for (int i = 0; i < appointments / 10; i++) {
+            String day = days[(i / Fixtures.SLOTS) % days.length];
+            ClinicManager.scheduleImagingAppointment(new String[]{"T", day, String.valueOf(i % Fixtures.SLOTS + 1),
+                    "I" + i, "IMAGING", "03/03/1983", i % 2 == 0 ? "XRAY" : "CATSCAN"});
+        }
+        shuffled = new Appointment[ClinicManager.engine().getAppointments().size()];
+        for (int i = 0; i < shuffled.length; i++) {
+            shuffled[i] = ClinicManager.engine().getAppointments().get(i);
+        }
+        Random random = new Random(7);
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Appointment tmp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = tmp;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        list = new List<>();
+        for (Appointment appointment : shuffled) {
+            list.add(appointment);
+        }
+    }
+
+    @Benchmark
+    public int appointment() {
+        int count = 0;
+        for (Appointment appointment : Sort.appointment(list, key.charAt(0))) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import clinic.ClinicManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilding the schedule from a store file at start-up
+ *
+ * @author Jasmine Saffold
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class StoreBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int appointments;
+
+    private Path providers;
+    private Path store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] days = Fixtures.businessDays();
+        Fixtures.silenceConsole();
+        providers = Fixtures.writeProviders(Fixtures.doctorsFor(appointments, days.length));
+        store = Files.createTempFile("schedule", ".db");
+        Files.delete(store); // openStore creates it
+
+        ClinicManager.reset();
+        ClinicManager.loadProviders(providers.toString());
+        ClinicManager.openStore(store);
+        for (int i = 0; i < appointments; i++) {
+            ClinicManager.scheduleAppointment(Fixtures.officeCommand(i, days));
+        }
+        ClinicManager.closeStore();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ClinicManager.reset();
+        Files.deleteIfExists(store);
+        Files.deleteIfExists(Paths.get(store + ".patients"));
+    }
+
+    @Benchmark
+    public int restore() throws IOException {
+        ClinicManager.reset();
+        ClinicManager.loadProviders(providers.toString());
+        ClinicManager.openStore(store);
+        return ClinicManager.engine().getAppointments().size();
+    }
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import clinic.Location;
+import clinic.Profile;
+import clinic.Provider;
+import clinic.Technician;
+import clinic.TechnicianRotation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import util.CircularLinkedList;
+import util.Date;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handing out the next technician from four threads at once,
+ * the compare-and-set cursor of TechnicianRotation against a linked ring rotated under a lock
+ *
+ * @author Jasmine Saffold
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class TechnicianRotationBenchmark {
+
+    @Param({"6", "64", "1024"})
+    public int size;
+
+    private TechnicianRotation rotation;
+    private CircularLinkedList<Provider> ring;
+
+    @Setup
+    public void setUp() {
+        ring = new CircularLinkedList<>();
+        Location[] locations = Location.values();
+        for (int i = 0; i < size; i++) {
+            ring.add(new Technician(locations[i % locations.length], new Profile("Tech", "T" + i, new Date(1990, 1, 1)), 100));
+        }
+        rotation = new TechnicianRotation(ring);
+    }
+
+    @Benchmark
+    public int arrayCursor() {
+        while (true) {
+            int seen = rotation.cursor();
+            if (rotation.advance(seen, rotation.technician(seen))) {
+                return seen;
+            }
+        }
+    }
+
+    @Benchmark
+    public Provider lockedLinkedRing() {
+        synchronized (ring) {
+            Provider next = ring.get(0).getData();
+            ring.rotate(next);
+            return next;
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package clinic;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * HTTP/JSON API over a scheduling engine, for front ends that cannot speak the console protocol
+ * POST /appointments books (with "npi" for an office visit, "room" for imaging), POST /appointments/cancel
+ * and POST /appointments/reschedule take the same fields as the C and R commands, as a flat JSON object
+ * GET /reports/pa, pp, pl, pi, po, ps and pc stream the reports as JSON arrays straight to the connection
+ * Command responses are {"status","message"} with 200 for OK, 409 for CONFLICT and 400 for REJECTED
+ * Every exchange runs on its own virtual thread when the JDK has them, a platform thread otherwise
+ *
+ * @author Jasmine Saffold
+ */
+public class ApiServer implements Closeable {
+    /**
+     * Size of the response write buffer
+     */
+    private static final int BUFFER_SIZE = 1 << 14;
+    /**
+     * Largest request body accepted, the commands are a handful of short fields
+     */
+    private static final int MAX_BODY = 1 << 12;
+    /**
+     * Report output of the booking commands, which never write one
+     */
+    private static final Writer NO_REPORT = Writer.nullWriter();
+
+    private final SchedulingEngine engine;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Constructor, starts serving on the loopback address
+     *
+     * @param engine - engine that runs the commands
+     * @param port - port to listen on, 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public ApiServer(SchedulingEngine engine, int port) throws IOException {
+        this(engine, port, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Constructor, starts serving on an address
+     *
+     * @param engine - engine that runs the commands
+     * @param port - port to listen on, 0 for any free port
+     * @param address - local address to bind
+     * @throws IOException if the port cannot be opened
+     */
+    public ApiServer(SchedulingEngine engine, int port, InetAddress address) throws IOException {
+        this.engine = engine;
+        this.server = HttpServer.create(new InetSocketAddress(address, port), 128);
+        this.executor = VirtualThreads.perTaskExecutor("http-api");
+        server.setExecutor(executor);
+        server.createContext("/appointments", this::appointments);
+        server.createContext("/reports/", this::reports);
+        server.start();
+    }
+
+    /**
+     * Gives the port the server listens on
+     *
+     * @return local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Waits until the server is closed
+     *
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public void join() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stops the server, exchanges already running get a second to finish
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        stopped.countDown();
+    }
+
+    /**
+     * Private helper, handles booking, cancel and reschedule
+     *
+     * @param exchange - request and response
+     * @throws IOException if the response cannot be written
+     */
+    private void appointments(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if (!path.equals("/appointments") && !path.equals("/appointments/cancel")
+                    && !path.equals("/appointments/reschedule")) {
+                sendResult(exchange, 404, Result.rejected("No such resource: " + path));
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendResult(exchange, 405, Result.rejected("Use POST for " + path));
+                return;
+            }
+            Result result;
+            try {
+                Map<String, String> fields = parse(readBody(exchange.getRequestBody()));
+                if (path.equals("/appointments/cancel")) {
+                    result = engine.execute(command(fields, "C", "date", "timeslot", "fname", "lname", "dob"), NO_REPORT);
+                } else if (path.equals("/appointments/reschedule")) {
+                    result = engine.execute(
+                            command(fields, "R", "date", "timeslot", "fname", "lname", "dob", "newTimeslot"), NO_REPORT);
+                } else if (fields.containsKey("room")) {
+                    result = engine.execute(
+                            command(fields, "T", "date", "timeslot", "fname", "lname", "dob", "room"), NO_REPORT);
+                } else {
+                    result = engine.execute(
+                            command(fields, "D", "date", "timeslot", "fname", "lname", "dob", "npi"), NO_REPORT);
+                }
+            } catch (IllegalArgumentException e) {
+                result = Result.rejected(e.getMessage());
+            } catch (RuntimeException e) {
+                result = Result.rejected(e.getClass().getSimpleName() + " - " + e.getMessage());
+            }
+            engine.awaitDurable();
+            sendResult(exchange, statusCode(result), result);
+        }
+    }
+
+    /**
+     * Private helper, streams one report as a JSON array
+     *
+     * @param exchange - request and response
+     * @throws IOException if the response cannot be written
+     */
+    private void reports(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String report = path.substring("/reports/".length());
+            if (!report.matches("p[apliosc]")) {
+                sendResult(exchange, 404, Result.rejected("No such report: " + report));
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendResult(exchange, 405, Result.rejected("Use GET for " + path));
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0); // chunked, the report is written as it is walked
+            try (Writer out = new BufferedWriter(
+                    new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                boolean[] first = {true};
+                out.write('[');
+                long start = System.nanoTime();
+                Result.Status status = null;
+                try {
+                    if (report.equals("ps")) {
+                        engine.forEachBillingStatement((profile, due) -> {
+                            element(out, first);
+                            write(out, "{\"patient\":");
+                            writeProfile(out, profile);
+                            write(out, ",\"due\":" + due + "}");
+                        });
+                    } else if (report.equals("pc")) {
+                        engine.forEachCredit((provider, credit) -> {
+                            element(out, first);
+                            write(out, "{\"provider\":");
+                            writeProvider(out, provider);
+                            write(out, ",\"credit\":" + credit + "}");
+                        });
+                    } else {
+                        engine.forEachAppointment(report.equals("pa") ? 'd' : report.charAt(1), appointment -> {
+                            element(out, first);
+                            writeAppointment(out, appointment);
+                        });
+                    }
+                    status = Result.Status.OK;
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                } finally { // reports are walked here rather than run through execute, so they are recorded here
+                    engine.getStats().record(report.toUpperCase(Locale.ROOT), status, System.nanoTime() - start);
+                }
+                out.write(']');
+            }
+        }
+    }
+
+    /**
+     * Private helper to map a result to an HTTP status code
+     *
+     * @param result - result of a command
+     * @return 200, 409 or 400
+     */
+    private static int statusCode(Result result) {
+        switch (result.getStatus()) {
+            case OK:
+                return 200;
+            case CONFLICT:
+                return 409;
+            default:
+                return 400;
+        }
+    }
+
+    /**
+     * Private helper to send a command result as {"status","message"}
+     *
+     * @param exchange - request and response
+     * @param code - HTTP status code
+     * @param result - result to send
+     * @throws IOException if the response cannot be written
+     */
+    private static void sendResult(HttpExchange exchange, int code, Result result) throws IOException {
+        StringBuilder json = new StringBuilder("{\"status\":\"").append(result.getStatus().name()).append("\",\"message\":");
+        if (result.getMessage() == null) {
+            json.append("null");
+        } else {
+            quote(json, result.getMessage());
+        }
+        byte[] body = json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Private helper to build the console command for a request
+     *
+     * @param fields - fields of the request body
+     * @param name - command name
+     * @param keys - fields in command order
+     * @return command tokens
+     * @throws IllegalArgumentException if a field is missing
+     */
+    private static String[] command(Map<String, String> fields, String name, String... keys) {
+        String[] command = new String[keys.length + 1];
+        command[0] = name;
+        for (int i = 0; i < keys.length; i++) {
+            String value = fields.get(keys[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing field: " + keys[i]);
+            }
+            command[i + 1] = value;
+        }
+        return command;
+    }
+
+    /**
+     * Private helper to read a request body
+     *
+     * @param in - request body
+     * @return body text
+     * @throws IOException if the body cannot be read
+     * @throws IllegalArgumentException if the body is too large
+     */
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY + 1);
+        if (body.length > MAX_BODY) {
+            throw new IllegalArgumentException("Request body is larger than " + MAX_BODY + " bytes");
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Private helper to parse a flat JSON object of string, number, boolean or null values
+     *
+     * @param json - request body
+     * @return values by name, numbers and booleans as their text, null values left out
+     * @throws IllegalArgumentException if the body is not a flat JSON object
+     */
+    static Map<String, String> parse(String json) {
+        Map<String, String> fields = new HashMap<>();
+        int[] at = {skip(json, 0)};
+        expect(json, at, '{');
+        if (peek(json, at) == '}') {
+            at[0]++;
+        } else {
+            do {
+                String name = string(json, at);
+                expect(json, at, ':');
+                String value = peek(json, at) == '"' ? string(json, at) : literal(json, at);
+                if (value != null) {
+                    fields.put(name, value);
+                }
+            } while (next(json, at, ',', '}'));
+        }
+        if (skip(json, at[0]) != json.length()) {
+            throw new IllegalArgumentException("Unexpected text after the JSON object");
+        }
+        return fields;
+    }
+
+    /**
+     * Private helper to skip whitespace
+     *
+     * @param json - text
+     * @param at - position
+     * @return first position at or after at that isn't whitespace
+     */
+    private static int skip(String json, int at) {
+        while (at < json.length() && Character.isWhitespace(json.charAt(at))) {
+            at++;
+        }
+        return at;
+    }
+
+    /**
+     * Private helper to look at the next character that isn't whitespace
+     *
+     * @param json - text
+     * @param at - position, moved past the whitespace
+     * @return the character
+     * @throws IllegalArgumentException at the end of the text
+     */
+    private static char peek(String json, int[] at) {
+        at[0] = skip(json, at[0]);
+        if (at[0] >= json.length()) {
+            throw new IllegalArgumentException("Unexpected end of the JSON object");
+        }
+        return json.charAt(at[0]);
+    }
+
+    /**
+     * Private helper to consume one expected character
+     *
+     * @param json - text
+     * @param at - position, moved past the character
+     * @param c - expected character
+     * @throws IllegalArgumentException if the next character is something else
+     */
+    private static void expect(String json, int[] at, char c) {
+        if (peek(json, at) != c) {
+            throw new IllegalArgumentException("Expected '" + c + "' at position " + at[0]);
+        }
+        at[0]++;
+    }
+
+    /**
+     * Private helper to consume the separator after a value
+     *
+     * @param json - text
+     * @param at - position, moved past the separator
+     * @param more - separator before another member
+     * @param end - separator that closes the object
+     * @return true if another member follows
+     * @throws IllegalArgumentException if the next character is neither
+     */
+    private static boolean next(String json, int[] at, char more, char end) {
+        char c = peek(json, at);
+        if (c != more && c != end) {
+            throw new IllegalArgumentException("Expected '" + more + "' or '" + end + "' at position " + at[0]);
+        }
+        at[0]++;
+        return c == more;
+    }
+
+    /**
+     * Private helper to parse a JSON string
+     *
+     * @param json - text
+     * @param at - position of the opening quote, moved past the closing quote
+     * @return the string without escapes
+     * @throws IllegalArgumentException if the string is malformed
+     */
+    private static String string(String json, int[] at) {
+        expect(json, at, '"');
+        StringBuilder value = new StringBuilder();
+        int i = at[0];
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') {
+                at[0] = i;
+                return value.toString();
+            }
+            if (c == '\\' && i < json.length()) {
+                char e = json.charAt(i++);
+                if (e == 'u' && i + 4 <= json.length()) {
+                    try {
+                        value.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException("Bad escape at position " + (i - 2));
+                    }
+                    i += 4;
+                } else {
+                    int k = "\"\\/bfnrt".indexOf(e);
+                    if (k < 0) {
+                        throw new IllegalArgumentException("Bad escape at position " + (i - 2));
+                    }
+                    value.append("\"\\/\b\f\n\r\t".charAt(k));
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    /**
+     * Private helper to parse a number, true, false or null
+     *
+     * @param json - text
+     * @param at - position of the literal, moved past it
+     * @return the literal's text, null for null
+     * @throws IllegalArgumentException if there is no literal
+     */
+    private static String literal(String json, int[] at) {
+        int start = skip(json, at[0]);
+        int end = start;
+        while (end < json.length() && (Character.isLetterOrDigit(json.charAt(end))
+                || json.charAt(end) == '-' || json.charAt(end) == '+' || json.charAt(end) == '.')) {
+            end++;
+        }
+        if (end == start) {
+            throw new IllegalArgumentException("Expected a value at position " + start);
+        }
+        at[0] = end;
+        String value = json.substring(start, end);
+        return value.equals("null") ? null : value;
+    }
+
+    /**
+     * Private helper to append a JSON string with escapes
+     *
+     * @param json - receives the string
+     * @param text - text to quote
+     */
+    static void quote(StringBuilder json, String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c == '\n') {
+                json.append("\\n");
+            } else if (c == '\r') {
+                json.append("\\r");
+            } else if (c == '\t') {
+                json.append("\\t");
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Private helper to write text, for the report visitors that cannot throw IOException
+     *
+     * @param out - response body
+     * @param text - text to write
+     * @throws UncheckedIOException if the client is gone
+     */
+    private static void write(Writer out, String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Private helper to write the comma before every array element but the first
+     *
+     * @param out - response body
+     * @param first - true until the first element is written
+     */
+    private static void element(Writer out, boolean[] first) {
+        if (first[0]) {
+            first[0] = false;
+        } else {
+            write(out, ",");
+        }
+    }
+
+    /**
+     * Private helper to write a JSON string
+     *
+     * @param out - response body
+     * @param text - text to write
+     */
+    private static void writeString(Writer out, String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2);
+        quote(json, text);
+        write(out, json.toString());
+    }
+
+    /**
+     * Private helper to write a profile as {"fname","lname","dob"}
+     *
+     * @param out - response body
+     * @param profile - profile to write
+     */
+    private static void writeProfile(Writer out, Profile profile) {
+        write(out, "{\"fname\":");
+        writeString(out, profile.getFname());
+        write(out, ",\"lname\":");
+        writeString(out, profile.getLname());
+        write(out, ",\"dob\":\"" + profile.getDob() + "\"}");
+    }
+
+    /**
+     * Private helper to write a provider with their location and either specialty and npi or rate
+     *
+     * @param out - response body
+     * @param provider - provider to write
+     */
+    private static void writeProvider(Writer out, Provider provider) {
+        Profile profile = provider.getProfile();
+        Location location = provider.getLocation();
+        write(out, "{\"fname\":");
+        writeString(out, profile.getFname());
+        write(out, ",\"lname\":");
+        writeString(out, profile.getLname());
+        write(out, ",\"dob\":\"" + profile.getDob() + "\",\"location\":\"" + location.name()
+                + "\",\"county\":\"" + location.getCounty() + "\",\"zip\":\"" + location.getZip() + "\"");
+        if (provider instanceof Doctor) {
+            Doctor doctor = (Doctor) provider;
+            write(out, ",\"specialty\":\"" + doctor.getSpecialty().name() + "\",\"npi\":");
+            writeString(out, doctor.getNpi());
+        } else {
+            write(out, ",\"rate\":" + provider.rate());
+        }
+        write(out, "}");
+    }
+
+    /**
+     * Private helper to write an appointment, imaging appointments also have their room
+     *
+     * @param out - response body
+     * @param appointment - appointment to write
+     */
+    private static void writeAppointment(Writer out, Appointment appointment) {
+        Timeslot timeslot = appointment.getTimeslot();
+        write(out, "{\"date\":\"" + appointment.getDate() + "\",\"timeslot\":" + (timeslot.getOrdinal() + 1)
+                + ",\"time\":\"" + timeslot.getStandardTime() + "\",\"patient\":");
+        writeProfile(out, appointment.getPatient().getProfile());
+        write(out, ",\"provider\":");
+        writeProvider(out, (Provider) appointment.getProvider());
+        if (appointment instanceof Imaging) {
+            write(out, ",\"room\":\"" + ((Imaging) appointment).getRoom().name() + "\"");
+        }
+        write(out, "}");
+    }
+}
@@ -0,0 +1,100 @@
+package clinic;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ApiServerTest {
+    private ApiServer server;
+    private String day;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ApiServer(ClinicFixture.engine(), 0);
+        day = ClinicFixture.day(0);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * Sends a request and gives the status code and body
+     */
+    private String[] send(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)
+                new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int code = connection.getResponseCode();
+        InputStream in = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+        String text = in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        connection.disconnect();
+        return new String[] {String.valueOf(code), text};
+    }
+
+    @Test
+    public void testBookRescheduleCancelAndReport() throws Exception {
+        String visit = "\"date\":\"" + day + "\",\"timeslot\":\"1\",\"fname\":\"John\",\"lname\":\"Doe\",\"dob\":\"1/1/1990\"";
+        String[] booked = send("POST", "/appointments", "{" + visit + ",\"npi\":\"01\"}");
+        assertEquals("200", booked[0]);
+        assertTrue(booked[1].startsWith("{\"status\":\"OK\",\"message\":\""));
+
+        assertEquals("409", send("POST", "/appointments", "{" + visit + ",\"npi\":\"01\"}")[0]);
+        assertEquals("200", send("POST", "/appointments", "{" + visit.replace("\"1\"", "2") + ",\"room\":\"xray\"}")[0]);
+        assertEquals("200", send("POST", "/appointments/reschedule", "{" + visit + ",\"newTimeslot\":\"3\"}")[0]);
+
+        String[] pa = send("GET", "/reports/pa", null);
+        assertEquals("200", pa[0]);
+        assertTrue(pa[1].startsWith("[{\"date\":\""));
+        assertTrue(pa[1].contains("\"timeslot\":2,"));
+        assertTrue(pa[1].contains("\"timeslot\":3,"));
+        assertTrue(pa[1].contains("\"room\":\"XRAY\"}"));
+        assertTrue(pa[1].contains("\"npi\":\"01\""));
+        assertTrue(pa[1].endsWith("}]"));
+
+        String[] ps = send("GET", "/reports/ps", null);
+        assertTrue(ps[1].contains("\"due\":"));
+
+        assertEquals("200", send("POST", "/appointments/cancel", "{" + visit.replace("\"1\"", "3") + "}")[0]);
+        assertEquals("[]", send("GET", "/reports/po", null)[1]);
+        assertEquals(1, send("GET", "/reports/pi", null)[1].split("\"room\"").length - 1);
+    }
+
+    @Test
+    public void testBadRequestsAreRejected() throws Exception {
+        String[] missing = send("POST", "/appointments", "{\"date\":\"" + day + "\"}");
+        assertEquals("400", missing[0]);
+        assertTrue(missing[1].contains("Missing field: timeslot"));
+        assertEquals("400", send("POST", "/appointments", "not json")[0]);
+        assertEquals("404", send("GET", "/reports/px", null)[0]);
+        assertEquals("405", send("GET", "/appointments", null)[0]);
+        assertEquals("405", send("DELETE", "/reports/pa", null)[0]);
+    }
+
+    @Test
+    public void testParseFlatObject() {
+        Map<String, String> fields = ApiServer.parse(" {\"a\" : \"x\\\"y\\u0041\", \"b\":12, \"c\":null, \"d\":true} ");
+        assertEquals("x\"yA", fields.get("a"));
+        assertEquals("12", fields.get("b"));
+        assertFalse(fields.containsKey("c"));
+        assertEquals("true", fields.get("d"));
+        assertTrue(ApiServer.parse("{}").isEmpty());
+    }
+}
@@ -2,6 +2,8 @@ package clinic;
 
 import util.Date;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This class represents an appointment with a provider at a specific date and time.
  * It includes methods to calculate the charge based on the provider's specialty,
@@ -14,6 +16,9 @@ public class Appointment implements Comparable<Appointment> {
     protected Timeslot timeslot;    // The time slot of the appointment
     protected Person patient;      // The patient's profile
     protected Person provider;    // The provider (doctor) for the appointment
+    private final long sequence;    // Order the appointment was made in, breaks ties in sorted views
+
+    private static final AtomicLong NEXT_SEQUENCE = new AtomicLong();
 
     /**
      * Constructor to create an appointment with a specified date, timeslot, patient, and provider.
@@ -28,6 +33,7 @@ public class Appointment implements Comparable<Appointment> {
         this.timeslot = timeslot;
         this.patient = patient;
         this.provider = provider;
+        this.sequence = NEXT_SEQUENCE.getAndIncrement();
     }
 
     /**
@@ -148,4 +154,14 @@ public class Appointment implements Comparable<Appointment> {
     public Person getProvider() {
         return provider;
     }
+
+    /**
+     * Gets the creation order of the appointment
+     * Earlier appointments have smaller numbers
+     *
+     * @return sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
 }
\ No newline at end of file
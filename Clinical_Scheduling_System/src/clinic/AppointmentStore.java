@@ -0,0 +1,319 @@
+package clinic;
+
+import util.Date;
+
+import java.util.Arrays;
+
+/**
+ * Column store of the booked appointments, kept alongside the appointment objects
+ * Each appointment is one row across parallel primitive arrays (epoch day, slot ordinal,
+ * patient id, provider id and room ordinal), so counts and charge sums scan plain arrays
+ * Rows are not kept in any order, removing a row moves the last row into its place
+ * The row of each (provider, date, slot) is found in an open-addressing table of primitive keys, so nothing is boxed
+ *
+ * @author Jasmine Saffold
+ */
+public class AppointmentStore {
+    /**
+     * Room value of an office appointment
+     */
+    public static final byte NO_ROOM = -1;
+    /**
+     * The initial capacity of the columns
+     */
+    private static final int INIT_CAPACITY = 16;
+
+    private final ProviderDirectory providers;
+    private final MedicalRecord patients;
+    private long[] keys = new long[INIT_CAPACITY * 2]; // (provider, date, slot) key of each bucket
+    private int[] rowOf = new int[INIT_CAPACITY * 2];   // row + 1 of each bucket, 0 for an empty bucket
+    private int[] epochDay = new int[INIT_CAPACITY];
+    private byte[] slot = new byte[INIT_CAPACITY];
+    private int[] patientId = new int[INIT_CAPACITY];
+    private int[] providerId = new int[INIT_CAPACITY];
+    private byte[] room = new byte[INIT_CAPACITY];
+    private int size;
+
+    /**
+     * Constructor, ids are resolved against the directory and record the store is built with
+     *
+     * @param providers - directory that numbers the providers
+     * @param patients - record that numbers the patients
+     */
+    public AppointmentStore(ProviderDirectory providers, MedicalRecord patients) {
+        this.providers = providers;
+        this.patients = patients;
+    }
+
+    /**
+     * Adds a row for a booked appointment
+     * The patient must already be registered in the medical record
+     *
+     * @param appointment - appointment to add
+     */
+    public void add(Appointment appointment) {
+        int provider = providers.id(appointment.getProvider());
+        int patient = patients.id(appointment.getPatient().getProfile());
+        if (provider < 0 || patient < 0) {
+            throw new IllegalArgumentException("Appointment is not in the directory or medical record.");
+        }
+        if (size == epochDay.length) {
+            grow();
+        }
+        epochDay[size] = appointment.getDate().getEpochDay();
+        slot[size] = (byte) appointment.getTimeslot().getOrdinal();
+        patientId[size] = patient;
+        providerId[size] = provider;
+        room[size] = appointment instanceof Imaging ? (byte) ((Imaging) appointment).getRoom().ordinal() : NO_ROOM;
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        put(key(provider, epochDay[size], slot[size]), size);
+        size++;
+    }
+
+    /**
+     * Removes the row of an appointment
+     * Must be called before the appointment's timeslot is changed
+     *
+     * @param appointment - appointment to remove
+     */
+    public void remove(Appointment appointment) {
+        int provider = providers.id(appointment.getProvider());
+        int row = take(key(provider, appointment.getDate().getEpochDay(), appointment.getTimeslot().getOrdinal()));
+        if (row < 0) {
+            return;
+        }
+        int last = --size;
+        if (row != last) { // move the last row into the hole
+            epochDay[row] = epochDay[last];
+            slot[row] = slot[last];
+            patientId[row] = patientId[last];
+            providerId[row] = providerId[last];
+            room[row] = room[last];
+            put(key(providerId[row], epochDay[row], slot[row]), row);
+        }
+    }
+
+    /**
+     * Removes every row
+     */
+    public void clear() {
+        Arrays.fill(rowOf, 0);
+        size = 0;
+    }
+
+    /**
+     * Gives the number of rows
+     *
+     * @return number of appointments
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts the appointments of every provider
+     *
+     * @return count for each provider id
+     */
+    public int[] countByProvider() {
+        int[] counts = new int[providers.providerCount()];
+        for (int row = 0; row < size; row++) {
+            counts[providerId[row]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Adds up the charges of every patient
+     *
+     * @return total charge for each patient id
+     */
+    public long[] chargeByPatient() {
+        long[] charges = new long[patients.getSize()];
+        for (int row = 0; row < size; row++) {
+            charges[patientId[row]] += providers.rate(providerId[row]);
+        }
+        return charges;
+    }
+
+    /**
+     * Counts the appointments of every patient
+     *
+     * @return count for each patient id
+     */
+    public int[] countByPatient() {
+        int[] counts = new int[patients.getSize()];
+        for (int row = 0; row < size; row++) {
+            counts[patientId[row]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Adds up the charges of every appointment
+     *
+     * @return total charge
+     */
+    public long totalCharge() {
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            total += providers.rate(providerId[row]);
+        }
+        return total;
+    }
+
+    /**
+     * Gives the epoch day of a row
+     *
+     * @param row - row number
+     * @return days since 01/01/1970
+     */
+    public int epochDay(int row) { return epochDay[row]; }
+
+    /**
+     * Gives the slot ordinal of a row
+     *
+     * @param row - row number
+     * @return slot ordinal
+     */
+    public int slot(int row) { return slot[row]; }
+
+    /**
+     * Gives the patient id of a row
+     *
+     * @param row - row number
+     * @return patient id
+     */
+    public int patientId(int row) { return patientId[row]; }
+
+    /**
+     * Gives the provider id of a row
+     *
+     * @param row - row number
+     * @return provider id
+     */
+    public int providerId(int row) { return providerId[row]; }
+
+    /**
+     * Gives the room ordinal of a row
+     *
+     * @param row - row number
+     * @return room ordinal, NO_ROOM for office appointments
+     */
+    public int room(int row) { return room[row]; }
+
+    /**
+     * Builds an appointment object for a row, for output
+     * The object is new, it is not the object that was booked
+     *
+     * @param row - row number
+     * @return office or imaging appointment
+     */
+    public Appointment materialize(int row) {
+        Date date = Date.ofEpochDay(epochDay[row]);
+        Timeslot timeslot = Timeslot.of(slot[row] + 1);
+        Patient patient = patients.getPatient(patientId[row]);
+        Provider provider = providers.provider(providerId[row]);
+        if (room[row] == NO_ROOM) {
+            return new Appointment(date, timeslot, patient, provider);
+        }
+        return new Imaging(date, timeslot, patient, provider, Radiology.values()[room[row]]);
+    }
+
+    /**
+     * Private helper for the row key, a provider holds one appointment per date and slot
+     *
+     * @param provider - provider id
+     * @param day - epoch day
+     * @param slot - slot ordinal
+     * @return key
+     */
+    private static long key(int provider, int day, int slot) {
+        long packed = ((long) provider << 40) | ((long) (day & 0xFFFFFFF) << 8) | (slot & 0xFF);
+        return packed * 0x9E3779B97F4A7C15L; // odd multiplier keeps keys distinct and spreads the bits
+    }
+
+    /**
+     * Private helper to find the bucket of a key by linear probing
+     *
+     * @param key - row key
+     * @return bucket holding the key, or the empty bucket where it would go
+     */
+    private int bucket(long key) {
+        int mask = keys.length - 1;
+        int i = (int) (key ^ (key >>> 32)) & mask;
+        while (rowOf[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Private helper to set the row of a key
+     *
+     * @param key - row key
+     * @param row - row number
+     */
+    private void put(long key, int row) {
+        int i = bucket(key);
+        keys[i] = key;
+        rowOf[i] = row + 1;
+    }
+
+    /**
+     * Private helper to remove a key, the entries after it in its probe run are shifted back to close the gap
+     *
+     * @param key - row key
+     * @return row of the key, -1 if it is not in the table
+     */
+    private int take(long key) {
+        int i = bucket(key);
+        if (rowOf[i] == 0) {
+            return -1;
+        }
+        int row = rowOf[i] - 1;
+        int mask = keys.length - 1;
+        int hole = i;
+        for (int j = (i + 1) & mask; rowOf[j] != 0; j = (j + 1) & mask) {
+            int home = (int) (keys[j] ^ (keys[j] >>> 32)) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) { // the entry may move back to the hole
+                keys[hole] = keys[j];
+                rowOf[hole] = rowOf[j];
+                hole = j;
+            }
+        }
+        rowOf[hole] = 0;
+        return row;
+    }
+
+    /**
+     * Private helper to move every key into a table of a new capacity
+     *
+     * @param capacity - number of buckets, a power of two
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldRows = rowOf;
+        keys = new long[capacity];
+        rowOf = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldRows[i] != 0) {
+                put(oldKeys[i], oldRows[i] - 1);
+            }
+        }
+    }
+
+    /**
+     * Private helper to double the capacity of every column
+     */
+    private void grow() {
+        int capacity = epochDay.length * 2;
+        epochDay = Arrays.copyOf(epochDay, capacity);
+        slot = Arrays.copyOf(slot, capacity);
+        patientId = Arrays.copyOf(patientId, capacity);
+        providerId = Arrays.copyOf(providerId, capacity);
+        room = Arrays.copyOf(room, capacity);
+    }
+}
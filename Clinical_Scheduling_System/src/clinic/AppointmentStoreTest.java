@@ -0,0 +1,63 @@
+package clinic;
+
+import org.junit.Before;
+import org.junit.Test;
+import util.Date;
+
+import static org.junit.Assert.*;
+
+public class AppointmentStoreTest {
+
+    private AppointmentStore store;
+    private ClinicFixture.Practice practice;
+
+    @Before
+    public void setUp() {
+        practice = new ClinicFixture.Practice();
+        store = new AppointmentStore(practice.directory, practice.record);
+    }
+
+    @Test
+    public void testSumsFollowAddAndRemove() {
+        Appointment first = new Appointment(new Date(2026, 11, 10), Timeslot.of(1), practice.patient("Jane"), practice.doctor);
+        Appointment second = new Appointment(new Date(2026, 11, 10), Timeslot.of(2), practice.patient("John"), practice.doctor);
+        Imaging third = new Imaging(new Date(2026, 11, 10), Timeslot.of(1), practice.patient("Jane"), practice.technician, Radiology.XRAY);
+        store.add(first);
+        store.add(second);
+        store.add(third);
+        assertArrayEquals(new int[]{2, 1}, store.countByProvider());
+        assertArrayEquals(new long[]{375, 250}, store.chargeByPatient());
+
+        store.remove(first); // the imaging row moves into row 0
+        assertEquals(2, store.size());
+        assertArrayEquals(new long[]{125, 250}, store.chargeByPatient());
+        assertEquals(Radiology.XRAY.ordinal(), store.room(0));
+        assertEquals(third.toString(), store.materialize(0).toString());
+    }
+
+    @Test
+    public void testRowsAreFoundAfterGrowingAndRemoving() {
+        Appointment[] booked = new Appointment[1200];
+        for (int i = 0; i < booked.length; i++) { // every slot of 100 days, so the row table grows and probe runs form
+            booked[i] = new Appointment(new Date(2026, 1, 1).plusDays(i / 12), Timeslot.of(i % 12 + 1), practice.patient("Jane"), practice.doctor);
+            store.add(booked[i]);
+        }
+        for (int i = 0; i < booked.length; i += 3) {
+            store.remove(booked[i]);
+        }
+        store.remove(booked[0]); // already removed
+        assertEquals(800, store.size());
+        for (int i = 1; i < booked.length; i += 3) {
+            store.remove(booked[i]);
+        }
+        assertEquals(400, store.size());
+        assertArrayEquals(new int[]{400, 0}, store.countByProvider());
+        for (int row = 0; row < store.size(); row++) {
+            int i = (store.epochDay(row) - new Date(2026, 1, 1).getEpochDay()) * 12 + store.slot(row);
+            assertEquals(2, i % 3); // only the appointments that were never removed are left
+        }
+        store.clear();
+        store.add(booked[0]);
+        assertEquals(1, store.size());
+    }
+}
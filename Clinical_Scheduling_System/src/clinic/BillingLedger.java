@@ -0,0 +1,193 @@
+package clinic;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Running balance of every patient, kept up to date as appointments are booked, canceled and rescheduled
+ * Balances and visit counts are indexed by patient id, and the patients with at least one visit are kept
+ * in profile order, so the billing statement is a walk over the billed patients without any summing
+ *
+ * @author Jasmine Saffold
+ */
+public class BillingLedger {
+    /**
+     * The initial capacity of the balance and visit columns
+     */
+    private static final int INIT_CAPACITY = 16;
+
+    private final ProviderDirectory providers;
+    private final MedicalRecord patients;
+    private final TreeMap<Profile, Integer> billed = new TreeMap<>(); // patient id by profile, visits > 0 only
+    private long[] balance = new long[INIT_CAPACITY];
+    private int[] visits = new int[INIT_CAPACITY];
+
+    /**
+     * Constructor, ids are resolved against the directory and record the ledger is built with
+     *
+     * @param providers - directory that numbers the providers and gives their rates
+     * @param patients - record that numbers the patients
+     */
+    public BillingLedger(ProviderDirectory providers, MedicalRecord patients) {
+        this.providers = providers;
+        this.patients = patients;
+    }
+
+    /**
+     * Charges a patient for a booked appointment
+     * The patient must already be registered in the medical record
+     *
+     * @param appointment - appointment that was booked
+     */
+    public void add(Appointment appointment) {
+        Profile profile = appointment.getPatient().getProfile();
+        int patient = patient(profile);
+        if (patient >= balance.length) {
+            int capacity = Math.max(balance.length * 2, patient + 1);
+            balance = Arrays.copyOf(balance, capacity);
+            visits = Arrays.copyOf(visits, capacity);
+        }
+        balance[patient] += rate(appointment);
+        if (visits[patient]++ == 0) {
+            billed.put(profile, patient);
+        }
+    }
+
+    /**
+     * Takes the charge of a canceled appointment off the patient's balance
+     * Reschedules keep the provider, so they remove and add the same charge
+     *
+     * @param appointment - appointment that was canceled
+     * @throws IllegalStateException if the patient has no charges, the ledger has drifted from the bookings
+     */
+    public void remove(Appointment appointment) {
+        Profile profile = appointment.getPatient().getProfile();
+        int patient = patient(profile);
+        if (patient >= visits.length || visits[patient] == 0) {
+            throw new IllegalStateException(profile + " has no appointments in the billing ledger.");
+        }
+        balance[patient] -= rate(appointment);
+        if (--visits[patient] == 0) {
+            billed.remove(profile);
+        }
+    }
+
+    /**
+     * Empties the ledger
+     */
+    public void clear() {
+        billed.clear();
+        Arrays.fill(balance, 0);
+        Arrays.fill(visits, 0);
+    }
+
+    /**
+     * Gives the amount a patient owes
+     *
+     * @param patient - patient id
+     * @return balance in dollars, 0 if the patient has no appointments
+     */
+    public long balance(int patient) {
+        return patient < balance.length ? balance[patient] : 0;
+    }
+
+    /**
+     * Gives the number of appointments a patient has
+     *
+     * @param patient - patient id
+     * @return number of appointments
+     */
+    public int visits(int patient) {
+        return patient < visits.length ? visits[patient] : 0;
+    }
+
+    /**
+     * Gives the number of patients with at least one appointment
+     *
+     * @return number of billed patients
+     */
+    public int billedCount() {
+        return billed.size();
+    }
+
+    /**
+     * Visits the billed patients in profile order with their balances
+     *
+     * @param action - called with each patient's profile and balance
+     */
+    public void forEach(ObjLongConsumer<Profile> action) {
+        for (Map.Entry<Profile, Integer> entry : billed.entrySet()) {
+            action.accept(entry.getKey(), balance[entry.getValue()]);
+        }
+    }
+
+    /**
+     * Checks every balance and visit count against a full recomputation from the appointment store
+     *
+     * @param store - appointment store with the same appointments
+     * @return null if the ledger matches, otherwise a description of the first difference
+     */
+    public String verify(AppointmentStore store) {
+        return verify(store.chargeByPatient(), Arrays.stream(store.countByPatient()).asLongStream().toArray());
+    }
+
+    /**
+     * Checks every balance and visit count against totals recomputed elsewhere
+     *
+     * @param charges - total charge for each patient id
+     * @param counts - number of appointments for each patient id
+     * @return null if the ledger matches, otherwise a description of the first difference
+     */
+    public String verify(long[] charges, long[] counts) {
+        int expectedBilled = 0;
+        for (int id = 0; id < Math.max(counts.length, visits.length); id++) {
+            long charge = id < charges.length ? charges[id] : 0;
+            long count = id < counts.length ? counts[id] : 0;
+            if (balance(id) != charge || visits(id) != count) {
+                return patients.getPatient(id).getProfile() + " has $" + balance(id) + ".00 for " + visits(id)
+                        + " appointment(s) in the ledger, $" + charge + ".00 for " + count + " recomputed.";
+            }
+            if (count > 0) {
+                expectedBilled++;
+                if (!Integer.valueOf(id).equals(billed.get(patients.getPatient(id).getProfile()))) {
+                    return patients.getPatient(id).getProfile() + " is missing from the billed patients.";
+                }
+            }
+        }
+        if (billed.size() != expectedBilled) {
+            return billed.size() + " billed patients in the ledger, " + expectedBilled + " recomputed.";
+        }
+        return null;
+    }
+
+    /**
+     * Private helper to find the id of a registered patient
+     *
+     * @param profile - patient profile
+     * @return patient id
+     * @throws IllegalArgumentException if the patient is not in the medical record
+     */
+    private int patient(Profile profile) {
+        int patient = patients.id(profile);
+        if (patient < 0) {
+            throw new IllegalArgumentException("Patient is not in the medical record.");
+        }
+        return patient;
+    }
+
+    /**
+     * Private helper to give the charge of an appointment, the rate of its provider
+     *
+     * @param appointment - appointment
+     * @return charge in dollars
+     */
+    private int rate(Appointment appointment) {
+        int provider = providers.id(appointment.getProvider());
+        if (provider < 0) {
+            throw new IllegalArgumentException("Appointment is not in the directory.");
+        }
+        return providers.rate(provider);
+    }
+}
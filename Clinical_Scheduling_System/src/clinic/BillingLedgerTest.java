@@ -0,0 +1,77 @@
+package clinic;
+
+import org.junit.Before;
+import org.junit.Test;
+import util.Date;
+
+import static org.junit.Assert.*;
+
+public class BillingLedgerTest {
+
+    private BillingLedger ledger;
+    private AppointmentStore store;
+    private ClinicFixture.Practice practice;
+
+    @Before
+    public void setUp() {
+        practice = new ClinicFixture.Practice();
+        ledger = new BillingLedger(practice.directory, practice.record);
+        store = new AppointmentStore(practice.directory, practice.record);
+    }
+
+    private void book(Appointment appointment) {
+        ledger.add(appointment);
+        store.add(appointment);
+    }
+
+    private void cancel(Appointment appointment) {
+        ledger.remove(appointment);
+        store.remove(appointment);
+    }
+
+    @Test
+    public void testBalancesFollowBookCancelAndReschedule() {
+        Appointment first = new Appointment(new Date(2026, 11, 10), Timeslot.of(1), practice.patient("John"), practice.doctor);
+        Appointment second = new Appointment(new Date(2026, 11, 10), Timeslot.of(2), practice.patient("Jane"), practice.doctor);
+        Imaging third = new Imaging(new Date(2026, 11, 10), Timeslot.of(1), practice.patient("John"), practice.technician, Radiology.XRAY);
+        book(first);
+        book(second);
+        book(third);
+        assertEquals(375, ledger.balance(0));
+        assertEquals(2, ledger.visits(0));
+        assertEquals(250, ledger.balance(1));
+        assertNull(ledger.verify(store));
+
+        StringBuilder order = new StringBuilder();
+        ledger.forEach((profile, due) -> order.append(profile.getFname()).append(' ').append(due).append(';'));
+        assertEquals("Jane 250;John 375;", order.toString()); // profile order, not booking order
+
+        cancel(second);
+        assertEquals(1, ledger.billedCount());
+        assertEquals(0, ledger.balance(1));
+
+        cancel(first); // a reschedule takes the charge off and puts it back
+        first.setTimeslot(Timeslot.of(5));
+        book(first);
+        assertEquals(375, ledger.balance(0));
+        assertNull(ledger.verify(store));
+    }
+
+    @Test
+    public void testVerifyFindsDrift() {
+        Appointment first = new Appointment(new Date(2026, 11, 10), Timeslot.of(1), practice.patient("John"), practice.doctor);
+        book(first);
+        store.remove(first); // the store loses the appointment, the ledger doesn't
+        assertNotNull(ledger.verify(store));
+        ledger.clear();
+        assertNull(ledger.verify(store));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRemovingAnUnbilledAppointmentThrows() {
+        Appointment first = new Appointment(new Date(2026, 11, 10), Timeslot.of(1), practice.patient("John"), practice.doctor);
+        book(first);
+        cancel(first);
+        ledger.remove(first);
+    }
+}
@@ -0,0 +1,166 @@
+package clinic;
+
+import util.Date;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Scanner;
+
+/**
+ * Precomputed booking calendar
+ * The days that can be booked (after today, a weekday, within six months) are kept as a bitmap
+ * that is rebuilt once a day, and each location has a bitmap of closure days
+ * Checking a date is a single bit test
+ *
+ * @author Jasmine Saffold
+ */
+public class BusinessCalendar {
+    /**
+     * Closure file token that closes every location
+     */
+    private static final String ALL_LOCATIONS = "ALL";
+
+    private volatile Window window = new Window(Date.today());
+    private final EnumMap<Location, BitSet> closures = new EnumMap<>(Location.class); // closure bits by epoch day
+
+    /**
+     * Bookable days for the window that starts tomorrow
+     */
+    private static final class Window {
+        final int today;    // epoch day the window was built on
+        final int first;    // epoch day of bit 0
+        final long[] open;  // bit set if the day can be booked
+
+        Window(Date.Today now) {
+            this.today = now.getEpochDay();
+            this.first = today + 1;
+            int days = Math.max(0, now.getSixMonthsEpochDay() - today);
+            this.open = new long[(days + Long.SIZE - 1) / Long.SIZE];
+            for (int i = 0; i < days; i++) {
+                if (!Date.ofEpochDay(first + i).isWeekend()) {
+                    open[i / Long.SIZE] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a date is after today, a weekday and within six months
+     *
+     * @param date - appointment date
+     * @return true if the date can be booked, false otherwise
+     */
+    public boolean isBookable(Date date) {
+        Window current = current();
+        int bit = date.getEpochDay() - current.first;
+        return bit >= 0 && bit < current.open.length * Long.SIZE
+                && (current.open[bit / Long.SIZE] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Checks if a location is open on a date
+     *
+     * @param location - clinic location
+     * @param date - appointment date
+     * @return true unless the location is closed that day
+     */
+    public boolean isOpen(Location location, Date date) {
+        BitSet closed = closures.get(location);
+        return closed == null || date.getEpochDay() < 0 || !closed.get(date.getEpochDay());
+    }
+
+    /**
+     * Gives the locations closed on a date as bits
+     *
+     * @param date - appointment date
+     * @return bit (1 << location ordinal) is set for each closed location
+     */
+    public int closedLocations(Date date) {
+        int mask = 0;
+        for (Location location : closures.keySet()) {
+            if (!isOpen(location, date)) {
+                mask |= 1 << location.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Closes a location for a day
+     *
+     * @param location - clinic location
+     * @param date - closure date, must be after 01/01/1970
+     */
+    public void close(Location location, Date date) {
+        if (date.getEpochDay() < 0) {
+            throw new IllegalArgumentException(date + " is before 01/01/1970.");
+        }
+        closures.computeIfAbsent(location, l -> new BitSet()).set(date.getEpochDay());
+    }
+
+    /**
+     * Reads a closure file and closes every listed day
+     * Each line is LOCATION,MM/DD/YYYY or ALL,MM/DD/YYYY, blank lines and lines starting with # are skipped
+     *
+     * @param filename - closure file
+     * @return number of closure lines read
+     * @throws FileNotFoundException if the file doesn't exist
+     */
+    public int loadClosures(String filename) throws FileNotFoundException {
+        Scanner closureFile = new Scanner(new File(filename));
+        int count = 0;
+
+        while (closureFile.hasNextLine()) {
+            String line = closureFile.nextLine().trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] tokens = line.split(",");
+            String[] mdy = tokens.length == 2 ? tokens[1].trim().split("/") : new String[0];
+            if (mdy.length != 3) {
+                closureFile.close();
+                throw new IllegalArgumentException("Invalid closure: " + line);
+            }
+            Date date = Date.of(Integer.parseInt(mdy[2]), Integer.parseInt(mdy[0]), Integer.parseInt(mdy[1]));
+            if (!date.isValid()) {
+                closureFile.close();
+                throw new IllegalArgumentException("Invalid closure date: " + line);
+            }
+            String where = tokens[0].trim().toUpperCase();
+            if (where.equals(ALL_LOCATIONS)) {
+                for (Location location : Location.values()) {
+                    close(location, date);
+                }
+            } else {
+                close(Location.valueOf(where), date);
+            }
+            count++;
+        }
+        closureFile.close();
+        return count;
+    }
+
+    /**
+     * Removes every closure
+     */
+    public void clear() {
+        closures.clear();
+    }
+
+    /**
+     * Private helper to get the window, rebuilding it when the day has changed
+     *
+     * @return window for today
+     */
+    private Window current() {
+        Window current = window;
+        Date.Today now = Date.today();
+        if (now.getEpochDay() != current.today) {
+            current = new Window(now);
+            window = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,34 @@
+package clinic;
+
+import org.junit.Test;
+import util.Date;
+
+import static org.junit.Assert.*;
+
+public class BusinessCalendarTest {
+
+    @Test
+    public void testBookableWindow() {
+        BusinessCalendar calendar = new BusinessCalendar();
+        int today = Date.today().getEpochDay();
+        Date weekday = Date.ofEpochDay(today + 1);
+        while (weekday.isWeekend()) {
+            weekday = weekday.plusDays(1);
+        }
+        assertTrue(calendar.isBookable(weekday));
+        assertFalse(calendar.isBookable(Date.ofEpochDay(today)));
+        assertFalse(calendar.isBookable(weekday.plusDays(6 - (weekday.getDayOfWeek() - 1)))); // that week's Saturday
+        assertFalse(calendar.isBookable(Date.ofEpochDay(Date.today().getSixMonthsEpochDay() + 7)));
+    }
+
+    @Test
+    public void testClosuresArePerLocation() {
+        BusinessCalendar calendar = new BusinessCalendar();
+        Date date = new Date(2026, 11, 26);
+        calendar.close(Location.EDISON, date);
+        assertFalse(calendar.isOpen(Location.EDISON, date));
+        assertTrue(calendar.isOpen(Location.EDISON, date.plusDays(1)));
+        assertTrue(calendar.isOpen(Location.CLARK, date));
+        assertEquals(1 << Location.EDISON.ordinal(), calendar.closedLocations(date));
+    }
+}
@@ -0,0 +1,104 @@
+package clinic;
+
+import util.Date;
+import util.List;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Calendar;
+
+/**
+ * Shared set-up for the engine tests: a small provider list and a week of bookable days,
+ * and a two-provider practice for the store and ledger tests
+ *
+ * @author Jasmine Saffold
+ */
+final class ClinicFixture {
+    /**
+     * Two doctors and three technicians, each technician at their own location
+     */
+    static final String PROVIDERS = "D  ANDREW  PATEL  01/21/1989  BRIDGEWATER  FAMILY  01\n"
+            + "D  TOM  KAUR  11/05/1972  PRINCETON  ALLERGIST  54\n"
+            + "T  GARY  JOHNSON  11/14/1987  EDISON  110\n"
+            + "T  BEN  JERRY  9/28/1987  PISCATAWAY  150\n"
+            + "T  JENNY  PATEL  8/09/1991  BRIDGEWATER  125\n";
+
+    private ClinicFixture() {
+    }
+
+    /**
+     * A doctor and a technician in one provider directory, with an empty medical record
+     */
+    static final class Practice {
+        final Doctor doctor = new Doctor(Location.BRIDGEWATER, new Profile("Andrew", "Patel", new Date(1989, 1, 21)), Specialty.FAMILY, "01");
+        final Technician technician = new Technician(Location.EDISON, new Profile("Jenny", "Patel", new Date(1991, 8, 9)), 125);
+        final ProviderDirectory directory;
+        final MedicalRecord record = new MedicalRecord();
+
+        Practice() {
+            List<Provider> providers = new List<>();
+            providers.add(doctor);
+            providers.add(technician);
+            directory = new ProviderDirectory(providers);
+        }
+
+        /**
+         * Gives a patient of the Doe family, registered on first use
+         *
+         * @param fname - first name
+         * @return patient in the medical record
+         */
+        Patient patient(String fname) {
+            return record.register(new Patient(new Profile(fname, "Doe", new Date(2000, 8, 9))));
+        }
+    }
+
+    /**
+     * Gives an engine loaded with the fixture providers
+     *
+     * @return scheduling engine
+     * @throws IOException if the provider file cannot be written
+     */
+    static SchedulingEngine engine() throws IOException {
+        SchedulingEngine engine = new SchedulingEngine();
+        load(engine);
+        return engine;
+    }
+
+    /**
+     * Loads the fixture providers into engines
+     *
+     * @param engines - engines to load
+     * @throws IOException if the provider file cannot be written
+     */
+    static void load(SchedulingEngine... engines) throws IOException {
+        Path providers = Files.createTempFile("providers", ".txt");
+        try {
+            Files.write(providers, PROVIDERS.getBytes(StandardCharsets.UTF_8));
+            for (SchedulingEngine engine : engines) {
+                engine.loadProviders(providers.toString());
+            }
+        } finally {
+            Files.delete(providers);
+        }
+    }
+
+    /**
+     * Gives a day of the first Monday to Friday, a week or more out, that the business calendar can book
+     *
+     * @param weekday - 0 for Monday through 4 for Friday
+     * @return date as a command token
+     */
+    static String day(int weekday) {
+        BusinessCalendar calendar = new BusinessCalendar();
+        for (int epochDay = Date.today().getEpochDay() + 7; ; epochDay++) {
+            Date monday = Date.ofEpochDay(epochDay);
+            if (monday.getDayOfWeek() == Calendar.MONDAY && calendar.isBookable(monday)
+                    && calendar.isBookable(monday.plusDays(4))) {
+                return monday.plusDays(weekday).toString();
+            }
+        }
+    }
+}
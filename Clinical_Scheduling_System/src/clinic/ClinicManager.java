@@ -1,85 +1,42 @@
 package clinic;
 
-import util.List;
-import util.CircularLinkedList;
-import util.Sort;
-import util.Date;
-import util.Visit;
-
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * User interface class to process command lines in the terminal
+ * The scheduling itself is done by one SchedulingEngine, this class prints what its commands return
  *
  * @author Jasmine Saffold
  */
 public class ClinicManager {
-
-    public static List<Provider> providerList = new List<Provider>();
-    public static CircularLinkedList<Provider> technicianList = new CircularLinkedList<Provider>();
-    public static List<Appointment> appList = new List<Appointment>();
-    public static List<Person> patientList = new List<>();
-    private static boolean CODE_BREAK = false;
+    private static final SchedulingEngine engine = new SchedulingEngine();
+    private static Path storePath = null;
+    private static Path journalPath = null;
+    private static int serverPort = -1;
+    private static int httpPort = -1;
 
     /**
-     * Creates a timeslot object if the time is valid
+     * Gives the engine behind the console
      *
-     * @param slotNum - from terminal input
-     * @return time
+     * @return scheduling engine
      */
-    public static Timeslot createTimeslot(String slotNum) {
-
-        if(!onlyDigits(slotNum)) {
-            System.out.println(slotNum + " is not a valid time slot.");
-            throw new IllegalArgumentException();
-        }
-        int number = Integer.parseInt(slotNum);
-        Timeslot time = null;
-
-        switch (number) {
-            case 1:
-                time = new Timeslot(9, 0);
-                break;
-            case 2:
-                time = new Timeslot(9, 30);
-                break;
-            case 3:
-                time = new Timeslot(10, 0);
-                break;
-            case 4:
-                time = new Timeslot(10, 30);
-                break;
-            case 5:
-                time = new Timeslot(11, 0);
-                break;
-            case 6:
-                time = new Timeslot(11, 30);
-                break;
-            case 7:
-                time = new Timeslot(14, 0);
-                break;
-            case 8:
-                time = new Timeslot(14, 30);
-                break;
-            case 9:
-                time = new Timeslot(15, 0);
-                break;
-            case 10:
-                time = new Timeslot(15, 30);
-                break;
-            case 11:
-                time = new Timeslot(16, 0);
-                break;
-            case 12:
-                time = new Timeslot(16, 30);
-                break;
-            default:
-                System.out.println(slotNum + " is not a valid time slot.");
-                throw new IllegalArgumentException();
-        }
-        return time;
+    public static SchedulingEngine engine() {
+        return engine;
     }
 
     /**
@@ -88,348 +45,116 @@ public class ClinicManager {
      * @param filename - providers.txt
      */
     public static void loadProviders(String filename) throws FileNotFoundException {
-        File f = new File(filename);
-        Scanner providerFile = new Scanner(f);
-
-        while (providerFile.hasNextLine()) {
-
-            // reads a line and splits the line by the space character, then splits the DOB
-            String line = providerFile.nextLine();
-            String[] tokens = line.split("  ");
-            String[] birthday = tokens[3].split("/");
-
-            // Make Date object for DOB, make Profile for provider, Find location of provider
-            Date dob = new Date(Integer.parseInt(birthday[2]), Integer.parseInt(birthday[0]), Integer.parseInt(birthday[1]));
-            Profile provProfile = new Profile(tokens[1], tokens[2], dob);
-            Location provLocate = Location.valueOf(tokens[4].toUpperCase());
-
-            if(tokens[0].equals("T")){ // separate technicians in order to add them to the technician list
-
-                Provider technician = new Technician(provLocate, provProfile, Integer.parseInt(tokens[5]));
-                technicianList.add(technician);
-                providerList.add(technician);
-
-            } else{ // If they are a doctor
-
-                Specialty docSpecial = Specialty.valueOf(tokens[5]);
-                Provider doctor = new Doctor(provLocate, provProfile, docSpecial, tokens[6]);
-                providerList.add(doctor);
-
-            }
-        }
-        providerFile.close();
-        Sort.provider(providerList);
+        engine.loadProviders(filename);
     }
 
     /**
-     * Checks to see if a string only contains digits
-     *
-     * @param str - string to check
-     * @return true if the string is only digits, false otherwise
+     * Clears every provider, patient and appointment so the manager can be loaded again
      */
-    private static boolean onlyDigits(String str) {
-        return str != null && str.matches("\\d+");
+    public static void reset() {
+        engine.reset();
     }
 
     /**
-     * Checks to make sure the commands are formatted correctly
-     * Number of commands must have specific length
+     * Keeps the schedule in a store file, startUp() opens it once the providers are loaded
      *
-     * @param length - length of command input
-     * @param command - command input from terminal
-     * @return true if number of commands is correct, false otherwise
+     * @param path - store file, created if it doesn't exist
      */
-    public static boolean lengthSanitizer(int length, String[] command){
-
-        if(command.length > length){ // if there are too many commands
-            System.out.println("Missing data tokens.");
-            return false;
-        }else if (command.length < length){ // if there are too little commands
-            System.out.println("Missing data tokens.");
-            return false;
-        }
-        return true;
-
+    public static void useStore(Path path) {
+        storePath = path;
     }
 
     /**
-     * Checks to make sure the date commands are formatted correctly
+     * Opens the store file and rebuilds the schedule from it
      *
-     * @param type - dob or appointment date
-     * @param command - command input from terminal
-     * @return appDate
+     * @param path - store file
+     * @throws IOException if the store cannot be opened or belongs to another provider list
      */
-    public static Date dateSanitizer(String type, String[] command){
-        Date appDate = null;
-        if (type.equals("app")) {
-            String[] appDateList = command[1].split("/");
-            Date appDateGetter = new Date(Integer.parseInt(appDateList[2]), Integer.parseInt(appDateList[0]), Integer.parseInt(appDateList[1]));
-
-            if (appDateGetter.isValidAppTime()){ appDate = appDateGetter;
-            } else { throw new IllegalArgumentException(); }
-
-        }else{
-            String[] dobList = command[5].split("/");
-            Date dobDateGetter = new Date(Integer.parseInt(dobList[2]), Integer.parseInt(dobList[0]), Integer.parseInt(dobList[1]));
+    public static void openStore(Path path) throws IOException {
+        print(engine.openStore(path));
+    }
 
-            if(dobDateGetter.isValidBirthday()){
-                appDate = dobDateGetter;
-            }else{ throw new IllegalArgumentException(); }
-        }
-        return appDate;
+    /**
+     * Writes the store file to disk and closes it, if one is open
+     */
+    public static void closeStore() {
+        engine.closeStore();
     }
 
     /**
-     * Private helper to match the doctor's NPI to the doctor's info
+     * Journals every booking, cancellation and reschedule, startUp() replays the journal once the providers are loaded
      *
-     * @param fname - first name of doctor
-     * @param lname - last name of doctor
-     * @param dob - date of birth of doctor
-     * @param npi - NPI of doctor
-     * @return doctor
+     * @param path - journal file, created if it doesn't exist
      */
-    private static Person findDoctor(String fname, String lname, Date dob, String npi) {
-        Person doctor = null;
-
-        boolean codeBreak = true;
-        for (int i = 0; i < providerList.size(); i++){
-            if (providerList.get(i) instanceof Doctor){
-                Doctor doc = (Doctor) providerList.get(i);
-                if (doc.getNpi().equals(npi)){
-                    doctor = doc;
-                    codeBreak = false;
-                    break;
-                }
-            }
-        }
-        if (codeBreak){
-            System.out.println(npi + " - provider doesn't exist");
-            CODE_BREAK = true;
-        }
-        return doctor;
+    public static void useJournal(Path path) {
+        journalPath = path;
     }
 
     /**
-     * Checks provider availability at the given timeslot
+     * Opens the journal and rebuilds the schedule by replaying it
      *
-     * @param doctor - Person object
-     * @param command - string array of commands
-     * @param appDate - date of appointment
-     * @param appTimeslot - timeslot of the appointment
-     * @param patientProf - patient's profile
-     * @param patient - Patient object
-     * @return currAppoint
+     * @param path - journal file
+     * @throws IOException if the journal cannot be opened or belongs to another provider list
      */
-    private static Appointment availability(Person doctor, String[] command, Date appDate, Timeslot appTimeslot, Profile patientProf, Patient patient) {
+    public static void openJournal(Path path) throws IOException {
+        print(engine.openJournal(path));
+    }
 
-        Appointment currAppoint = new Appointment(appDate, appTimeslot, patient, doctor);
-        for (int i = 0; i < appList.size(); i++) {
-            if (appList.get(i).getProvider() instanceof Doctor) {
-                Timeslot newAppTimeSlot = appList.get(i).getTimeslot();
-                Doctor prov = (Doctor) appList.get(i).getProvider();
-                Date apdate = appList.get(i).getDate();
-                if (appList.get(i).compareTo(currAppoint) == 0) { System.out.println(patientProf.toString()
-                        + " has an existing appointment at the same time slot.");
-                    CODE_BREAK = true;
-                } else if (prov.equals(doctor) && newAppTimeSlot.equals(appTimeslot) && apdate.equals(appDate)) {
-                    System.out.println(String.format("[%s %s %s, %s][%s] is not available at slot %s",
-                            doctor.getProfile().getFname(),                    // Provider's first name
-                            doctor.getProfile().getLname(),                    // Provider's last name
-                            doctor.getProfile().getDob(),
-                            prov.getLocation().toString(),
-                            doctor.toString(),
-                            command[2].trim()));
-                    CODE_BREAK = true;
-                }
-            }
-        }
-        return currAppoint;
+    /**
+     * Syncs the journal and closes it, if one is open
+     */
+    public static void closeJournal() {
+        engine.closeJournal();
     }
 
     /**
-     * Helper method for scheduleAppointment
-     * Adds appointment to appointment list
+     * Serves the command protocol on a TCP port while the console runs, see CommandServer
      *
-     * @param fname - first name of profile
-     * @param lname - last name of profile
-     * @param dob - date of birth of profile
-     * @param npi - NPI of doctor
-     * @param appDate - sanitized date
-     * @param appTimeslot - sanitized timeslot
+     * @param port - loopback port, 0 for any free port
      */
-    public static void appScheduler(String fname, String lname, Date dob, String npi, Date appDate, Timeslot appTimeslot, String[] command){
-        Profile patientProf = new Profile(fname, lname, dob);
-        Patient patient = new Patient(patientProf);
-        Person doctor = findDoctor(fname, lname, dob, npi);
-
-        if(CODE_BREAK) {
-            return;
-        }
-        Appointment currAppoint = availability(doctor, command, appDate, appTimeslot, patientProf, patient);
-
-        if(CODE_BREAK) {
-            return;
-        }
-        boolean found = false;
-        for(int i = 0; i < patientList.size(); i++) {
-            if(patientList.get(i).getProfile().equals(patientProf)) {
-                found = true;
-                break;
-            }
-        }
-        if(!found) {
-            patientList.add(patient);
-        }
-        if(patient instanceof Patient) {
-            Visit newVisit = new Visit(currAppoint);
-            if(((Patient) patient).getVisits() == null) {
-                ((Patient) patient).setVisits(newVisit);
-            } else {
-                ((Patient) patient).getVisits().setNext(newVisit);
-            }
-        }
-        appList.add(currAppoint);
-
-        System.out.println(currAppoint.toString() + " booked.");
+    public static void usePort(int port) {
+        serverPort = port;
     }
 
     /**
-     * Case D, schedules an appointment
+     * Serves the HTTP/JSON API on a port while the console runs, see ApiServer
      *
-     * @param command - command input from terminal
+     * @param port - loopback port, 0 for any free port
      */
-    public static void scheduleAppointment(String[] command){
-        Date appDate = null;
-        Timeslot appTimeslot = null;
-        String fname = null;
-        String lname = null;
-        Date dob = null;
-        String npi = null;
-
-        if(!lengthSanitizer(7, command)){ return;}
-
-        try {
-            appDate = dateSanitizer("app",command);
-
-            String timeslot = command[2].trim();
-            Timeslot appTime = createTimeslot(timeslot);
-            appTimeslot = appTime;
-
-            fname = command[3].trim();
-            lname = command[4].trim();
-
-            dob = dateSanitizer("dob", command);
-
-            npi = command[6].trim();
-            if (!onlyDigits(npi)){
-                System.out.println(npi + " - provider doesn't exist");
-                return;
-            }
-        } catch (Exception e) {
-            return;
-        }
-        appScheduler(fname, lname, dob, npi, appDate,appTimeslot, command);
+    public static void useHttp(int port) {
+        httpPort = port;
     }
 
     /**
-     * Private helper method to find a technician and a free room
+     * Wraps an output stream so nothing reaches it before the journal records of the commands
+     * that printed it are on disk, a command is only acknowledged once it is durable
      *
-     * @param appTimeslot - timeslot for appointment
-     * @param roomtype - imaging room
-     * @param command - command from terminal input
-     * @return tech
+     * @param out - console stream
+     * @return stream that waits on the journal before each write
      */
-    private static Person findTech(Timeslot appTimeslot, Radiology roomtype , String[] command) {
-        Person tech = null;
-        boolean haveTech = false;
-
-        for (int i = 0; i < technicianList.size(); i++) {
-            Technician newTech = (Technician) technicianList.get(i).getData();
-            boolean techBusy = false;
-            boolean roomOccupied = false;
-
-            for (int j = 0; j < appList.size(); j++) {
-                if (appList.get(j) instanceof Imaging) {
-                    Imaging appointment = (Imaging) appList.get(j);
-
-                    if (appointment.getTimeslot().equals(appTimeslot) && appointment.getProvider().equals(newTech)) {
-                        techBusy = true;
-                        break;
-                    }
-                    if(appointment.getTimeslot().equals(appTimeslot)
-                            && appointment.getRoom() == roomtype
-                            && appointment.getProvider() instanceof Technician
-                            && ((Technician) appointment.getProvider()).getLocation() == newTech.getLocation()) {
-                        roomOccupied = true;
-                        break;
-                    }
-                }
-            }
-            if (!techBusy && !roomOccupied) {
-                tech = newTech;
-                haveTech = true;
-                break;
+    public static OutputStream acknowledged(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                engine.awaitDurable();
+                out.write(b);
             }
-        }
-        if (!haveTech) {
-            System.out.println("Cannot find an available technician for " + roomtype + " at slot " + command[2]);
-            CODE_BREAK = true;
-        }
 
-        return tech;
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                engine.awaitDurable();
+                out.write(b, off, len);
+            }
+        };
     }
 
     /**
-     * Helper method to scheduleImagingAppointment
-     * Adds imaging appointments to appointment list
+     * Case D, schedules an appointment
      *
-     * @param fname - first name of profile
-     * @param lname - last name of profile
-     * @param dob - date of birth of profile
-     * @param appDate - sanitized date
-     * @param appTimeslot - sanitized timeslot
-     * @param roomtype - type of radiology room
+     * @param command - command input from terminal
      */
-    public static void imagingScheduler(String fname, String lname, Date dob, Date appDate, Timeslot appTimeslot, Radiology roomtype , String[] command){
-        Profile patientProf = new Profile(fname, lname, dob);
-        Person patient = new Patient(patientProf);
-        Person tech = findTech(appTimeslot, roomtype, command);
-        if(CODE_BREAK) {
-            return;
-        }
-        Imaging currAppoint = new Imaging(appDate, appTimeslot, patient, tech, roomtype);
-
-        for (int i = 0; i < appList.size(); i++) {
-            if (appList.get(i).getProvider() instanceof Technician) {
-                if (appList.get(i).compareTo(currAppoint) == 0) {
-                    System.out.println(patientProf.toString()
-                            + " has an existing appointment at the same time slot.");
-                    return;
-                }
-            }
-        }
-        boolean found = false;
-        for(int i = 0; i < patientList.size(); i++) {
-            if(patientList.get(i).getProfile().equals(patientProf)) {
-                found = true;
-                break;
-            }
-        }
-        if(!found) {
-            patientList.add(patient);
-        }
-        if (patient instanceof Patient) {
-            Visit newVisit = new Visit(currAppoint);
-            if (((Patient) patient).getVisits() == null) {
-                ((Patient) patient).setVisits(newVisit);
-            } else {
-                ((Patient) patient).getVisits().setNext(newVisit);
-            }
-        }
-
-        appList.add(currAppoint);
-        technicianList.rotate((Provider) tech);
-        System.out.println(currAppoint.toString() + " booked.");
+    public static void scheduleAppointment(String[] command) {
+        print(engine.scheduleAppointment(command));
     }
 
     /**
@@ -437,38 +162,8 @@ public class ClinicManager {
      *
      * @param command - command from terminal input
      */
-    public static void scheduleImagingAppointment(String[] command){
-        Date appDate = null;
-        Timeslot appTimeslot = null;
-        String fname = null;
-        String lname = null;
-        Date dob = null;
-        Radiology roomtype = null;
-
-        if(!lengthSanitizer(7, command)){ return;}
-
-        try {
-            appDate = dateSanitizer("app",command);
-
-            String timeslot = command[2].trim();
-            Timeslot appTime = createTimeslot(timeslot);
-            appTimeslot = appTime;
-
-            fname = command[3].trim();
-            lname = command[4].trim();
-
-            dob = dateSanitizer("dob", command);
-
-            String tempRoomType = command[6].trim().toUpperCase();
-            try { roomtype = Radiology.valueOf(tempRoomType); }
-            catch (IllegalArgumentException e) {
-                System.out.println(tempRoomType.toLowerCase() + " - imaging service not provided.");
-                return; }
-        } catch (Exception e) {
-            return;
-        }
-        // make a patient and an appointment and compare the appointment to other appointments
-        imagingScheduler(fname,lname,dob,appDate,appTimeslot,roomtype,command);
+    public static void scheduleImagingAppointment(String[] command) {
+        print(engine.scheduleImagingAppointment(command));
     }
 
     /**
@@ -476,372 +171,192 @@ public class ClinicManager {
      *
      * @param command - command from terminal input
      */
-    public static void cancelAppointment(String[] command){ // Case C
-        Date appDate = null;
-        Timeslot appTimeslot = null;
-        String fname = null;
-        String lname = null;
-        Date dob = null;
-        if(!lengthSanitizer(6, command)){ return;}
-        try {
-            appDate = dateSanitizer("app",command);
-
-            String timeslot = command[2].trim();
-            Timeslot appTime = createTimeslot(timeslot);
-            appTimeslot = appTime;
-
-            fname = command[3].trim();
-            lname = command[4].trim();
-
-            dob = dateSanitizer("dob", command);
-        } catch (Exception e) {
-            return;
-        }
-        Appointment tempApp = null;
-        for (int i = 0; i < appList.size(); i++) {
-            if(appList.get(i).getDate().equals(appDate)
-                    && appList.get(i).getTimeslot().equals(appTimeslot)
-                    && appList.get(i).getPatient().getProfile().getFname().toUpperCase().equals(fname.toUpperCase())
-                    && appList.get(i).getPatient().getProfile().getLname().toUpperCase().equals(lname.toUpperCase())
-                    && appList.get(i).getPatient().getProfile().getDob().equals(dob)){
-                tempApp = appList.get(i);
-                break;
-            }
-        }
-        if(tempApp == null){
-            System.out.println(String.format("%s %s %s %s %s - appointment does not exist.",
-                    appDate.toString(),                                // The date of the appointment
-                    appTimeslot.toString(),                            // The timeslot
-                    fname,                    // Provider's first name
-                    lname,                    // Provider's last name
-                    dob.toString()));
-
-        }else {
-            if(tempApp.getPatient() instanceof Patient) {
-                ((Patient) tempApp.getPatient()).removeVisit(tempApp);
-            }
-            appList.remove(tempApp);
-            System.out.println(String.format("%s %s %s %s %s - appointment has been canceled.",
-                    appDate.toString(),                                // The date of the appointment
-                    appTimeslot.toString(),                            // The timeslot
-                    fname,                    // Provider's first name
-                    lname,                    // Provider's last name
-                    dob.toString()));
-        }
+    public static void cancelAppointment(String[] command) {
+        print(engine.cancelAppointment(command));
     }
 
     /**
-     * Helper method for rescheduleAppointment
-     * Swaps in a new appointment object to change the time
+     * Case SNAPSHOT, writes a binary image of the providers, patients, appointments and technician rotation
      *
-     * @param appDate - sanitized date
-     * @param originalAppTime - original timeslot
-     * @param fname - first name of profile
-     * @param lname - last name of profile
-     * @param dob - date of birth of profile
-     * @param newAppTime - new timeslot
-     * @param command - command from terminal input
+     * @param command - command from terminal input (SNAPSHOT,file)
      */
-    public static void appRescheduler(Date appDate, Timeslot originalAppTime, String fname, String lname, Date dob, Timeslot newAppTime, String[] command) {
-        Appointment tempApp = null;
-        for (int i = 0; i < appList.size(); i++) {
-            if (!(appList.get(i) instanceof Imaging)) {
-                if (appList.get(i).getDate().equals(appDate)
-                        && appList.get(i).getTimeslot().equals(originalAppTime)
-                        && appList.get(i).getPatient().getProfile().getFname().equals(fname)
-                        && appList.get(i).getPatient().getProfile().getLname().equals(lname)
-                        && appList.get(i).getPatient().getProfile().getDob().equals(dob)) {
-                    tempApp = appList.get(i);
-                    break;
-                }
-            }
-        }
-        if (tempApp == null) {
-            System.out.println(appDate.toString() + " " + originalAppTime.toString() + " " + fname + " " + lname +" " + dob.toString() + " does not exist.");
-            return;
-        }
-        for (int i = 0; i < appList.size(); i++) {
-            if (appList.get(i).getDate().equals(appDate) && appList.get(i).getTimeslot().equals(newAppTime)) {
-                System.out.println(appList.get(i).getPatient().toString() + " has an existing appointment at " + appDate.toString() + " " + newAppTime.toString());
-                return;
-            }
-        }
-        appList.remove(tempApp);
-        Appointment newApp = tempApp;
-        newApp.setTimeslot(newAppTime);
-        appList.add(newApp); // resecheduled
-        System.out.println("Rescheduled to " + newApp.toString());
+    public static void saveSnapshot(String[] command) {
+        print(engine.saveSnapshot(command));
     }
 
     /**
-     * Case R, reschedules an appointment
+     * Case RESTORE, replaces the clinic with a binary image written by SNAPSHOT
      *
-     * @param command - command from terminal input
+     * @param command - command from terminal input (RESTORE,file)
      */
-    public static void rescheduleAppointment(String[] command){ // Case R
-        Date appDate = null;
-        Timeslot originalAppTime = null;
-        String fname = null;
-        String lname = null;
-        Date dob = null;
-        Timeslot newAppTime = null;
-        if(!lengthSanitizer(7, command)){ return;}
-        try {
-            appDate = dateSanitizer("app", command);
-
-            String timeslot = command[2].trim();
-            Timeslot appTime = createTimeslot(timeslot);
-            originalAppTime = appTime;
-
-            fname = command[3].trim();
-            lname = command[4].trim();
-
-            dob = dateSanitizer("dob", command);
-
-            timeslot = command[6].trim();
-            appTime = createTimeslot(timeslot);
-            newAppTime = appTime;
-        } catch (Exception e) {
-            return;
-        }
-        appRescheduler(appDate, originalAppTime,fname,lname,dob,newAppTime,command);
+    public static void restoreSnapshot(String[] command) {
+        print(engine.restoreSnapshot(command));
     }
 
     /**
-     * Prints appointments sorted by key
+     * Private helper to print the message of a command, if it has one
      *
-     * @param key - key for accessing specific sort type
-     */
-    public static void printAppointments(char key) {
-        if(appList.isEmpty()) {
-            System.out.println("Schedule calendar is empty.");
-            return;
-        }
-        List<Appointment> newTempList = Sort.appointment(appList, key);
-        if (key == 'o'){
-            System.out.println("** List of office appointments ordered by county/date/time.");
-        }else if (key == 'd'){
-            System.out.println("** List of appointments, ordered by date/time/provider.");
-        }else if(key == 'l'){
-            System.out.println("** List of appointments ordered by county/date/time.");
-        }else{
-            System.out.println("** List of radiology appointments ordered by county/date/time.");
-        }
-        for(int i = 0; i < newTempList.size(); i++){
-            System.out.println(newTempList.get(i).toString());
-        }
-        System.out.println("** end of list **");
-    }
-    /**
-     * Case PS, Displays billing statements for all appointments.
-     * The billing amount is based on the provider's specialty.
+     * @param result - result of the command
      */
-    private static void printBillingStatements() {
-        if(appList.isEmpty()) {
-            System.out.println("Schedule calendar is empty.");
-            return;
+    private static void print(Result result) {
+        if (result.getMessage() != null) {
+            System.out.println(result.getMessage());
         }
-        System.out.println("** Billing Statement ordered by patient. **");
-        int count = 1;
-        Sort.appointment(appList, 'p');
-        int charge = 0;
-
-        for(int i = 0; i < patientList.size(); i++) {
-            Visit visits = null;
-            if(patientList.get(i) instanceof Patient) {
-                visits = ((Patient) patientList.get(i)).getVisits();
-            }
-            while(visits != null) {
-                charge += visits.getCharge();
-                appList.remove(visits.getAppointment());
-                visits = visits.getNext();
-            }
-            String fname = appList.get(i).getPatient().getProfile().getFname();
-            String lname = appList.get(i).getPatient().getProfile().getLname();
-            String dob = appList.get(i).getPatient().getProfile().getDob().toString();
-            System.out.println("(" + count + ") " + fname + " " + lname + " " + dob + " [due: $" + charge + ".00]");
-            count ++;
-        }
-        System.out.println("** end of list **");
     }
 
     /**
-     * Case PC, Displays credit statement per provider
+     * Private helper to read closures.txt into the business calendar if the file exists
+     *
+     * @throws UncheckedIOException if the file disappears while it is read
      */
-    private static void printCreditAmounts() {
-        if(appList.isEmpty()) {
-            System.out.println("Schedule calendar is empty.");
-            return;
-        }
-        System.out.println("** Credit amount ordered by provider. **");
-        int count = 1;
-        Sort.provider(providerList);
-        Sort.appointment(appList, 'r');
-
-        for(int i = 0; i < providerList.size(); i++) {
-            int numAppointments = 0;
-            for(int j = 0; j < appList.size(); j++) {
-
-                if(providerList.get(i).equals(appList.get(j).getProvider())) {
-                    numAppointments ++;
-                }
+    private static void loadClosures() {
+        if (new File("closures.txt").exists()) {
+            try {
+                engine.loadClosures("closures.txt");
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
             }
-            for(int k = 0; k < technicianList.size(); k++) {
-
-                if(providerList.get(i).equals(technicianList.get(k))) {
-                    numAppointments ++;
-                }
-            }
-            int charge = providerList.get(i).rate() * numAppointments;
-            String fname = providerList.get(i).getProfile().getFname();
-            String lname = providerList.get(i).getProfile().getLname();
-            String dob = providerList.get(i).getProfile().getDob().toString();
-
-            System.out.println("(" + count + ") " + fname + " " + lname + " " + dob + " [credit amount: $" + charge + ".00]");
-            count ++;
         }
-        System.out.println("** end of list **");
     }
 
     /**
-     * Helper method for commandSelector
-     * Selects command based on key from user input
+     * Private helper to register the engine's command statistics with the platform MBean server
+     * as clinic:type=CommandStats, replacing a registration from an earlier start
      *
-     * @param command - command from terminal input
-     * @return string
+     * @throws IllegalStateException if the MBean cannot be registered
      */
-    public static String commandSelectorHelper(String[] command){
-        String action = command[0];
-        switch (action) {
-            case "PL": // like PA but with county then appointment date and time
-                printAppointments('l');
-                break;
-            case "PS": // Display billing statements of all patients
-                printBillingStatements();
-                break;
-            case "PO": // display list of office appointments, sorted by county, then date, then time
-                printAppointments('o');
-                break;
-            case "PI": // same as PO but with imaging instead of appointments
-                printAppointments('i');
-                break;
-            case "PC": // Display credit amounts for providers, sorted by provider profile
-                printCreditAmounts();
-                break;
-            case "Q": // Quit the manager
-                return "Q";
-            default:
-                System.out.println("Invalid command!");
+    private static void registerStats() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("clinic:type=CommandStats");
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(engine.getStats(), name);
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
         }
-        return "looking good!";
     }
 
     /**
-     * Helper method for run
-     * Selects command based on key from user input
-     *
-     * @param command - command from terminal input
-     * @return string
+     * Loads the providers and prints the provider and technician lists
+     * Shared by the interactive and batch modes
      */
-    public static String commandSelector(String[] command){
-        String action = command[0];
-        switch (action) {
-            case "":
-                return "";
-            case "D": // schedule office appointment with doctor
-                scheduleAppointment(command);
-                break;
-            case "T": // schedule imaging appointment
-                scheduleImagingAppointment(command);
-                break;
-            case "C": // cancel existing office or imaging appointment
-                cancelAppointment(command);
-                break;
-            case "R": // reschedule office appointment, imaging appointments are not to be rescheduled
-                rescheduleAppointment(command);
-                break;
-            case "PP": // to display the list of appointments, sorted by the patient (by last name, first name, date of birth, then appointment date and time).
-                printAppointments('p');
-                break;
-            case "PA": // display list of appointments sorted by appointment date, time, providers name
-                printAppointments('d');
-                break;
-            default:
-                return commandSelectorHelper(command);
+    public static void startUp() throws IOException {
+        loadProviders("providers.txt");
+        loadClosures();
+        engine.printProviders(System.out);
+        engine.printTechnicians(System.out);
+        registerStats();
+        if (storePath != null) {
+            openStore(storePath);
         }
-        return "looking good!";
-    }
-
-    /**
-     * Method to print a list of providers
-     */
-    public static void printProviders() {
-        System.out.println("Providers loaded to the list.");
-
-        for(int i = 0; i < providerList.size(); i++) {
-            if(providerList.get(i) instanceof Doctor){
-                System.out.println("[" + providerList.get(i).getProfile().getFname() + " " + providerList.get(i).getProfile().getLname() + " " +
-                        providerList.get(i).getProfile().getDob().toString() + ", " + providerList.get(i).getLocation().toString() + "]" + "[" +
-                        ((Doctor) providerList.get(i)).toString() + "]");
-
-            } else if(providerList.get(i) instanceof Technician) {
-                System.out.println("[" + providerList.get(i).getProfile().getFname() + " " + providerList.get(i).getProfile().getLname() + " " +
-                        providerList.get(i).getProfile().getDob().toString() + ", " + providerList.get(i).getLocation().toString() + "]" + "[" +
-                        ((Technician) providerList.get(i)).toString() + "]");
-            }
+        if (journalPath != null) {
+            openJournal(journalPath);
         }
+
+        System.out.println("\nClinic Manager is running...");
     }
 
     /**
-     * Method to print a list of technicians
+     * Runs one command line
+     *
+     * @param command - comma separated command line
+     * @return "Q" if the command was quit
      */
-    public static void printTechnicians() {
-        System.out.println("\nRotation list for the technicians.");
-        technicianList.reverse();
-        String techString = "";
-
-        for (int i = 0; i < technicianList.size(); i++){
-            Technician newTech = (Technician) technicianList.get(i).getData();
-            techString += newTech.getProfile().getFname() + " " + newTech.getProfile().getLname() + " (" + newTech.getLocation().name() + ")";
-
-            if(!(i + 1 == technicianList.size())) {
-                techString += " --> ";
-            }
+    public static String execute(String command) {
+        String[] tokens = command.split(","); // Splits command by commas
+        if (tokens[0].equals("Q")) { // Quit the manager
+            return "Q";
         }
-        System.out.println(techString);
+        print(engine.execute(tokens, System.out));
+        return "looking good!";
     }
 
     /**
      * Runs the program
      */
-    public static void run() throws FileNotFoundException {
+    public static void run() throws IOException {
         Scanner commandReader = new Scanner(System.in);
-        loadProviders("providers.txt");
-        printProviders();
-        printTechnicians();
-
-        System.out.println("\nClinic Manager is running...");
+        if (journalPath != null) { // each line reaches the console only once its command is durable
+            System.setOut(new PrintStream(acknowledged(new FileOutputStream(FileDescriptor.out)), true));
+        }
+        startUp();
+        CommandServer server = null;
+        if (serverPort >= 0) {
+            server = new CommandServer(engine, serverPort);
+            System.out.println("Listening for commands on port " + server.getPort() + ".");
+        }
+        ApiServer api = null;
+        if (httpPort >= 0) {
+            api = new ApiServer(engine, httpPort);
+            System.out.println("Serving the HTTP API on port " + api.getPort() + ".");
+        }
 
-        while(true) {
-            CODE_BREAK = false;
+        boolean quit = false;
+        while(commandReader.hasNextLine()) {
             String command = commandReader.nextLine(); // Check for command to be inputted
-            String[] tokens = command.split(","); // Splits command by commas
 
-            String finalCommand = commandSelector(tokens);
-
-            if (finalCommand.equals("Q")){  // If command is Q, terminate program
+            if (execute(command).equals("Q")){  // If command is Q, terminate program
+                quit = true;
                 break;
             }
         }
+        if (!quit && (server != null || api != null)) { // without a console, keep serving until the process is stopped
+            try {
+                if (server != null) {
+                    server.join();
+                } else {
+                    api.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (server != null) {
+            server.close();
+        }
+        if (api != null) {
+            api.close();
+        }
+        closeStore();
+        closeJournal();
         System.out.println("Clinic Manager terminated");
     }
 
     /**
      * Main class to call run()
+     * Pass --batch followed by a command file to run the file in batch mode
+     * Pass --store followed by a file to keep the schedule in that file across restarts
+     * Pass --journal followed by a file to journal every change and replay it on restart, instead of --store
+     * Pass --port followed by a port number to also take commands over TCP on the loopback address
+     * Pass --http followed by a port number to also serve the HTTP/JSON API on the loopback address
      *
-     * @param args
+     * @param args - command line arguments
      */
-    public static void main(String[] args) throws FileNotFoundException {
-        run();
+    public static void main(String[] args) throws IOException {
+        Path batch = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--batch")) {
+                batch = Paths.get(args[i + 1]);
+            } else if (args[i].equals("--store")) {
+                useStore(Paths.get(args[i + 1]));
+            } else if (args[i].equals("--journal")) {
+                useJournal(Paths.get(args[i + 1]));
+            } else if (args[i].equals("--port")) {
+                usePort(Integer.parseInt(args[i + 1]));
+            } else if (args[i].equals("--http")) {
+                useHttp(Integer.parseInt(args[i + 1]));
+            }
+        }
+        if (storePath != null && journalPath != null) {
+            System.err.println("Use either --store or --journal, not both.");
+            return;
+        }
+        if (batch != null) {
+            CommandBatch.run(batch);
+        } else {
+            run();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,407 @@
+package clinic;
+
+import util.CircularLinkedList;
+import util.Date;
+import util.List;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+/**
+ * Compact binary image of the whole clinic, written by SNAPSHOT and read back by RESTORE
+ * Names and NPIs are stored once in a string dictionary and referred to by index,
+ * numbers are varints and appointment dates are the difference from the previous appointment's date
+ * Providers are kept in provider order and technicians in rotation order, so ids and the rotation come back as they were
+ *
+ * @author Jasmine Saffold
+ */
+public class ClinicSnapshot {
+    /**
+     * Image signature, "CSN1"
+     */
+    private static final int MAGIC = 0x43534E31;
+    /**
+     * Stream buffer size
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Provider kind of a doctor
+     */
+    private static final byte DOCTOR = 0;
+    /**
+     * Provider kind of a technician
+     */
+    private static final byte TECHNICIAN = 1;
+
+    private final List<Provider> providers;
+    private final CircularLinkedList<Provider> technicians;
+    private final List<Patient> patients;
+    private final List<Appointment> appointments;
+
+    /**
+     * Private constructor, images are read with read()
+     *
+     * @param providers - providers in provider order
+     * @param technicians - technicians in rotation order
+     * @param patients - patients in medical record order
+     * @param appointments - appointments in booking order
+     */
+    private ClinicSnapshot(List<Provider> providers, CircularLinkedList<Provider> technicians,
+                           List<Patient> patients, List<Appointment> appointments) {
+        this.providers = providers;
+        this.technicians = technicians;
+        this.patients = patients;
+        this.appointments = appointments;
+    }
+
+    /**
+     * Copy of what an image holds, taken while the clinic is locked and written once the locks are released
+     */
+    public static final class Capture {
+        private final ProviderDirectory directory;
+        private final int[] rotation;   // provider id of each technician in rotation order
+        private final Profile[] patients;
+        private final int[] days;       // appointment dates as epoch days, in booking order
+        private final byte[] slots;     // timeslot ordinal in the low 4 bits, room + 1 in the high 4
+        private final int[] patientIds;
+        private final int[] providerIds;
+
+        /**
+         * Private constructor, captures are taken with capture()
+         *
+         * @param directory - providers, numbered in provider order
+         * @param rotation - provider ids of the technicians in rotation order
+         * @param patients - patient profiles in medical record order
+         * @param size - number of appointments
+         */
+        private Capture(ProviderDirectory directory, int[] rotation, Profile[] patients, int size) {
+            this.directory = directory;
+            this.rotation = rotation;
+            this.patients = patients;
+            this.days = new int[size];
+            this.slots = new byte[size];
+            this.patientIds = new int[size];
+            this.providerIds = new int[size];
+        }
+
+        /**
+         * Writes the image
+         *
+         * @param path - image file, replaced if it exists
+         * @throws IOException if the file cannot be written
+         */
+        public void write(Path path) throws IOException {
+            HashMap<String, Integer> dictionary = new HashMap<>();
+            List<String> strings = new List<String>();
+            for (int id = 0; id < directory.providerCount(); id++) {
+                Provider provider = directory.provider(id);
+                intern(provider.getProfile().getFname(), dictionary, strings);
+                intern(provider.getProfile().getLname(), dictionary, strings);
+                if (provider instanceof Doctor) {
+                    intern(((Doctor) provider).getNpi(), dictionary, strings);
+                }
+            }
+            for (Profile patient : patients) {
+                intern(patient.getFname(), dictionary, strings);
+                intern(patient.getLname(), dictionary, strings);
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                writeVarint(out, strings.size());
+                for (String string : strings) {
+                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    writeVarint(out, bytes.length);
+                    out.write(bytes);
+                }
+
+                writeVarint(out, directory.providerCount());
+                for (int id = 0; id < directory.providerCount(); id++) {
+                    Provider provider = directory.provider(id);
+                    out.writeByte(provider instanceof Doctor ? DOCTOR : TECHNICIAN);
+                    writeProfile(out, provider.getProfile(), dictionary);
+                    out.writeByte(provider.getLocation().ordinal());
+                    if (provider instanceof Doctor) {
+                        out.writeByte(((Doctor) provider).getSpecialty().ordinal());
+                        writeVarint(out, dictionary.get(((Doctor) provider).getNpi()));
+                    } else {
+                        writeVarint(out, provider.rate());
+                    }
+                }
+                writeVarint(out, rotation.length);
+                for (int id : rotation) {
+                    writeVarint(out, id);
+                }
+
+                writeVarint(out, patients.length);
+                for (Profile patient : patients) {
+                    writeProfile(out, patient, dictionary);
+                }
+
+                writeVarint(out, days.length);
+                int previousDay = 0;
+                for (int i = 0; i < days.length; i++) {
+                    writeVarint(out, zigzag(days[i] - previousDay));
+                    out.writeByte(slots[i]);
+                    writeVarint(out, patientIds[i]);
+                    writeVarint(out, providerIds[i]);
+                    previousDay = days[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the ids, profiles and appointment fields an image holds
+     * Must hold the locks that keep the record, rotation and appointments from changing, the copy can be written without them
+     *
+     * @param directory - providers, numbered in provider order
+     * @param technicians - technician rotation, starting with the next technician
+     * @param record - registered patients
+     * @param appointments - booked appointments in booking order
+     * @return copy to write
+     */
+    public static Capture capture(ProviderDirectory directory, CircularLinkedList<Provider> technicians,
+                                  MedicalRecord record, List<Appointment> appointments) {
+        int[] rotation = new int[technicians.size()];
+        int i = 0;
+        for (Provider technician : technicians) {
+            rotation[i++] = directory.id(technician);
+        }
+        Profile[] patients = new Profile[record.getSize()];
+        for (int id = 0; id < patients.length; id++) {
+            patients[id] = record.getPatient(id).getProfile();
+        }
+        Capture capture = new Capture(directory, rotation, patients, appointments.size());
+        for (i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            int room = appointment instanceof Imaging ? ((Imaging) appointment).getRoom().ordinal() : AppointmentStore.NO_ROOM;
+            capture.days[i] = appointment.getDate().getEpochDay();
+            capture.slots[i] = (byte) (appointment.getTimeslot().getOrdinal() | (room + 1) << 4);
+            capture.patientIds[i] = record.id(appointment.getPatient().getProfile());
+            capture.providerIds[i] = directory.id(appointment.getProvider());
+        }
+        return capture;
+    }
+
+    /**
+     * Writes an image of the clinic
+     *
+     * @param path - image file, replaced if it exists
+     * @param directory - providers, numbered in provider order
+     * @param technicians - technician rotation, starting with the next technician
+     * @param record - registered patients
+     * @param appointments - booked appointments in booking order
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, ProviderDirectory directory, CircularLinkedList<Provider> technicians,
+                             MedicalRecord record, List<Appointment> appointments) throws IOException {
+        capture(directory, technicians, record, appointments).write(path);
+    }
+
+    /**
+     * Reads an image written by write()
+     *
+     * @param path - image file
+     * @return the providers, technicians, patients and appointments of the image
+     * @throws IOException if the file cannot be read or is not a clinic image
+     */
+    public static ClinicSnapshot read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a clinic snapshot.");
+            }
+            String[] strings = new String[readVarint(in)];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[readVarint(in)];
+                in.readFully(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            List<Provider> providers = new List<Provider>();
+            int providerCount = readVarint(in);
+            for (int id = 0; id < providerCount; id++) {
+                byte kind = in.readByte();
+                Profile profile = readProfile(in, strings);
+                Location location = Location.values()[in.readByte()];
+                if (kind == DOCTOR) {
+                    Specialty specialty = Specialty.values()[in.readByte()];
+                    providers.add(new Doctor(location, profile, specialty, strings[readVarint(in)]));
+                } else {
+                    providers.add(new Technician(location, profile, readVarint(in)));
+                }
+            }
+            CircularLinkedList<Provider> technicians = new CircularLinkedList<Provider>();
+            int technicianCount = readVarint(in);
+            for (int i = 0; i < technicianCount; i++) {
+                technicians.add(providers.get(readVarint(in)));
+            }
+
+            int patientCount = readVarint(in);
+            List<Patient> patients = new List<Patient>();
+            patients.ensureCapacity(patientCount);
+            for (int id = 0; id < patientCount; id++) {
+                patients.add(new Patient(readProfile(in, strings)));
+            }
+
+            int appointmentCount = readVarint(in);
+            List<Appointment> appointments = new List<Appointment>();
+            appointments.ensureCapacity(appointmentCount);
+            int day = 0;
+            for (int i = 0; i < appointmentCount; i++) {
+                day += unzigzag(readVarint(in));
+                int packed = in.readUnsignedByte();
+                Patient patient = patients.get(readVarint(in));
+                Provider provider = providers.get(readVarint(in));
+                Date date = Date.ofEpochDay(day);
+                Timeslot timeslot = Timeslot.of((packed & 0xF) + 1);
+                int room = (packed >> 4) - 1;
+                appointments.add(room == AppointmentStore.NO_ROOM
+                        ? new Appointment(date, timeslot, patient, provider)
+                        : new Imaging(date, timeslot, patient, provider, Radiology.values()[room]));
+            }
+            return new ClinicSnapshot(providers, technicians, patients, appointments);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException(path + " is not a clinic snapshot.", e);
+        }
+    }
+
+    /**
+     * Gives the providers in provider order
+     *
+     * @return providers
+     */
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Gives the technicians in rotation order, starting with the next technician
+     *
+     * @return technician rotation
+     */
+    public CircularLinkedList<Provider> getTechnicians() {
+        return technicians;
+    }
+
+    /**
+     * Gives the patients in medical record order
+     *
+     * @return patients, without their visits
+     */
+    public List<Patient> getPatients() {
+        return patients;
+    }
+
+    /**
+     * Gives the appointments in booking order
+     *
+     * @return appointments
+     */
+    public List<Appointment> getAppointments() {
+        return appointments;
+    }
+
+    /**
+     * Private helper to add a string to the dictionary once
+     *
+     * @param string - string to add
+     * @param dictionary - index of each string
+     * @param strings - strings in index order
+     */
+    private static void intern(String string, HashMap<String, Integer> dictionary, List<String> strings) {
+        if (dictionary.putIfAbsent(string, strings.size()) == null) {
+            strings.add(string);
+        }
+    }
+
+    /**
+     * Private helper to write a profile as two dictionary indexes and a varint date of birth
+     *
+     * @param out - image stream
+     * @param profile - profile to write
+     * @param dictionary - index of each string
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeProfile(DataOutputStream out, Profile profile, HashMap<String, Integer> dictionary) throws IOException {
+        writeVarint(out, dictionary.get(profile.getFname()));
+        writeVarint(out, dictionary.get(profile.getLname()));
+        writeVarint(out, zigzag(profile.getDob().getEpochDay()));
+    }
+
+    /**
+     * Private helper to read a profile written by writeProfile()
+     *
+     * @param in - image stream
+     * @param strings - string dictionary
+     * @return profile
+     * @throws IOException if the stream ends early
+     */
+    private static Profile readProfile(DataInputStream in, String[] strings) throws IOException {
+        String fname = strings[readVarint(in)];
+        String lname = strings[readVarint(in)];
+        return new Profile(fname, lname, Date.ofEpochDay(unzigzag(readVarint(in))));
+    }
+
+    /**
+     * Private helper to write an unsigned varint, seven bits per byte with the high bit set on all but the last byte
+     *
+     * @param out - image stream
+     * @param value - non-negative value
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Private helper to read an unsigned varint
+     *
+     * @param in - image stream
+     * @return value
+     * @throws IOException if the stream ends early or the varint is too long
+     */
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("Varint is too long.");
+    }
+
+    /**
+     * Private helper to map a signed value to an unsigned one, small magnitudes stay small
+     *
+     * @param value - signed value
+     * @return zigzag encoded value
+     */
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Private helper to undo zigzag()
+     *
+     * @param value - zigzag encoded value
+     * @return signed value
+     */
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
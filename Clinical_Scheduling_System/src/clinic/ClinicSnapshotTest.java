@@ -0,0 +1,54 @@
+package clinic;
+
+import org.junit.Test;
+import util.CircularLinkedList;
+import util.Date;
+import util.List;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ClinicSnapshotTest {
+
+    @Test
+    public void testImageRoundTrip() throws Exception {
+        Doctor doctor = new Doctor(Location.BRIDGEWATER, new Profile("Andrew", "Patel", new Date(1989, 1, 21)), Specialty.FAMILY, "01");
+        Technician first = new Technician(Location.EDISON, new Profile("Gary", "Johnson", new Date(1987, 11, 14)), 110);
+        Technician second = new Technician(Location.CLARK, new Profile("Ben", "Jerry", new Date(1960, 9, 28)), 150);
+        List<Provider> providers = new List<Provider>();
+        providers.add(doctor);
+        providers.add(first);
+        providers.add(second);
+        CircularLinkedList<Provider> rotation = new CircularLinkedList<Provider>();
+        rotation.add(second);
+        rotation.add(first);
+        MedicalRecord record = new MedicalRecord();
+        Patient patient = record.register(new Patient(new Profile("Jane", "Doe", new Date(1955, 8, 9))));
+        List<Appointment> booked = new List<Appointment>();
+        booked.add(new Appointment(new Date(2026, 11, 12), Timeslot.of(4), patient, doctor));
+        booked.add(new Imaging(new Date(2026, 11, 10), Timeslot.of(12), patient, first, Radiology.ULTRASOUND));
+
+        Path path = Files.createTempFile("clinic", ".snapshot");
+        try {
+            ClinicSnapshot.write(path, new ProviderDirectory(providers), rotation, record, booked);
+            ClinicSnapshot image = ClinicSnapshot.read(path);
+
+            assertEquals(3, image.getProviders().size());
+            assertEquals("01", ((Doctor) image.getProviders().get(0)).getNpi());
+            assertEquals(150, image.getProviders().get(2).rate());
+            assertEquals(second.getProfile(), image.getTechnicians().get(0).getData().getProfile());
+            assertEquals(patient.getProfile(), image.getPatients().get(0).getProfile());
+            assertEquals(2, image.getAppointments().size());
+            Appointment imaging = image.getAppointments().get(1);
+            assertTrue(imaging instanceof Imaging);
+            assertEquals(new Date(2026, 11, 10), imaging.getDate());
+            assertEquals(Timeslot.of(12), imaging.getTimeslot());
+            assertEquals(Radiology.ULTRASOUND, ((Imaging) imaging).getRoom());
+            assertSame(image.getPatients().get(0), imaging.getPatient());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package clinic;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Batch mode, replays a whole command file without per-line console flushes
+ * Output is byte for byte what interactive mode prints for the same input
+ * A throughput summary goes to standard error so standard output stays comparable
+ * With a journal, a full output buffer waits for the journal, so the syncs of many commands are grouped
+ *
+ * @author Jasmine Saffold
+ */
+public class CommandBatch {
+    /**
+     * Size of the read and write buffers
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Runs every command in the file, stopping early at Q, printing to standard output
+     *
+     * @param commands - path of the command file
+     * @throws IOException if the file cannot be read
+     */
+    public static void run(Path commands) throws IOException {
+        run(commands, new FileOutputStream(FileDescriptor.out));
+    }
+
+    /**
+     * Runs every command in the file, stopping early at Q
+     *
+     * @param commands - path of the command file
+     * @param out - receives what interactive mode would print, it is flushed but not closed
+     * @throws IOException if the file cannot be read
+     */
+    public static void run(Path commands, OutputStream out) throws IOException {
+        PrintStream console = System.out;
+        PrintStream sink = new PrintStream(new BufferedOutputStream(ClinicManager.acknowledged(out), BUFFER_SIZE), false);
+        long lines = 0;
+        long start = System.nanoTime();
+
+        System.setOut(sink); // every println in the manager now lands in one buffer
+        try (FileChannel channel = FileChannel.open(commands, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(
+                     Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1), BUFFER_SIZE)) {
+            ClinicManager.startUp();
+
+            String command;
+            while ((command = reader.readLine()) != null) {
+                lines++;
+                if (ClinicManager.execute(command).equals("Q")) {
+                    break;
+                }
+            }
+            ClinicManager.closeStore();
+            ClinicManager.closeJournal();
+            System.out.println("Clinic Manager terminated");
+        } finally {
+            sink.flush();
+            System.setOut(console);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.println(String.format("Processed %d commands in %.3f s (%.0f commands/s)",
+                lines, seconds, seconds > 0 ? lines / seconds : 0.0));
+    }
+}
@@ -0,0 +1,67 @@
+package clinic;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class CommandBatchTest {
+    private final InputStream stdin = System.in;
+    private final PrintStream stdout = System.out;
+
+    @After
+    public void tearDown() {
+        System.setIn(stdin);
+        System.setOut(stdout);
+        ClinicManager.reset();
+    }
+
+    @Test
+    public void testBatchOutputMatchesInteractive() throws Exception {
+        String day = ClinicFixture.day(0);
+        String next = ClinicFixture.day(1);
+        String commands = "D," + day + ",1,John,Doe,1/1/1990,01\n"
+                + "D," + day + ",1,Jane,Doe,1/1/1990,01\n"
+                + "T," + day + ",2,Jane,Doe,1/1/1990,xray\n"
+                + "T," + next + ",2,Mary,Major,3/3/1993,catscan\n"
+                + "R," + day + ",1,John,Doe,1/1/1990,5\n"
+                + "C," + next + ",2,Mary,Major,3/3/1993\n"
+                + "D,2/30/2020,1,Bad,Date,1/1/1990,01\n"
+                + "X\n"
+                + "\n"
+                + "PA\nPP\nPL\nPO\nPI\nPS\nPC\n"
+                + "L,John,Doe,1/1/1990\n"
+                + "Q\n"
+                + "PA\n"; // after Q, never run
+        Path file = Files.createTempFile("commands", ".txt");
+        try {
+            Files.write(file, commands.getBytes(StandardCharsets.UTF_8));
+
+            ByteArrayOutputStream interactive = new ByteArrayOutputStream();
+            System.setIn(new ByteArrayInputStream(commands.getBytes(StandardCharsets.UTF_8)));
+            System.setOut(new PrintStream(interactive, true));
+            ClinicManager.reset();
+            ClinicManager.run();
+            System.setOut(stdout);
+
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            ClinicManager.reset();
+            CommandBatch.run(file, batch);
+
+            String expected = interactive.toString(StandardCharsets.UTF_8);
+            assertTrue(expected.contains("booked."));
+            assertTrue(expected.endsWith("Clinic Manager terminated" + System.lineSeparator()));
+            assertEquals(expected, batch.toString(StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
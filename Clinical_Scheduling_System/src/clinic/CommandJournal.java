@@ -0,0 +1,427 @@
+package clinic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of the commands that change the schedule
+ * Each record is one line, a CRC-32 of the fields followed by the comma separated fields
+ * Records are appended to a buffer and a flusher thread writes and syncs whatever has piled up,
+ * so one disk sync covers every record appended while the previous sync was running (group commit)
+ * A checkpoint rewrites the journal as the records that rebuild the current state, keeping replay short
+ *
+ * @author Jasmine Saffold
+ */
+public class CommandJournal implements Closeable {
+    /**
+     * Journal signature, the first record is the signature, the roster hash and the records of the checkpoint it starts with
+     */
+    private static final String MAGIC = "CSJ1";
+    /**
+     * Longest the flusher waits for more records when nobody is waiting on a sync
+     */
+    private static final long COMMIT_DELAY_MS = 2;
+    /**
+     * Buffered bytes that start a sync without waiting for the commit delay
+     */
+    private static final int GROUP_BYTES = 1 << 16;
+    /**
+     * Records appended past the last checkpoint before the next checkpoint is due
+     */
+    private static final long CHECKPOINT_SLACK = 4096;
+
+    private final Path path;
+    private final int roster;
+    private final Object lock = new Object();
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+    private FileChannel channel;
+    private byte[] pending = new byte[GROUP_BYTES];
+    private int pendingLength;
+    private long appended;        // bytes appended, the position of the next record
+    private long durable;         // bytes synced to disk
+    private int waiters;          // threads blocked in awaitDurable
+    private long records;         // records in the journal file
+    private long checkpointRecords; // records written by the last checkpoint
+    private IOException failure;  // set if a sync failed, every later wait rethrows it
+    private boolean closed;
+
+    /**
+     * Writes the records that rebuild the schedule, used by checkpoint()
+     */
+    public interface State {
+        /**
+         * Writes every record of the current state
+         *
+         * @param journal - sink for the records
+         * @throws IOException if a record cannot be written
+         */
+        void write(Sink journal) throws IOException;
+    }
+
+    /**
+     * Receives the records of a checkpoint
+     */
+    public interface Sink {
+        /**
+         * Writes one record
+         *
+         * @param fields - record fields, the first is the record type
+         * @throws IOException if the record cannot be written
+         */
+        void record(Object... fields) throws IOException;
+    }
+
+    /**
+     * Opens a journal, creating it if it doesn't exist, and replays every intact record
+     * A torn or corrupt record ends the replay and is cut off with everything after it
+     *
+     * @param path - journal file
+     * @param roster - hash of the loaded provider roster, see ScheduleFile.rosterHash()
+     * @param replay - called with the fields of each record, in order
+     * @throws IOException if the journal cannot be read or was written for another roster
+     */
+    public CommandJournal(Path path, int roster, Consumer<String[]> replay) throws IOException {
+        this.path = path;
+        this.roster = roster;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long end;
+        try {
+            end = replay(replay);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (end == 0) {
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(encode(MAGIC, roster, 0)));
+            channel.force(false);
+            end = channel.position();
+        } else if (end < channel.size()) {
+            channel.truncate(end); // drop the torn tail so new records follow the last good one
+        }
+        channel.position(end);
+        this.appended = end;
+        this.durable = end;
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends a record, it is durable once awaitDurable() returns
+     *
+     * @param fields - record fields, the first is the record type
+     */
+    public void append(Object... fields) {
+        byte[] line = encode(fields);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("The journal is closed.");
+            }
+            if (pendingLength + line.length > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + line.length));
+            }
+            System.arraycopy(line, 0, pending, pendingLength, line.length);
+            pendingLength += line.length;
+            appended += line.length;
+            records++;
+            if (pendingLength >= GROUP_BYTES) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is on disk
+     *
+     * @throws UncheckedIOException if the journal could not be synced
+     */
+    public void awaitDurable() {
+        synchronized (lock) {
+            long target = appended;
+            if (durable >= target && failure == null) {
+                return;
+            }
+            waiters++;
+            lock.notifyAll(); // a waiter cuts the commit delay short
+            try {
+                while (durable < target && failure == null) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the journal."));
+            } finally {
+                waiters--;
+            }
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+        }
+    }
+
+    /**
+     * Checks if enough records were appended since the last checkpoint to rewrite the journal
+     *
+     * @return true if a checkpoint is due
+     */
+    public boolean needsCheckpoint() {
+        synchronized (lock) {
+            return records > 2 * checkpointRecords + CHECKPOINT_SLACK;
+        }
+    }
+
+    /**
+     * Replaces the journal with the records that rebuild the current state
+     * The new journal is written beside the old one and moved over it once it is on disk
+     * Nothing may be appended while the state is being written
+     *
+     * @param count - records the state will write, kept in the signature so the checkpoint policy survives a restart
+     * @param state - writes the records of the current state
+     * @throws IOException if the new journal cannot be written
+     */
+    public void checkpoint(long count, State state) throws IOException {
+        awaitDurable();
+        synchronized (lock) { // appends wait until the new journal is in place
+            Path next = Paths.get(path + ".checkpoint");
+            long[] written = {0};
+            try (FileChannel out = FileChannel.open(next, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                OutputStream writer = new BufferedOutputStream(Channels.newOutputStream(out), GROUP_BYTES);
+                writer.write(encode(MAGIC, roster, count));
+                state.write(fields -> {
+                    writer.write(encode(fields));
+                    written[0]++;
+                });
+                writer.flush();
+                out.force(false);
+            }
+            channel.close();
+            Files.move(next, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            appended = channel.size();
+            durable = appended;
+            records = written[0];
+            checkpointRecords = records;
+        }
+    }
+
+    /**
+     * Gives the roster hash the journal was opened with
+     *
+     * @return roster hash
+     */
+    public int getRoster() {
+        return roster;
+    }
+
+    /**
+     * Gives the number of records in the journal file
+     *
+     * @return records, not counting the signature
+     */
+    public long size() {
+        synchronized (lock) {
+            return records;
+        }
+    }
+
+    /**
+     * Syncs every appended record, stops the flusher and closes the file
+     *
+     * @throws IOException if the last records cannot be synced
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitDurable();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Private helper for the flusher thread, writes and syncs the buffered records in groups
+     */
+    private void flushLoop() {
+        byte[] spare = new byte[GROUP_BYTES];
+        while (true) {
+            byte[] batch;
+            int length;
+            long target;
+            synchronized (lock) {
+                try {
+                    while (pendingLength == 0 && !closed) {
+                        lock.wait();
+                    }
+                    if (waiters == 0 && pendingLength < GROUP_BYTES && !closed) {
+                        lock.wait(COMMIT_DELAY_MS); // let more records join this sync
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (pendingLength == 0) {
+                    return; // closed with nothing left to write
+                }
+                batch = pending;
+                length = pendingLength;
+                target = appended;
+                pending = spare; // append grows it if the batch was bigger
+                pendingLength = 0;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch, 0, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                durable = target;
+                lock.notifyAll();
+            }
+            spare = batch;
+        }
+    }
+
+    /**
+     * Private helper to read every intact record, passing all but the signature to the replay
+     *
+     * @param replay - called with the fields of each record
+     * @return byte offset just past the last intact record, 0 if the file has no signature
+     * @throws IOException if the file cannot be read or belongs to another roster
+     */
+    private long replay(Consumer<String[]> replay) throws IOException {
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel), GROUP_BYTES);
+        byte[] line = new byte[256];
+        long offset = 0;
+        long good = 0;
+        boolean signed = false;
+        while (true) {
+            int length = 0;
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = (byte) b;
+            }
+            if (b == -1) {
+                return good; // end of file, or a record without its newline
+            }
+            offset += length + 1;
+            String[] fields = decode(line, length);
+            if (fields == null) {
+                return good;
+            }
+            if (!signed) {
+                if (fields.length != 3 || !fields[0].equals(MAGIC)) {
+                    throw new IOException(path + " is not a command journal.");
+                }
+                if (Integer.parseInt(fields[1]) != roster) {
+                    throw new IOException(path + " was written for a different provider list.");
+                }
+                checkpointRecords = Long.parseLong(fields[2]);
+                signed = true;
+            } else {
+                replay.accept(fields);
+                records++;
+            }
+            good = offset;
+        }
+    }
+
+    /**
+     * Private helper to encode a record as a checksummed line
+     *
+     * @param fields - record fields
+     * @return line bytes, ending with a newline
+     */
+    private byte[] encode(Object... fields) {
+        StringBuilder text = new StringBuilder(64);
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(fields[i]);
+        }
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        long checksum;
+        synchronized (crc) {
+            crc.reset();
+            crc.update(body, 0, body.length);
+            checksum = crc.getValue();
+        }
+        byte[] line = new byte[9 + body.length + 1];
+        String hex = String.format("%08x", checksum);
+        for (int i = 0; i < 8; i++) {
+            line[i] = (byte) hex.charAt(i);
+        }
+        line[8] = '|';
+        System.arraycopy(body, 0, line, 9, body.length);
+        line[line.length - 1] = '\n';
+        return line;
+    }
+
+    /**
+     * Private helper to check a line's checksum and split its fields
+     *
+     * @param line - line bytes without the newline
+     * @param length - bytes in the line
+     * @return fields, null if the line is corrupt
+     */
+    private String[] decode(byte[] line, int length) {
+        if (length < 9 || line[8] != '|') {
+            return null;
+        }
+        long expected;
+        try {
+            expected = Long.parseLong(new String(line, 0, 8, StandardCharsets.ISO_8859_1), 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        crc.reset();
+        crc.update(line, 9, length - 9);
+        if (crc.getValue() != expected) {
+            return null;
+        }
+        return new String(line, 9, length - 9, StandardCharsets.UTF_8).split(",", -1);
+    }
+}
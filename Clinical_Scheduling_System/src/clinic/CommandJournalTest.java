@@ -0,0 +1,53 @@
+package clinic;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class CommandJournalTest {
+
+    @Test
+    public void testRecordsReplayAndTornTailIsDropped() throws Exception {
+        Path path = Files.createTempFile("journal", ".log");
+        Files.delete(path);
+        try {
+            CommandJournal journal = new CommandJournal(path, 7, record -> fail("a new journal has no records"));
+            journal.append("D", 20767, 2, "Jane", "Doe", 11178, 0);
+            journal.append("C", 20767, 2, "Jane", "Doe", 11178, -1);
+            journal.awaitDurable();
+            journal.close();
+            Files.write(path, "0000abcd|D,1,2".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+            ArrayList<String> replayed = new ArrayList<>();
+            journal = new CommandJournal(path, 7, record -> replayed.add(String.join(",", record)));
+            assertEquals(2, replayed.size());
+            assertEquals("D,20767,2,Jane,Doe,11178,0", replayed.get(0));
+            assertEquals("C,20767,2,Jane,Doe,11178,-1", replayed.get(1));
+            journal.checkpoint(1, out -> out.record("P", "Jane", "Doe", 11178));
+            journal.append("W", 3);
+            journal.close();
+
+            replayed.clear();
+            journal = new CommandJournal(path, 7, record -> replayed.add(String.join(",", record)));
+            assertEquals(2, replayed.size());
+            assertEquals("P,Jane,Doe,11178", replayed.get(0));
+            assertEquals("W,3", replayed.get(1));
+            journal.close();
+
+            try {
+                new CommandJournal(path, 8, record -> { });
+                fail("a journal for another roster must not open");
+            } catch (java.io.IOException expected) {
+                // different provider list
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
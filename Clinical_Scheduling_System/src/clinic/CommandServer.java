@@ -0,0 +1,208 @@
+package clinic;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TCP server for the console command protocol, so several front desks can share one scheduling engine
+ * Clients send one comma separated command per line and may send many before reading any responses
+ * Each response is the lines the console would print for the command, followed by a status line
+ * (OK, CONFLICT or REJECTED), and responses come back in the order the commands were sent
+ * Only the booking, report and lookup commands are served, commands that read or write files on the server
+ * or replace the clinic are rejected
+ * Every connection gets its own virtual thread when the JDK has them, a platform thread otherwise
+ *
+ * @author Jasmine Saffold
+ */
+public class CommandServer implements Closeable {
+    /**
+     * Size of the socket read and write buffers
+     */
+    private static final int BUFFER_SIZE = 1 << 14;
+    /**
+     * Response line separator
+     */
+    private static final String NL = System.lineSeparator();
+    /**
+     * Command codes a remote terminal may run, STATS only without a file name
+     */
+    private static final Set<String> ALLOWED = new HashSet<>(Arrays.asList(
+            "D", "T", "C", "R", "PA", "PP", "PL", "PS", "PO", "PI", "PC", "L", "STATS"));
+
+    private final SchedulingEngine engine;
+    private final ServerSocket listener;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor, starts listening on the loopback address
+     *
+     * @param engine - engine that runs the commands
+     * @param port - port to listen on, 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public CommandServer(SchedulingEngine engine, int port) throws IOException {
+        this(engine, port, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Constructor, starts listening on an address
+     *
+     * @param engine - engine that runs the commands
+     * @param port - port to listen on, 0 for any free port
+     * @param address - local address to bind, null for every interface
+     * @throws IOException if the port cannot be opened
+     */
+    public CommandServer(SchedulingEngine engine, int port, InetAddress address) throws IOException {
+        this.engine = engine;
+        this.listener = new ServerSocket(port, 128, address);
+        this.acceptor = new Thread(this::accept, "command-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gives the port the server listens on
+     *
+     * @return local port
+     */
+    public int getPort() {
+        return listener.getLocalPort();
+    }
+
+    /**
+     * Waits until the server is closed
+     *
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public void join() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones, commands already running finish first
+     *
+     * @throws IOException if the listening socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        listener.close();
+        for (Socket connection : connections) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                // the client is gone either way
+            }
+        }
+    }
+
+    /**
+     * Private helper, the accept loop of the acceptor thread
+     */
+    private void accept() {
+        while (!closed) {
+            Socket connection;
+            try {
+                connection = listener.accept();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Command server stopped: " + e.getMessage());
+                }
+                return;
+            }
+            connections.add(connection);
+            VirtualThreads.start(() -> serve(connection), "command-connection-" + connection.getPort());
+        }
+    }
+
+    /**
+     * Private helper to run the commands of one connection in order until Q or end of input
+     * Responses are flushed once the client has no more commands waiting, so a pipelined burst
+     * goes back in a few writes, and only after the journal has every change they acknowledge
+     *
+     * @param connection - client socket
+     */
+    private void serve(Socket connection) {
+        try (Socket socket = connection;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), BUFFER_SIZE);
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] command = line.split(",");
+                if (command[0].equals("Q")) {
+                    break;
+                }
+                respond(command, out);
+                if (!in.ready()) {
+                    engine.awaitDurable();
+                    out.flush();
+                }
+            }
+            engine.awaitDurable();
+            out.flush();
+        } catch (SocketException e) {
+            // the client hung up or the server was closed
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Command connection failed: " + e.getMessage());
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    /**
+     * Private helper to run one command and write its response
+     *
+     * @param command - command tokens
+     * @param out - connection output
+     * @throws IOException if the response cannot be written
+     */
+    private void respond(String[] command, Writer out) throws IOException {
+        Result result;
+        try {
+            result = isAllowed(command) ? engine.execute(command, out)
+                    : Result.rejected(command[0] + " - command is not available to remote terminals.");
+        } catch (RuntimeException e) {
+            result = Result.rejected(e.getClass().getSimpleName() + " - " + e.getMessage());
+        }
+        if (result.getMessage() != null) {
+            out.write(result.getMessage());
+            out.write(NL);
+        }
+        out.write(result.getStatus().name());
+        out.write(NL);
+    }
+
+    /**
+     * Private helper to check a command against the remote allow-list
+     *
+     * @param command - command tokens
+     * @return true if a remote terminal may run the command
+     */
+    private static boolean isAllowed(String[] command) {
+        if (command[0].equals("STATS")) {
+            return command.length == 1;
+        }
+        return ALLOWED.contains(command[0]);
+    }
+}
@@ -0,0 +1,133 @@
+package clinic;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class CommandServerTest {
+    private CommandServer server;
+    private String day;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new CommandServer(ClinicFixture.engine(), 0);
+        day = ClinicFixture.day(0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testPipelinedResponsesComeBackInOrder() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("D," + day + ",1,John,Doe,1/1/1990,01\n"
+                    + "D," + day + ",1,Jane,Doe,1/1/1990,01\n"
+                    + "X\n"
+                    + "PA\n"
+                    + "Q\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            assertTrue(in.readLine().endsWith(" booked."));
+            assertEquals("OK", in.readLine());
+            assertTrue(in.readLine().contains("is not available at slot 1"));
+            assertEquals("CONFLICT", in.readLine());
+            assertEquals("X - command is not available to remote terminals.", in.readLine());
+            assertEquals("REJECTED", in.readLine());
+            assertEquals("** List of appointments, ordered by date/time/provider.", in.readLine());
+            assertTrue(in.readLine().contains("John Doe"));
+            assertEquals("** end of list **", in.readLine());
+            assertEquals("OK", in.readLine());
+            assertNull(in.readLine()); // Q closed the connection
+        }
+    }
+
+    @Test
+    public void testConcurrentClientsShareOneSchedule() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(6);
+        try {
+            ArrayList<Callable<Integer>> tasks = new ArrayList<>();
+            for (int c = 0; c < 6; c++) {
+                int client = c;
+                tasks.add(() -> {
+                    StringBuilder commands = new StringBuilder();
+                    for (int slot = 1; slot <= 12; slot++) { // every client wants every slot of doctor 01
+                        commands.append("D,").append(day).append(',').append(slot)
+                                .append(",Client,C").append(client).append(",1/1/1990,01\n");
+                    }
+                    commands.append("Q\n");
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                        socket.getOutputStream().write(commands.toString().getBytes(StandardCharsets.UTF_8));
+                        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                        int booked = 0;
+                        int statuses = 0;
+                        String line;
+                        while ((line = in.readLine()) != null) {
+                            if (line.equals("OK")) {
+                                booked++;
+                                statuses++;
+                            } else if (line.equals("CONFLICT")) {
+                                statuses++;
+                            }
+                        }
+                        assertEquals(12, statuses);
+                        return booked;
+                    }
+                });
+            }
+            int booked = 0;
+            for (Future<Integer> result : clients.invokeAll(tasks)) {
+                booked += result.get();
+            }
+            assertEquals(12, booked); // each slot went to exactly one client
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void testFileAndRestoreCommandsAreRejected() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("SNAPSHOT,clinic.snap\n"
+                    + "RESTORE,clinic.snap\n"
+                    + "STATS,clinic.prom\n"
+                    + "STATS\n"
+                    + "Q\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            assertEquals("SNAPSHOT - command is not available to remote terminals.", in.readLine());
+            assertEquals("REJECTED", in.readLine());
+            assertEquals("RESTORE - command is not available to remote terminals.", in.readLine());
+            assertEquals("REJECTED", in.readLine());
+            assertEquals("STATS - command is not available to remote terminals.", in.readLine());
+            assertEquals("REJECTED", in.readLine());
+            String line;
+            while ((line = in.readLine()) != null && !line.equals("OK")) {
+                assertNotEquals("REJECTED", line); // bare STATS prints the counters
+            }
+            assertEquals("OK", line);
+        }
+        assertFalse(new File("clinic.snap").exists());
+        assertFalse(new File("clinic.prom").exists());
+    }
+}
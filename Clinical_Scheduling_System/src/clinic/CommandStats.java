@@ -0,0 +1,450 @@
+package clinic;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and latency histograms per command code, recorded for every command the engine runs
+ * Latencies go into log2 buckets of nanoseconds (bucket b holds 2^(b-1) to 2^b - 1 ns), and every
+ * counter is a slot of a preallocated atomic array, so recording allocates nothing and takes no lock
+ * Readable through the STATS command, JMX (CommandStatsMBean) and Prometheus text format
+ *
+ * @author Jasmine Saffold
+ */
+public class CommandStats implements CommandStatsMBean {
+    /**
+     * Command codes with their own statistics, anything else is counted as INVALID
+     */
+    private static final String[] CODES = {"D", "T", "C", "R", "PA", "PP", "PL", "PS", "PO", "PI", "PC", "L",
+            "SNAPSHOT", "RESTORE", "STATS", "invalid"};
+    /**
+     * Index of the code of unknown commands
+     */
+    private static final int INVALID = CODES.length - 1;
+    /**
+     * Latency buckets, the last one also holds everything above 2^(BUCKETS - 2) ns (about 4.6 minutes)
+     */
+    private static final int BUCKETS = 40;
+    /**
+     * Status slots per code, in Result.Status order
+     */
+    private static final int STATUSES = Result.Status.values().length;
+    /**
+     * Line separator of the STATS report
+     */
+    private static final String NL = System.lineSeparator();
+
+    private final AtomicLongArray histogram = new AtomicLongArray(CODES.length * BUCKETS);
+    private final AtomicLongArray statuses = new AtomicLongArray(CODES.length * STATUSES);
+    private final AtomicLongArray nanos = new AtomicLongArray(CODES.length);
+    private final AtomicLongArray max = new AtomicLongArray(CODES.length);
+
+    /**
+     * Records one command
+     *
+     * @param command - command code, the first token of the command
+     * @param status - status of its result, null if it threw
+     * @param elapsed - time it took in nanoseconds
+     */
+    public void record(String command, Result.Status status, long elapsed) {
+        int code = code(command);
+        if (code < 0) {
+            return; // blank lines are not commands
+        }
+        elapsed = Math.max(0, elapsed);
+        histogram.incrementAndGet(code * BUCKETS + bucket(elapsed));
+        statuses.incrementAndGet(code * STATUSES + (status == null ? Result.Status.REJECTED : status).ordinal());
+        nanos.addAndGet(code, elapsed);
+        long seen = max.get(code);
+        while (elapsed > seen && !max.compareAndSet(code, seen, elapsed)) {
+            seen = max.get(code);
+        }
+    }
+
+    /**
+     * Gives the number of commands recorded
+     *
+     * @return commands of every code
+     */
+    @Override
+    public long getTotalCount() {
+        long total = 0;
+        for (int code = 0; code < CODES.length; code++) {
+            total += count(code);
+        }
+        return total;
+    }
+
+    /**
+     * Gives the number of commands that succeeded
+     *
+     * @return commands with status OK
+     */
+    @Override
+    public long getOkCount() {
+        return statusCount(Result.Status.OK);
+    }
+
+    /**
+     * Gives the number of commands that conflicted with the schedule
+     *
+     * @return commands with status CONFLICT
+     */
+    @Override
+    public long getConflictCount() {
+        return statusCount(Result.Status.CONFLICT);
+    }
+
+    /**
+     * Gives the number of commands that were rejected or failed
+     *
+     * @return commands with status REJECTED
+     */
+    @Override
+    public long getRejectedCount() {
+        return statusCount(Result.Status.REJECTED);
+    }
+
+    /**
+     * Gives one line per command code that was recorded, as the STATS command prints them
+     *
+     * @return summary lines
+     */
+    @Override
+    public String[] getCommandSummaries() {
+        int used = 0;
+        for (int code = 0; code < CODES.length; code++) {
+            if (count(code) > 0) {
+                used++;
+            }
+        }
+        String[] lines = new String[used];
+        int i = 0;
+        for (int code = 0; code < CODES.length && i < used; code++) {
+            if (count(code) > 0) {
+                lines[i++] = summary(code);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Gives the statistics in Prometheus text format
+     *
+     * @return exposition text
+     */
+    @Override
+    public String getPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        try {
+            writePrometheus(text);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // a StringBuilder doesn't throw
+        }
+        return text.toString();
+    }
+
+    /**
+     * Gives the number of commands of one code
+     *
+     * @param command - command code
+     * @return commands recorded, 0 for an unknown code
+     */
+    @Override
+    public long count(String command) {
+        int code = lookup(command);
+        return code < 0 ? 0 : count(code);
+    }
+
+    /**
+     * Gives the mean latency of one command code
+     *
+     * @param command - command code
+     * @return mean in microseconds, 0 if none were recorded
+     */
+    @Override
+    public double meanMicros(String command) {
+        int code = lookup(command);
+        return code < 0 ? 0 : mean(code);
+    }
+
+    /**
+     * Gives an upper bound on a latency percentile of one command code
+     *
+     * @param command - command code
+     * @param quantile - 0 to 1, 0.99 for p99
+     * @return upper bound of the histogram bucket holding the percentile, in microseconds
+     */
+    @Override
+    public double percentileMicros(String command, double quantile) {
+        int code = lookup(command);
+        return code < 0 ? 0 : percentile(code, quantile);
+    }
+
+    /**
+     * Clears every counter and histogram
+     * Commands recorded while the reset runs may be partly kept
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < histogram.length(); i++) {
+            histogram.set(i, 0);
+        }
+        for (int i = 0; i < statuses.length(); i++) {
+            statuses.set(i, 0);
+        }
+        for (int code = 0; code < CODES.length; code++) {
+            nanos.set(code, 0);
+            max.set(code, 0);
+        }
+    }
+
+    /**
+     * Prints the STATS report, one line per command code that was recorded
+     *
+     * @param out - receives the report
+     * @throws IOException if out cannot be written
+     */
+    public void print(Appendable out) throws IOException {
+        String[] lines = getCommandSummaries();
+        if (lines.length == 0) {
+            out.append("No commands recorded.").append(NL);
+            return;
+        }
+        out.append("** Command statistics, latency in microseconds. **").append(NL);
+        for (String line : lines) {
+            out.append(line).append(NL);
+        }
+        out.append("** end of list **").append(NL);
+    }
+
+    /**
+     * Writes the statistics in Prometheus text format: a counter of commands by code and status,
+     * and a latency histogram in seconds by code, for the codes that were recorded
+     *
+     * @param out - receives the exposition text
+     * @throws IOException if out cannot be written
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        out.append("# HELP clinic_commands_total Commands run, by command code and result status.\n");
+        out.append("# TYPE clinic_commands_total counter\n");
+        for (int code = 0; code < CODES.length; code++) {
+            if (count(code) == 0) {
+                continue;
+            }
+            for (Result.Status status : Result.Status.values()) {
+                out.append("clinic_commands_total{command=\"").append(CODES[code]).append("\",status=\"")
+                        .append(status.name().toLowerCase()).append("\"} ")
+                        .append(String.valueOf(statuses.get(code * STATUSES + status.ordinal()))).append('\n');
+            }
+        }
+        out.append("# HELP clinic_command_duration_seconds Command latency, by command code.\n");
+        out.append("# TYPE clinic_command_duration_seconds histogram\n");
+        for (int code = 0; code < CODES.length; code++) {
+            if (count(code) == 0) {
+                continue;
+            }
+            long cumulative = 0;
+            for (int b = 0; b < BUCKETS - 1; b++) {
+                cumulative += histogram.get(code * BUCKETS + b);
+                out.append("clinic_command_duration_seconds_bucket{command=\"").append(CODES[code]).append("\",le=\"")
+                        .append(String.valueOf(upperNanos(b) / 1e9)).append("\"} ").append(String.valueOf(cumulative))
+                        .append('\n');
+            }
+            cumulative += histogram.get(code * BUCKETS + BUCKETS - 1);
+            out.append("clinic_command_duration_seconds_bucket{command=\"").append(CODES[code])
+                    .append("\",le=\"+Inf\"} ").append(String.valueOf(cumulative)).append('\n');
+            out.append("clinic_command_duration_seconds_sum{command=\"").append(CODES[code]).append("\"} ")
+                    .append(String.valueOf(nanos.get(code) / 1e9)).append('\n');
+            out.append("clinic_command_duration_seconds_count{command=\"").append(CODES[code]).append("\"} ")
+                    .append(String.valueOf(cumulative)).append('\n');
+        }
+    }
+
+    /**
+     * Writes the Prometheus text to a file, replacing it in one move so a scraper never reads half a file
+     *
+     * @param path - file to write, for example in a node exporter textfile directory
+     * @throws IOException if the file cannot be written
+     */
+    public void writePrometheus(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writePrometheus(out);
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING); // the file system can't move atomically
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Private helper for the summary line of a code
+     *
+     * @param code - code index
+     * @return summary line
+     */
+    private String summary(int code) {
+        return String.format("%s count=%d ok=%d conflict=%d rejected=%d mean=%.1f p50<=%.1f p99<=%.1f max=%.1f",
+                CODES[code], count(code), statuses.get(code * STATUSES + Result.Status.OK.ordinal()),
+                statuses.get(code * STATUSES + Result.Status.CONFLICT.ordinal()),
+                statuses.get(code * STATUSES + Result.Status.REJECTED.ordinal()),
+                mean(code), percentile(code, 0.5), percentile(code, 0.99), max.get(code) / 1e3);
+    }
+
+    /**
+     * Private helper for the number of commands of a code
+     *
+     * @param code - code index
+     * @return commands recorded
+     */
+    private long count(int code) {
+        long count = 0;
+        for (int s = 0; s < STATUSES; s++) {
+            count += statuses.get(code * STATUSES + s);
+        }
+        return count;
+    }
+
+    /**
+     * Private helper for the number of commands with a status
+     *
+     * @param status - result status
+     * @return commands of every code with the status
+     */
+    private long statusCount(Result.Status status) {
+        long count = 0;
+        for (int code = 0; code < CODES.length; code++) {
+            count += statuses.get(code * STATUSES + status.ordinal());
+        }
+        return count;
+    }
+
+    /**
+     * Private helper for the mean latency of a code
+     *
+     * @param code - code index
+     * @return mean in microseconds, 0 if none were recorded
+     */
+    private double mean(int code) {
+        long count = count(code);
+        return count == 0 ? 0 : nanos.get(code) / 1e3 / count;
+    }
+
+    /**
+     * Private helper for the upper bound of a latency percentile of a code
+     *
+     * @param code - code index
+     * @param quantile - 0 to 1
+     * @return upper bound of the bucket holding the percentile in microseconds, 0 if none were recorded
+     */
+    private double percentile(int code, double quantile) {
+        long total = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            total += histogram.get(code * BUCKETS + b);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram.get(code * BUCKETS + b);
+            if (seen >= rank) {
+                return b == BUCKETS - 1 ? max.get(code) / 1e3 : upperNanos(b) / 1e3;
+            }
+        }
+        return max.get(code) / 1e3;
+    }
+
+    /**
+     * Private helper for the bucket of a latency
+     *
+     * @param elapsed - nanoseconds, not negative
+     * @return bucket, the number of bits of elapsed capped at the last bucket
+     */
+    private static int bucket(long elapsed) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(elapsed));
+    }
+
+    /**
+     * Private helper for the exclusive upper bound of a bucket
+     *
+     * @param bucket - bucket, not the last one
+     * @return 2^bucket nanoseconds
+     */
+    private static long upperNanos(int bucket) {
+        return 1L << bucket;
+    }
+
+    /**
+     * Private helper for the index of a command code to record
+     *
+     * @param command - first token of the command
+     * @return code index, INVALID for unknown commands, -1 for a blank line
+     */
+    private static int code(String command) {
+        switch (command) {
+            case "":
+                return -1;
+            case "D":
+                return 0;
+            case "T":
+                return 1;
+            case "C":
+                return 2;
+            case "R":
+                return 3;
+            case "PA":
+                return 4;
+            case "PP":
+                return 5;
+            case "PL":
+                return 6;
+            case "PS":
+                return 7;
+            case "PO":
+                return 8;
+            case "PI":
+                return 9;
+            case "PC":
+                return 10;
+            case "L":
+                return 11;
+            case "SNAPSHOT":
+                return 12;
+            case "RESTORE":
+                return 13;
+            case "STATS":
+                return 14;
+            default:
+                return INVALID;
+        }
+    }
+
+    /**
+     * Private helper for the index of a code named by a JMX caller
+     *
+     * @param command - command code, or "invalid"
+     * @return code index, -1 if there is no such code
+     */
+    private static int lookup(String command) {
+        for (int code = 0; code < CODES.length; code++) {
+            if (CODES[code].equals(command)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,81 @@
+package clinic;
+
+/**
+ * JMX view of the command statistics of a scheduling engine, see CommandStats
+ * Command codes are the first token of a console command (D, T, C, R, PA ...), "invalid" for unknown commands
+ *
+ * @author Jasmine Saffold
+ */
+public interface CommandStatsMBean {
+    /**
+     * Gives the number of commands recorded
+     *
+     * @return commands of every code
+     */
+    long getTotalCount();
+
+    /**
+     * Gives the number of commands that succeeded
+     *
+     * @return commands with status OK
+     */
+    long getOkCount();
+
+    /**
+     * Gives the number of commands that conflicted with the schedule
+     *
+     * @return commands with status CONFLICT
+     */
+    long getConflictCount();
+
+    /**
+     * Gives the number of commands that were rejected or failed
+     *
+     * @return commands with status REJECTED
+     */
+    long getRejectedCount();
+
+    /**
+     * Gives one line per command code that was recorded, as the STATS command prints them
+     *
+     * @return summary lines
+     */
+    String[] getCommandSummaries();
+
+    /**
+     * Gives the statistics in Prometheus text format
+     *
+     * @return exposition text
+     */
+    String getPrometheusText();
+
+    /**
+     * Gives the number of commands of one code
+     *
+     * @param command - command code
+     * @return commands recorded, 0 for an unknown code
+     */
+    long count(String command);
+
+    /**
+     * Gives the mean latency of one command code
+     *
+     * @param command - command code
+     * @return mean in microseconds, 0 if none were recorded
+     */
+    double meanMicros(String command);
+
+    /**
+     * Gives an upper bound on a latency percentile of one command code
+     *
+     * @param command - command code
+     * @param quantile - 0 to 1, 0.99 for p99
+     * @return upper bound of the histogram bucket holding the percentile, in microseconds
+     */
+    double percentileMicros(String command, double quantile);
+
+    /**
+     * Clears every counter and histogram
+     */
+    void reset();
+}
@@ -0,0 +1,90 @@
+package clinic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class CommandStatsTest {
+
+    private CommandStats stats;
+
+    @Before
+    public void setUp() {
+        stats = new CommandStats();
+    }
+
+    @Test
+    public void testCountsByCodeAndStatus() {
+        stats.record("D", Result.Status.OK, 1_000);
+        stats.record("D", Result.Status.CONFLICT, 2_000);
+        stats.record("D", null, 3_000);
+        stats.record("X", Result.Status.REJECTED, 500);
+        stats.record("", Result.Status.OK, 10);
+        assertEquals(3, stats.count("D"));
+        assertEquals(1, stats.count("invalid"));
+        assertEquals(0, stats.count("PA"));
+        assertEquals(4, stats.getTotalCount());
+        assertEquals(1, stats.getOkCount());
+        assertEquals(1, stats.getConflictCount());
+        assertEquals(2, stats.getRejectedCount());
+        assertEquals(2.0, stats.meanMicros("D"), 1e-9);
+    }
+
+    @Test
+    public void testPercentilesAreBucketBounds() {
+        for (int i = 0; i < 99; i++) {
+            stats.record("PA", Result.Status.OK, 1_000); // bucket up to 1024 ns
+        }
+        stats.record("PA", Result.Status.OK, 1_000_000); // bucket up to 1048576 ns
+        assertEquals(1.024, stats.percentileMicros("PA", 0.5), 1e-9);
+        assertEquals(1.024, stats.percentileMicros("PA", 0.99), 1e-9);
+        assertEquals(1048.576, stats.percentileMicros("PA", 1.0), 1e-9);
+    }
+
+    @Test
+    public void testResetClearsEverything() {
+        stats.record("C", Result.Status.OK, 1_000);
+        stats.reset();
+        assertEquals(0, stats.getTotalCount());
+        assertEquals(0, stats.getCommandSummaries().length);
+        assertEquals(0.0, stats.percentileMicros("C", 0.5), 1e-9);
+    }
+
+    @Test
+    public void testPrometheusText() throws Exception {
+        stats.record("R", Result.Status.OK, 3);
+        stats.record("R", Result.Status.CONFLICT, 5);
+        String text = stats.getPrometheusText();
+        assertTrue(text.contains("clinic_commands_total{command=\"R\",status=\"ok\"} 1\n"));
+        assertTrue(text.contains("clinic_commands_total{command=\"R\",status=\"conflict\"} 1\n"));
+        assertTrue(text.contains("clinic_command_duration_seconds_bucket{command=\"R\",le=\"4.0E-9\"} 1\n"));
+        assertTrue(text.contains("clinic_command_duration_seconds_bucket{command=\"R\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("clinic_command_duration_seconds_count{command=\"R\"} 2\n"));
+        assertFalse(text.contains("command=\"D\""));
+        Path dir = Files.createTempDirectory("stats");
+        Path file = dir.resolve("clinic.prom");
+        stats.writePrometheus(file);
+        assertEquals(text, Files.readString(file));
+        Files.delete(file);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testEngineRecordsCommands() {
+        SchedulingEngine engine = new SchedulingEngine();
+        StringBuilder out = new StringBuilder();
+        engine.execute(new String[]{"Z"}, out);
+        engine.execute(new String[]{"D", "1/1/2026"}, out);
+        engine.execute(new String[]{"STATS"}, out);
+        assertEquals(1, engine.getStats().count("invalid"));
+        assertEquals(1, engine.getStats().count("D"));
+        assertEquals(2, engine.getStats().getRejectedCount());
+        assertTrue(out.toString().contains("D count=1 ok=0 conflict=0 rejected=1"));
+        assertTrue(engine.execute(new String[]{"STATS", "RESET"}, out).isOk());
+        assertEquals(1, engine.getStats().getTotalCount()); // the reset itself
+    }
+}
@@ -0,0 +1,299 @@
+package clinic;
+
+import util.Sort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The schedule split into one bucket per location and appointment type (office or imaging),
+ * each kept in date/time order with a running count and revenue
+ * The county reports walk the counties in order and merge the few buckets of each county,
+ * so nothing is sorted or filtered when PL, PO or PI is printed, and their totals are sums of counters
+ * Counts and revenue must be read and written under the same lock as add() and remove()
+ *
+ * @author Jasmine Saffold
+ */
+public class CountyPartitions {
+    /**
+     * Bucket index of office appointments
+     */
+    private static final int OFFICE = 0;
+    /**
+     * Bucket index of imaging appointments
+     */
+    private static final int IMAGING = 1;
+    /**
+     * Order inside a bucket and across the buckets of a county, the county order with booking order for ties
+     */
+    private static final Comparator<Appointment> ORDER = Sort.comparator('l').thenComparingLong(Appointment::getSequence);
+    /**
+     * Locations grouped by county, counties in the order the county reports print them
+     */
+    private static final Location[][] COUNTIES = counties();
+
+    private final EnumMap<Location, Bucket[]> buckets = new EnumMap<>(Location.class);
+
+    /**
+     * Constructor, an empty office and imaging bucket for every location
+     */
+    public CountyPartitions() {
+        for (Location location : Location.values()) {
+            buckets.put(location, new Bucket[] {new Bucket(), new Bucket()});
+        }
+    }
+
+    /**
+     * One location's appointments of one type, with their running totals
+     */
+    private static final class Bucket {
+        private volatile ConcurrentSkipListMap<Appointment, Boolean> appointments = new ConcurrentSkipListMap<>(ORDER);
+        private int count;
+        private long revenue;
+    }
+
+    /**
+     * Adds a booked appointment to its bucket
+     *
+     * @param appointment - appointment to add
+     */
+    public void add(Appointment appointment) {
+        Bucket bucket = bucket(appointment);
+        if (bucket.appointments.put(appointment, Boolean.TRUE) == null) {
+            bucket.count++;
+            bucket.revenue += appointment.getCharge();
+        }
+    }
+
+    /**
+     * Removes an appointment from its bucket
+     * Must be called before the appointment's timeslot is changed
+     *
+     * @param appointment - appointment to remove
+     */
+    public void remove(Appointment appointment) {
+        Bucket bucket = bucket(appointment);
+        if (bucket.appointments.remove(appointment) != null) {
+            bucket.count--;
+            bucket.revenue -= appointment.getCharge();
+        }
+    }
+
+    /**
+     * Fills empty buckets with many appointments at once
+     * Each bucket takes its rows of the county run in the order they come, so nothing is compared
+     *
+     * @param sorted - appointments in county/date/time order, ties in booking order
+     * @throws IllegalStateException if the buckets are not empty
+     */
+    public void addAll(Appointment[] sorted) {
+        EnumMap<Location, int[]> sizes = new EnumMap<>(Location.class);
+        for (Location location : Location.values()) {
+            Bucket[] pair = buckets.get(location);
+            if (pair[OFFICE].count != 0 || pair[IMAGING].count != 0) {
+                throw new IllegalStateException("Partitions must be empty to be bulk loaded.");
+            }
+            sizes.put(location, new int[2]);
+        }
+        for (Appointment row : sorted) {
+            sizes.get(row.getLocation())[type(row)]++;
+        }
+        EnumMap<Location, Appointment[][]> runs = new EnumMap<>(Location.class);
+        for (Location location : Location.values()) {
+            int[] size = sizes.get(location);
+            runs.put(location, new Appointment[][] {new Appointment[size[OFFICE]], new Appointment[size[IMAGING]]});
+            size[OFFICE] = 0;
+            size[IMAGING] = 0;
+        }
+        for (Appointment row : sorted) {
+            Bucket bucket = bucket(row);
+            int type = type(row);
+            runs.get(row.getLocation())[type][sizes.get(row.getLocation())[type]++] = row;
+            bucket.count++;
+            bucket.revenue += row.getCharge();
+        }
+        for (Location location : Location.values()) {
+            for (int type = OFFICE; type <= IMAGING; type++) {
+                buckets.get(location)[type].appointments =
+                        new ConcurrentSkipListMap<>(new ScheduleViews.SortedRun(runs.get(location)[type], ORDER));
+            }
+        }
+    }
+
+    /**
+     * Removes every appointment
+     */
+    public void clear() {
+        for (Bucket[] pair : buckets.values()) {
+            for (Bucket bucket : pair) {
+                bucket.appointments.clear();
+                bucket.count = 0;
+                bucket.revenue = 0;
+            }
+        }
+    }
+
+    /**
+     * Gives the appointments of a county report in order, merging the buckets of each county
+     * Appointments added or removed while the result is iterated may or may not be seen
+     *
+     * @param key - 'l' for every appointment, 'o' for office only, 'i' for imaging only
+     * @return appointments in county/date/time order
+     */
+    public Iterable<Appointment> ordered(char key) {
+        int first = key == 'i' ? IMAGING : OFFICE;
+        int last = key == 'o' ? OFFICE : IMAGING;
+        return () -> new Iterator<Appointment>() {
+            private int county = -1;
+            private Iterator<Appointment>[] sources;
+            private Appointment[] heads;
+
+            @Override
+            public boolean hasNext() {
+                while (true) {
+                    if (heads != null) {
+                        for (Appointment head : heads) {
+                            if (head != null) {
+                                return true;
+                            }
+                        }
+                    }
+                    if (county + 1 == COUNTIES.length) {
+                        return false;
+                    }
+                    open(COUNTIES[++county]);
+                }
+            }
+
+            @Override
+            public Appointment next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int min = -1;
+                for (int i = 0; i < heads.length; i++) {
+                    if (heads[i] != null && (min < 0 || ORDER.compare(heads[i], heads[min]) < 0)) {
+                        min = i;
+                    }
+                }
+                Appointment next = heads[min];
+                heads[min] = sources[min].hasNext() ? sources[min].next() : null;
+                return next;
+            }
+
+            @SuppressWarnings("unchecked")
+            private void open(Location[] locations) {
+                sources = (Iterator<Appointment>[]) new Iterator<?>[locations.length * (last - first + 1)];
+                heads = new Appointment[sources.length];
+                int i = 0;
+                for (Location location : locations) {
+                    for (int type = first; type <= last; type++, i++) {
+                        sources[i] = buckets.get(location)[type].appointments.keySet().iterator();
+                        heads[i] = sources[i].hasNext() ? sources[i].next() : null;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Gives the number of appointments in a bucket
+     *
+     * @param location - location of the providers
+     * @param imaging - true for imaging appointments, false for office appointments
+     * @return number of appointments
+     */
+    public int count(Location location, boolean imaging) {
+        return buckets.get(location)[imaging ? IMAGING : OFFICE].count;
+    }
+
+    /**
+     * Gives the revenue of a bucket
+     *
+     * @param location - location of the providers
+     * @param imaging - true for imaging appointments, false for office appointments
+     * @return sum of the charges in dollars
+     */
+    public long revenue(Location location, boolean imaging) {
+        return buckets.get(location)[imaging ? IMAGING : OFFICE].revenue;
+    }
+
+    /**
+     * Gives the number of appointments in a county report
+     *
+     * @param key - 'l', 'o' or 'i', as for ordered()
+     * @return number of appointments
+     */
+    public int count(char key) {
+        int count = 0;
+        for (Location location : Location.values()) {
+            count += (key != 'i' ? count(location, false) : 0) + (key != 'o' ? count(location, true) : 0);
+        }
+        return count;
+    }
+
+    /**
+     * Gives the revenue of a county report
+     *
+     * @param key - 'l', 'o' or 'i', as for ordered()
+     * @return sum of the charges in dollars
+     */
+    public long revenue(char key) {
+        long revenue = 0;
+        for (Location location : Location.values()) {
+            revenue += (key != 'i' ? revenue(location, false) : 0) + (key != 'o' ? revenue(location, true) : 0);
+        }
+        return revenue;
+    }
+
+    /**
+     * Private helper to find the bucket of an appointment
+     *
+     * @param appointment - appointment
+     * @return bucket for its location and type
+     */
+    private Bucket bucket(Appointment appointment) {
+        return buckets.get(appointment.getLocation())[type(appointment)];
+    }
+
+    /**
+     * Private helper for the bucket index of an appointment's type
+     *
+     * @param appointment - appointment
+     * @return IMAGING or OFFICE
+     */
+    private static int type(Appointment appointment) {
+        return appointment instanceof Imaging ? IMAGING : OFFICE;
+    }
+
+    /**
+     * Private helper to group the locations by county, counties sorted by name
+     *
+     * @return locations of each county
+     */
+    private static Location[][] counties() {
+        Location[] locations = Location.values().clone();
+        Arrays.sort(locations, Comparator.comparing(Location::getCounty)); // stable, keeps enum order inside a county
+        int groups = 0;
+        for (int i = 0; i < locations.length; i++) {
+            if (i == 0 || !locations[i].getCounty().equals(locations[i - 1].getCounty())) {
+                groups++;
+            }
+        }
+        Location[][] counties = new Location[groups][];
+        int start = 0;
+        for (int g = 0; g < groups; g++) {
+            int end = start + 1;
+            while (end < locations.length && locations[end].getCounty().equals(locations[start].getCounty())) {
+                end++;
+            }
+            counties[g] = Arrays.copyOfRange(locations, start, end);
+            start = end;
+        }
+        return counties;
+    }
+}
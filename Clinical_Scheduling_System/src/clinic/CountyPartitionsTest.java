@@ -0,0 +1,71 @@
+package clinic;
+
+import org.junit.Test;
+import util.Date;
+import util.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CountyPartitionsTest {
+
+    @Test
+    public void testMergedBucketsMatchFullSortAndTotals() {
+        Provider[] providers = { // Edison and Piscataway share Middlesex, so their buckets interleave
+                new Doctor(Location.EDISON, new Profile("Gary", "Johnson", new Date(1977, 12, 13)), Specialty.FAMILY, "01"),
+                new Doctor(Location.PISCATAWAY, new Profile("Ben", "Jerry", new Date(1977, 12, 28)), Specialty.ALLERGIST, "02"),
+                new Doctor(Location.CLARK, new Profile("Tom", "Kaur", new Date(1972, 11, 5)), Specialty.FAMILY, "03"),
+                new Technician(Location.EDISON, new Profile("Jenny", "Patel", new Date(1991, 8, 9)), 125),
+                new Technician(Location.PISCATAWAY, new Profile("Ben", "Ramesh", new Date(1991, 8, 9)), 150)};
+        Random random = new Random(7);
+        ArrayList<Appointment> appointments = new ArrayList<>();
+        CountyPartitions partitions = new CountyPartitions();
+        for (int i = 0; i < 400; i++) {
+            Patient patient = new Patient(new Profile("P" + i, "Doe", new Date(2000, 1, 1)));
+            Date date = new Date(2026, 11, 2 + random.nextInt(10));
+            Timeslot slot = Timeslot.of(1 + random.nextInt(Timeslot.SLOTS));
+            Provider provider = providers[random.nextInt(providers.length)];
+            Appointment appointment = provider instanceof Technician
+                    ? new Imaging(date, slot, patient, provider, Radiology.XRAY)
+                    : new Appointment(date, slot, patient, provider);
+            appointments.add(appointment);
+            partitions.add(appointment);
+        }
+        for (int i = 0; i < 100; i++) { // cancel a quarter of them
+            partitions.remove(appointments.remove(random.nextInt(appointments.size())));
+        }
+
+        Comparator<Appointment> order = Sort.comparator('l').thenComparingLong(Appointment::getSequence);
+        for (char key : new char[]{'l', 'o', 'i'}) {
+            ArrayList<Appointment> expected = new ArrayList<>();
+            long revenue = 0;
+            for (Appointment appointment : appointments) {
+                if (key == 'l' || (key == 'i') == (appointment instanceof Imaging)) {
+                    expected.add(appointment);
+                    revenue += appointment.getCharge();
+                }
+            }
+            expected.sort(order);
+            Iterator<Appointment> merged = partitions.ordered(key).iterator();
+            for (Appointment appointment : expected) {
+                assertSame("report " + key, appointment, merged.next());
+            }
+            assertFalse(merged.hasNext());
+            assertEquals(expected.size(), partitions.count(key));
+            assertEquals(revenue, partitions.revenue(key));
+        }
+        assertEquals(0, partitions.count(Location.PRINCETON, false));
+
+        CountyPartitions bulk = new CountyPartitions();
+        Appointment[] sorted = appointments.toArray(new Appointment[0]);
+        Arrays.sort(sorted, order);
+        bulk.addAll(sorted);
+        assertEquals(partitions.revenue(Location.EDISON, true), bulk.revenue(Location.EDISON, true));
+        assertEquals(partitions.count('l'), bulk.count('l'));
+    }
+}
@@ -0,0 +1,145 @@
+package clinic;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Appointment count and credit of every provider, kept up to date as appointments are booked,
+ * canceled and rescheduled, so the credit statement reads one counter per provider
+ * Counters are indexed by provider id, which follows provider order
+ *
+ * @author Jasmine Saffold
+ */
+public class CreditLedger {
+    private final ProviderDirectory providers;
+    private final int[] count;
+    private final int[] credit;
+
+    /**
+     * Constructor, one counter for each provider in the directory
+     *
+     * @param providers - directory that numbers the providers and gives their rates
+     */
+    public CreditLedger(ProviderDirectory providers) {
+        this.providers = providers;
+        this.count = new int[providers.providerCount()];
+        this.credit = new int[count.length];
+    }
+
+    /**
+     * Credits the provider of a booked appointment
+     *
+     * @param appointment - appointment that was booked
+     */
+    public void add(Appointment appointment) {
+        int provider = provider(appointment);
+        count[provider]++;
+        credit[provider] += providers.rate(provider);
+    }
+
+    /**
+     * Takes the credit of a canceled appointment off its provider
+     * Reschedules keep the provider, so they remove and add the same credit
+     *
+     * @param appointment - appointment that was canceled
+     * @throws IllegalStateException if the provider has no credits, the ledger has drifted from the bookings
+     */
+    public void remove(Appointment appointment) {
+        int provider = provider(appointment);
+        if (count[provider] == 0) {
+            throw new IllegalStateException("Provider " + provider + " has no appointments in the credit ledger.");
+        }
+        count[provider]--;
+        credit[provider] -= providers.rate(provider);
+    }
+
+    /**
+     * Empties the ledger
+     */
+    public void clear() {
+        Arrays.fill(count, 0);
+        Arrays.fill(credit, 0);
+    }
+
+    /**
+     * Gives the number of appointments of a provider
+     *
+     * @param provider - provider id
+     * @return number of appointments
+     */
+    public int count(int provider) {
+        return count[provider];
+    }
+
+    /**
+     * Gives the credit of a provider
+     *
+     * @param provider - provider id
+     * @return credit in dollars
+     */
+    public int credit(int provider) {
+        return credit[provider];
+    }
+
+    /**
+     * Gives the number of providers
+     *
+     * @return number of counters
+     */
+    public int size() {
+        return count.length;
+    }
+
+    /**
+     * Visits every provider in provider order with their credit
+     *
+     * @param action - called with each provider and their credit in dollars
+     */
+    public void forEach(ObjIntConsumer<Provider> action) {
+        for (int id = 0; id < count.length; id++) {
+            action.accept(providers.provider(id), credit[id]);
+        }
+    }
+
+    /**
+     * Checks every count and credit against a full recount of the appointment store
+     *
+     * @param store - appointment store with the same appointments
+     * @return null if the ledger matches, otherwise a description of the first difference
+     */
+    public String verify(AppointmentStore store) {
+        return verify(Arrays.stream(store.countByProvider()).asLongStream().toArray());
+    }
+
+    /**
+     * Checks every count and credit against appointment counts recomputed elsewhere
+     *
+     * @param counts - number of appointments for each provider id
+     * @return null if the ledger matches, otherwise a description of the first difference
+     */
+    public String verify(long[] counts) {
+        for (int id = 0; id < count.length; id++) {
+            long expected = (long) providers.rate(id) * counts[id];
+            if (count[id] != counts[id] || credit[id] != expected) {
+                return providers.provider(id).getProfile() + " has $" + credit[id] + ".00 for " + count[id]
+                        + " appointment(s) in the ledger, $" + expected + ".00 for " + counts[id] + " recounted.";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Private helper to find the id of an appointment's provider
+     *
+     * @param appointment - appointment
+     * @return provider id
+     * @throws IllegalArgumentException if the provider is not in the directory
+     */
+    private int provider(Appointment appointment) {
+        int provider = providers.id(appointment.getProvider());
+        if (provider < 0) {
+            throw new IllegalArgumentException("Appointment is not in the directory.");
+        }
+        return provider;
+    }
+}
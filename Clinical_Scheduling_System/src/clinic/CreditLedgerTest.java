@@ -0,0 +1,50 @@
+package clinic;
+
+import org.junit.Before;
+import org.junit.Test;
+import util.Date;
+
+import static org.junit.Assert.*;
+
+public class CreditLedgerTest {
+
+    private CreditLedger ledger;
+    private AppointmentStore store;
+    private ClinicFixture.Practice practice;
+
+    @Before
+    public void setUp() {
+        practice = new ClinicFixture.Practice();
+        ledger = new CreditLedger(practice.directory);
+        store = new AppointmentStore(practice.directory, practice.record);
+    }
+
+    @Test
+    public void testCreditsFollowBookAndCancel() {
+        Appointment first = new Appointment(new Date(2026, 11, 10), Timeslot.of(1), practice.patient("John"), practice.doctor);
+        Imaging second = new Imaging(new Date(2026, 11, 10), Timeslot.of(2), practice.patient("Jane"), practice.technician, Radiology.XRAY);
+        Imaging third = new Imaging(new Date(2026, 11, 10), Timeslot.of(3), practice.patient("Jane"), practice.technician, Radiology.CATSCAN);
+        for (Appointment appointment : new Appointment[]{first, second, third}) {
+            ledger.add(appointment);
+            store.add(appointment);
+        }
+        assertEquals(1, ledger.count(0));
+        assertEquals(250, ledger.credit(0));
+        assertEquals(2, ledger.count(1));
+        assertEquals(250, ledger.credit(1)); // a technician is credited once per appointment
+        assertNull(ledger.verify(store));
+
+        ledger.remove(second);
+        store.remove(second);
+        assertEquals(125, ledger.credit(1));
+        assertNull(ledger.verify(store));
+
+        store.remove(first); // the store loses the appointment, the ledger doesn't
+        assertNotNull(ledger.verify(store));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRemovingAnUncreditedAppointmentThrows() {
+        ledger.remove(new Appointment(new Date(2026, 11, 10), Timeslot.of(1), practice.patient("John"), practice.doctor));
+    }
+}
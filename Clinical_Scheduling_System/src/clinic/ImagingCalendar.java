@@ -0,0 +1,237 @@
+package clinic;
+
+import util.Date;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps imaging availability as bitmaps, one block per (date, location)
+ * Each block has one bit per technician per timeslot and one bit per radiology room per timeslot
+ * Technician bits are numbered by ring position in the rotation, so the next free technician is a bit scan
+ * Bits are set and cleared with compare-and-set, so concurrent bookings claim a technician and room without a lock
+ *
+ * @author Jasmine Saffold
+ */
+public class ImagingCalendar {
+    /**
+     * Number of timeslots in a day
+     */
+    private static final int SLOTS = Timeslot.SLOTS;
+    /**
+     * Number of radiology rooms at every location
+     */
+    private static final int ROOMS = Radiology.values().length;
+    /**
+     * Number of clinic locations
+     */
+    private static final int LOCATIONS = Location.values().length;
+    /**
+     * Constant returned when no technician is free
+     */
+    private static final int NOT_FOUND = -1;
+
+    private final TechnicianRotation rotation;                   // technicians and their ring positions
+    private final long[][] staffed;                              // technician bits working at each location
+    private final int words;                                     // longs needed for one bit per technician
+    private final ConcurrentHashMap<Date, AtomicReferenceArray<Block>> blocks = new ConcurrentHashMap<>(); // blocks for each date, indexed by location
+
+    /**
+     * Bitmaps for one location on one date
+     */
+    private static final class Block {
+        final AtomicLongArray techBusy;             // SLOTS rows of technician bits
+        final AtomicLong roomBusy = new AtomicLong(); // bit (slot * ROOMS + room) is set if the room is booked
+
+        Block(int words) { this.techBusy = new AtomicLongArray(SLOTS * words); }
+    }
+
+    /**
+     * Constructor, numbers the technicians by their ring position
+     *
+     * @param rotation - technician rotation
+     */
+    public ImagingCalendar(TechnicianRotation rotation) {
+        int count = rotation.size();
+        this.rotation = rotation;
+        this.words = Math.max(1, (count + Long.SIZE - 1) / Long.SIZE);
+        this.staffed = new long[LOCATIONS][words];
+
+        for (int i = 0; i < count; i++) {
+            staffed[rotation.technician(i).getLocation().ordinal()][i / Long.SIZE] |= 1L << i;
+        }
+    }
+
+    /**
+     * Gives the timeslot's row in a block
+     *
+     * @param timeslot - timeslot of the appointment
+     * @return 0 for 9:00 AM through 11 for 4:30 PM
+     */
+    static int slotIndex(Timeslot timeslot) {
+        return timeslot.getOrdinal();
+    }
+
+    /**
+     * Finds the first free technician in rotation order whose location has the room open
+     * The answer is a snapshot, claim() the technician before booking
+     *
+     * @param date - date of the appointment
+     * @param timeslot - timeslot of the appointment
+     * @param room - radiology room needed
+     * @param start - ring position of the technician at the front of the rotation
+     * @param closed - bit (1 << location ordinal) set for each location closed on the date
+     * @return free technician, null if there is none
+     */
+    public Technician findFree(Date date, Timeslot timeslot, Radiology room, int start, int closed) {
+        if (rotation.isEmpty()) {
+            return null;
+        }
+        int slot = slotIndex(timeslot);
+        AtomicReferenceArray<Block> day = blocks.get(date);
+        long roomBit = 1L << (slot * ROOMS + room.ordinal());
+        long[] free = new long[words];
+
+        for (int loc = 0; loc < LOCATIONS; loc++) {
+            Block block = day == null ? null : day.get(loc);
+            if ((closed & (1 << loc)) != 0) {
+                continue;
+            }
+            if (block == null) {
+                for (int w = 0; w < words; w++) {
+                    free[w] |= staffed[loc][w];
+                }
+            } else if ((block.roomBusy.get() & roomBit) == 0) {
+                for (int w = 0; w < words; w++) {
+                    free[w] |= staffed[loc][w] & ~block.techBusy.get(slot * words + w);
+                }
+            }
+        }
+        int found = nextSetBit(free, start);
+        if (found == NOT_FOUND && start != 0) {
+            found = nextSetBit(free, 0);
+        }
+        return found == NOT_FOUND ? null : rotation.technician(found);
+    }
+
+    /**
+     * Claims a technician and the room at their location for a timeslot
+     * Fails without changing anything if another booking holds either one
+     *
+     * @param date - date of the appointment
+     * @param timeslot - timeslot of the appointment
+     * @param room - radiology room needed
+     * @param technician - technician found by findFree()
+     * @return true if both were free and are now taken
+     */
+    public boolean claim(Date date, Timeslot timeslot, Radiology room, Technician technician) {
+        int tech = rotation.position(technician);
+        if (tech < 0) {
+            return false;
+        }
+        Block block = block(date, technician.getLocation(), true);
+        int slot = slotIndex(timeslot);
+        int word = slot * words + tech / Long.SIZE;
+        long techBit = 1L << tech;
+        long roomBit = 1L << (slot * ROOMS + room.ordinal());
+        if ((block.techBusy.getAndAccumulate(word, techBit, (bits, bit) -> bits | bit) & techBit) != 0) {
+            return false;
+        }
+        if ((block.roomBusy.getAndAccumulate(roomBit, (bits, bit) -> bits | bit) & roomBit) != 0) {
+            block.techBusy.accumulateAndGet(word, ~techBit, (bits, mask) -> bits & mask);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Marks the technician and room of an imaging appointment as busy, whether or not they were claimed
+     *
+     * @param appointment - imaging appointment that was booked
+     */
+    public void book(Imaging appointment) {
+        int tech = rotation.position(appointment.getProvider());
+        if (tech < 0) {
+            return;
+        }
+        Block block = block(appointment.getDate(), appointment.getLocation(), true);
+        int slot = slotIndex(appointment.getTimeslot());
+        block.techBusy.accumulateAndGet(slot * words + tech / Long.SIZE, 1L << tech, (bits, bit) -> bits | bit);
+        block.roomBusy.accumulateAndGet(1L << (slot * ROOMS + appointment.getRoom().ordinal()), (bits, bit) -> bits | bit);
+    }
+
+    /**
+     * Frees the technician and room of an imaging appointment
+     *
+     * @param appointment - imaging appointment that was canceled
+     */
+    public void release(Imaging appointment) {
+        int tech = rotation.position(appointment.getProvider());
+        Block block = block(appointment.getDate(), appointment.getLocation(), false);
+        if (tech < 0 || block == null) {
+            return;
+        }
+        int slot = slotIndex(appointment.getTimeslot());
+        block.techBusy.accumulateAndGet(slot * words + tech / Long.SIZE, ~(1L << tech), (bits, mask) -> bits & mask);
+        block.roomBusy.accumulateAndGet(~(1L << (slot * ROOMS + appointment.getRoom().ordinal())), (bits, mask) -> bits & mask);
+    }
+
+    /**
+     * Removes every booking from the calendar
+     */
+    public void clear() {
+        blocks.clear();
+    }
+
+    /**
+     * Private helper to get the block of a date and location
+     *
+     * @param date - appointment date
+     * @param location - location of the technician
+     * @param create - true to create a missing block
+     * @return block, or null if it doesn't exist and create is false
+     */
+    private Block block(Date date, Location location, boolean create) {
+        AtomicReferenceArray<Block> day = blocks.get(date);
+        if (day == null) {
+            if (!create) {
+                return null;
+            }
+            day = blocks.computeIfAbsent(date, d -> new AtomicReferenceArray<>(LOCATIONS));
+        }
+        int loc = location.ordinal();
+        Block block = day.get(loc);
+        if (block == null && create) {
+            day.compareAndSet(loc, null, new Block(words)); // a racing thread may have created it first
+            block = day.get(loc);
+        }
+        return block;
+    }
+
+    /**
+     * Private helper to find the next set bit at or after an index
+     *
+     * @param bits - bitmap
+     * @param from - index to start at
+     * @return index of the set bit, NOT_FOUND if there is none
+     */
+    private int nextSetBit(long[] bits, int from) {
+        int w = from / Long.SIZE;
+        if (w >= words) {
+            return NOT_FOUND;
+        }
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int index = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                return index < rotation.size() ? index : NOT_FOUND;
+            }
+            if (++w == words) {
+                return NOT_FOUND;
+            }
+            word = bits[w];
+        }
+    }
+}
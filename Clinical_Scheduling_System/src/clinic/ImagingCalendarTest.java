@@ -0,0 +1,95 @@
+package clinic;
+
+import org.junit.Test;
+import util.CircularLinkedList;
+import util.Date;
+
+import static org.junit.Assert.*;
+
+public class ImagingCalendarTest {
+
+    private static final Date DAY = new Date(2026, 11, 10);
+
+    private static Technician technician(int n, Location location) {
+        return new Technician(location, new Profile("Tech" + n, "Doe", new Date(1980, 1, 1 + n % 28)), 100);
+    }
+
+    private static TechnicianRotation rotation(Technician... technicians) {
+        CircularLinkedList<Provider> list = new CircularLinkedList<Provider>();
+        for (Technician technician : technicians) {
+            list.add(technician);
+        }
+        return new TechnicianRotation(list);
+    }
+
+    @Test
+    public void testClaimConflictsAndRelease() {
+        Technician gary = technician(1, Location.EDISON);
+        Technician ben = technician(2, Location.CLARK);
+        ImagingCalendar calendar = new ImagingCalendar(rotation(gary, ben));
+
+        assertSame(gary, calendar.findFree(DAY, Timeslot.of(1), Radiology.XRAY, 0, 0));
+        assertTrue(calendar.claim(DAY, Timeslot.of(1), Radiology.XRAY, gary));
+        assertFalse(calendar.claim(DAY, Timeslot.of(1), Radiology.CATSCAN, gary)); // technician is taken
+        assertSame(ben, calendar.findFree(DAY, Timeslot.of(1), Radiology.CATSCAN, 0, 0));
+        assertTrue(calendar.claim(DAY, Timeslot.of(2), Radiology.CATSCAN, gary)); // other slot is free
+
+        calendar.release(new Imaging(DAY, Timeslot.of(1), null, gary, Radiology.XRAY));
+        assertSame(gary, calendar.findFree(DAY, Timeslot.of(1), Radiology.XRAY, 0, 0));
+        assertTrue(calendar.claim(DAY, Timeslot.of(1), Radiology.XRAY, gary));
+    }
+
+    @Test
+    public void testRoomConflictUndoesTechnicianClaim() {
+        Technician gary = technician(1, Location.EDISON);
+        Technician jenny = technician(2, Location.EDISON);
+        ImagingCalendar calendar = new ImagingCalendar(rotation(gary, jenny));
+
+        assertTrue(calendar.claim(DAY, Timeslot.of(3), Radiology.XRAY, gary));
+        assertFalse(calendar.claim(DAY, Timeslot.of(3), Radiology.XRAY, jenny)); // room is taken
+        assertNull(calendar.findFree(DAY, Timeslot.of(3), Radiology.XRAY, 0, 0));
+        assertSame(jenny, calendar.findFree(DAY, Timeslot.of(3), Radiology.ULTRASOUND, 0, 0)); // jenny was given back
+    }
+
+    @Test
+    public void testFindFreePastBit63() {
+        Technician[] technicians = new Technician[70];
+        for (int i = 0; i < technicians.length; i++) { // 0 to 64 work in Edison, 65 to 69 in Clark
+            technicians[i] = technician(i, i < 65 ? Location.EDISON : Location.CLARK);
+        }
+        ImagingCalendar calendar = new ImagingCalendar(rotation(technicians));
+        int edisonClosed = 1 << Location.EDISON.ordinal();
+
+        assertSame(technicians[65], calendar.findFree(DAY, Timeslot.of(4), Radiology.XRAY, 0, edisonClosed));
+        assertTrue(calendar.claim(DAY, Timeslot.of(4), Radiology.XRAY, technicians[65]));
+        assertFalse(calendar.claim(DAY, Timeslot.of(4), Radiology.CATSCAN, technicians[65]));
+        assertNull(calendar.findFree(DAY, Timeslot.of(4), Radiology.XRAY, 0, edisonClosed)); // Clark's room is taken
+        assertSame(technicians[66], calendar.findFree(DAY, Timeslot.of(4), Radiology.CATSCAN, 0, edisonClosed));
+        assertSame(technicians[69], calendar.findFree(DAY, Timeslot.of(4), Radiology.CATSCAN, 69, 0));
+        assertSame(technicians[0], calendar.findFree(DAY, Timeslot.of(4), Radiology.CATSCAN, 70, 0)); // wraps around
+
+        calendar.release(new Imaging(DAY, Timeslot.of(4), null, technicians[65], Radiology.XRAY));
+        assertSame(technicians[65], calendar.findFree(DAY, Timeslot.of(4), Radiology.XRAY, 0, edisonClosed));
+    }
+
+    @Test
+    public void testFullDay() {
+        Technician gary = technician(1, Location.EDISON);
+        Technician ben = technician(2, Location.CLARK);
+        ImagingCalendar calendar = new ImagingCalendar(rotation(gary, ben));
+
+        for (int slot = 1; slot <= Timeslot.SLOTS; slot++) {
+            assertTrue(calendar.claim(DAY, Timeslot.of(slot), Radiology.XRAY, gary));
+            assertTrue(calendar.claim(DAY, Timeslot.of(slot), Radiology.CATSCAN, ben));
+        }
+        for (int slot = 1; slot <= Timeslot.SLOTS; slot++) {
+            assertNull(calendar.findFree(DAY, Timeslot.of(slot), Radiology.ULTRASOUND, 0, 0));
+        }
+        assertSame(gary, calendar.findFree(new Date(2026, 11, 11), Timeslot.of(1), Radiology.XRAY, 0, 0));
+        int edisonClosed = 1 << Location.EDISON.ordinal();
+        assertSame(ben, calendar.findFree(new Date(2026, 11, 11), Timeslot.of(1), Radiology.XRAY, 0, edisonClosed));
+
+        calendar.clear();
+        assertSame(gary, calendar.findFree(DAY, Timeslot.of(12), Radiology.XRAY, 0, 0));
+    }
+}
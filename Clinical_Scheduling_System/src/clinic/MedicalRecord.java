@@ -1,8 +1,12 @@
 package clinic;
 
+import java.util.HashMap;
+
 /**
  * This class holds a list of patient objects from the Patient class
  * Implements a "bag" data structure with arrays
+ * Patients are also indexed by profile, so there is exactly one Patient per Profile
+ * A patient's id is its index in the array, patients are never removed
  *
  * @author Jasmine Saffold
  */
@@ -10,6 +14,7 @@ package clinic;
 public class MedicalRecord {
     private Patient[] patients;
     private int size; // number of patient objects in the array
+    private final HashMap<Profile, Integer> byProfile = new HashMap<>(); // patient id by profile
     /**
      * The initial capacity of patients array
      */
@@ -39,14 +44,73 @@ public class MedicalRecord {
 
     /**
      * Adds a patient to the array, resizing as needed
+     * Does nothing if a patient with the same profile is already in the record
      *
      * @param patient -- from patients array
      */
     public void add(Patient patient) {
+        register(patient);
+    }
+
+    /**
+     * Adds a patient unless the profile is already in the record
+     *
+     * @param patient -- patient to add
+     * @return the patient in the record with that profile
+     */
+    public Patient register(Patient patient) {
+        Integer existing = byProfile.putIfAbsent(patient.getProfile(), size);
+        if(existing != null) {
+            return patients[existing];
+        }
         if(size >= patients.length) {
             resize();
         }
         patients[size++] = patient;
+        return patient;
+    }
+
+    /**
+     * Finds the patient with the given profile
+     *
+     * @param profile -- profile to look up
+     * @return patient with that profile, null if there is none
+     */
+    public Patient find(Profile profile) {
+        Integer id = byProfile.get(profile);
+        return id == null ? null : patients[id];
+    }
+
+    /**
+     * Gives the id of a registered patient
+     *
+     * @param profile -- profile of the patient
+     * @return index of the patient in the record, -1 if the profile isn't registered
+     */
+    public int id(Profile profile) {
+        Integer id = byProfile.get(profile);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gives the patient with the given profile, or a new patient that is not in the record yet
+     * The new patient should be registered once it has an appointment
+     *
+     * @param profile -- profile to look up
+     * @return patient object to book with
+     */
+    public Patient patientFor(Profile profile) {
+        Patient patient = find(profile);
+        return patient != null ? patient : new Patient(profile);
+    }
+
+    /**
+     * Removes every patient from the record
+     */
+    public void clear() {
+        patients = new Patient[INIT_CAPACITY];
+        size = 0;
+        byProfile.clear();
     }
 
     /**
@@ -0,0 +1,242 @@
+package clinic;
+
+import util.Date;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash index of the booked (date, timeslot) pairs of every provider and patient
+ * Lets the schedulers check for conflicts without walking the appointment list
+ * The maps are concurrent, so conflict checks can read while other bookings are added
+ *
+ * @author Jasmine Saffold
+ */
+public class Occupancy {
+    private final ConcurrentHashMap<SlotKey, Appointment> providerSlots = new ConcurrentHashMap<>(); // keyed by provider
+    private final ConcurrentHashMap<SlotKey, Appointment> officeSlots = new ConcurrentHashMap<>();   // office visits keyed by patient profile
+    private final ConcurrentHashMap<SlotKey, Appointment> imagingSlots = new ConcurrentHashMap<>();  // imaging keyed by patient profile
+    private final ConcurrentHashMap<SlotKey, Appointment[]> namedSlots = new ConcurrentHashMap<>(); // keyed by upper-cased patient name
+
+    /**
+     * Key for one (owner, date, timeslot) entry
+     * The owner is a provider object, a patient profile or an upper-cased patient name,
+     * the date and timeslot are packed into one long
+     */
+    private static final class SlotKey {
+        private final Object owner;
+        private final long when; // epoch day in the high bits, minutes since midnight in the low 16
+        private final int hash;
+
+        /**
+         * Constructor for a slot key, precomputes the hash
+         *
+         * @param owner - provider, patient profile or upper-cased name
+         * @param date - date of the appointment
+         * @param timeslot - timeslot of the appointment
+         */
+        SlotKey(Object owner, Date date, Timeslot timeslot) {
+            this.owner = owner;
+            this.when = ((long) date.getEpochDay() << 16) | timeslot.hashCode();
+            this.hash = 31 * owner.hashCode() + Long.hashCode(when * 0x9E3779B97F4A7C15L);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SlotKey)) {
+                return false;
+            }
+            SlotKey other = (SlotKey) o;
+            return when == other.when && hash == other.hash && owner.equals(other.owner);
+        }
+    }
+
+    /**
+     * Gives the appointment a provider holds at the date and timeslot
+     *
+     * @param provider - doctor or technician
+     * @param date - date to check
+     * @param timeslot - timeslot to check
+     * @return appointment in that slot, null if the provider is free
+     */
+    public Appointment providerAt(Person provider, Date date, Timeslot timeslot) {
+        return providerSlots.get(new SlotKey(provider, date, timeslot));
+    }
+
+    /**
+     * Gives the office appointment a patient holds at the date and timeslot
+     *
+     * @param patient - profile of the patient
+     * @param date - date to check
+     * @param timeslot - timeslot to check
+     * @return office appointment in that slot, null if there is none
+     */
+    public Appointment officeAt(Profile patient, Date date, Timeslot timeslot) {
+        return officeSlots.get(new SlotKey(patient, date, timeslot));
+    }
+
+    /**
+     * Gives the imaging appointment a patient holds at the date and timeslot
+     *
+     * @param patient - profile of the patient
+     * @param date - date to check
+     * @param timeslot - timeslot to check
+     * @return imaging appointment in that slot, null if there is none
+     */
+    public Appointment imagingAt(Profile patient, Date date, Timeslot timeslot) {
+        return imagingSlots.get(new SlotKey(patient, date, timeslot));
+    }
+
+    /**
+     * Gives any appointment a patient holds at the date and timeslot
+     *
+     * @param patient - profile of the patient
+     * @param date - date to check
+     * @param timeslot - timeslot to check
+     * @return office or imaging appointment in that slot, null if there is none
+     */
+    public Appointment patientAt(Profile patient, Date date, Timeslot timeslot) {
+        Appointment appointment = officeAt(patient, date, timeslot);
+        return appointment != null ? appointment : imagingAt(patient, date, timeslot);
+    }
+
+    /**
+     * Gives every appointment at the date and timeslot of a patient whose names match ignoring case
+     *
+     * @param fname - patient's first name, in any case
+     * @param lname - patient's last name, in any case
+     * @param dob - patient's date of birth
+     * @param date - date to check
+     * @param timeslot - timeslot to check
+     * @return office and imaging appointments in that slot, empty if there are none
+     */
+    public Appointment[] patientsNamed(String fname, String lname, Date dob, Date date, Timeslot timeslot) {
+        Appointment[] named = namedSlots.get(new SlotKey(foldedName(fname, lname, dob), date, timeslot));
+        return named == null ? new Appointment[0] : named;
+    }
+
+    /**
+     * Marks the provider and patient of an appointment as busy
+     *
+     * @param appointment - appointment that was booked
+     */
+    public void add(Appointment appointment) {
+        providerSlots.put(providerKey(appointment), appointment);
+        patientSlots(appointment).put(patientKey(appointment), appointment);
+        name(appointment, appointment.getTimeslot());
+    }
+
+    /**
+     * Frees the provider and patient of an appointment
+     * Must be called before the appointment's date or timeslot is changed
+     *
+     * @param appointment - appointment that was canceled or is being moved
+     */
+    public void remove(Appointment appointment) {
+        providerSlots.remove(providerKey(appointment), appointment);
+        patientSlots(appointment).remove(patientKey(appointment), appointment);
+        unname(appointment, appointment.getTimeslot());
+    }
+
+    /**
+     * Moves the provider and patient of an appointment from an old timeslot to the appointment's timeslot
+     *
+     * @param appointment - appointment that was rescheduled
+     * @param from - timeslot it was booked at before
+     */
+    public void move(Appointment appointment, Timeslot from) {
+        providerSlots.remove(new SlotKey(appointment.getProvider(), appointment.getDate(), from), appointment);
+        patientSlots(appointment).remove(new SlotKey(appointment.getPatient().getProfile(), appointment.getDate(), from), appointment);
+        unname(appointment, from);
+        add(appointment);
+    }
+
+    /**
+     * Removes every entry from the index
+     */
+    public void clear() {
+        providerSlots.clear();
+        officeSlots.clear();
+        imagingSlots.clear();
+        namedSlots.clear();
+    }
+
+    /**
+     * Gives the number of booked provider slots
+     *
+     * @return size of the provider index
+     */
+    public int size() { return providerSlots.size(); }
+
+    /**
+     * Private helper to pick the patient map for the appointment type
+     *
+     * @param appointment - office or imaging appointment
+     * @return map for the appointment type
+     */
+    private ConcurrentHashMap<SlotKey, Appointment> patientSlots(Appointment appointment) {
+        return appointment instanceof Imaging ? imagingSlots : officeSlots;
+    }
+
+    /**
+     * Private helper to add an appointment to the entry of its patient's upper-cased name at a timeslot
+     * Patients whose names differ only in case share the entry and hold different stripes, so it is updated atomically
+     *
+     * @param appointment - appointment to add
+     * @param timeslot - timeslot of the entry
+     */
+    private void name(Appointment appointment, Timeslot timeslot) {
+        namedSlots.merge(namedKey(appointment, timeslot), new Appointment[]{appointment}, (named, added) -> {
+            Appointment[] grown = Arrays.copyOf(named, named.length + 1);
+            grown[named.length] = added[0];
+            return grown;
+        });
+    }
+
+    /**
+     * Private helper to remove an appointment from the entry of its patient's upper-cased name at a timeslot
+     *
+     * @param appointment - appointment to remove
+     * @param timeslot - timeslot of the entry
+     */
+    private void unname(Appointment appointment, Timeslot timeslot) {
+        namedSlots.computeIfPresent(namedKey(appointment, timeslot), (key, named) -> {
+            int at = 0;
+            while (at < named.length && named[at] != appointment) {
+                at++;
+            }
+            if (at == named.length) {
+                return named;
+            }
+            if (named.length == 1) {
+                return null;
+            }
+            Appointment[] shrunk = Arrays.copyOf(named, named.length - 1);
+            System.arraycopy(named, at + 1, shrunk, at, named.length - 1 - at);
+            return shrunk;
+        });
+    }
+
+    private static SlotKey namedKey(Appointment appointment, Timeslot timeslot) {
+        Profile profile = appointment.getPatient().getProfile();
+        return new SlotKey(foldedName(profile.getFname(), profile.getLname(), profile.getDob()), appointment.getDate(), timeslot);
+    }
+
+    private static String foldedName(String fname, String lname, Date dob) {
+        return fname.toUpperCase() + ',' + lname.toUpperCase() + ',' + dob.getEpochDay();
+    }
+
+    private static SlotKey providerKey(Appointment appointment) {
+        return new SlotKey(appointment.getProvider(), appointment.getDate(), appointment.getTimeslot());
+    }
+
+    private static SlotKey patientKey(Appointment appointment) {
+        return new SlotKey(appointment.getPatient().getProfile(), appointment.getDate(), appointment.getTimeslot());
+    }
+}
@@ -0,0 +1,69 @@
+package clinic;
+
+import org.junit.Before;
+import org.junit.Test;
+import util.Date;
+
+import static org.junit.Assert.*;
+
+public class OccupancyTest {
+
+    private Occupancy occupancy;
+    private Doctor doctor;
+    private Profile patientProfile;
+    private Date appDate;
+    private Timeslot slot;
+
+    @Before
+    public void setUp() {
+        occupancy = new Occupancy();
+        doctor = new Doctor(Location.BRIDGEWATER, new Profile("Andrew", "Patel", new Date(1989, 1, 21)), Specialty.FAMILY, "01");
+        patientProfile = new Profile("Jane", "Doe", new Date(2000, 8, 9));
+        appDate = new Date(2026, 11, 10);
+        slot = new Timeslot(10, 0);
+    }
+
+    @Test
+    public void testBookedSlotIsFoundByEqualKeys() {
+        Appointment appointment = new Appointment(appDate, slot, new Patient(patientProfile), doctor);
+        occupancy.add(appointment);
+
+        // Lookups use freshly built, equal profile/date/timeslot objects
+        Profile sameProfile = new Profile("Jane", "Doe", new Date(2000, 8, 9));
+        assertSame(appointment, occupancy.officeAt(sameProfile, new Date(2026, 11, 10), new Timeslot(10, 0)));
+        assertSame(appointment, occupancy.providerAt(doctor, new Date(2026, 11, 10), new Timeslot(10, 0)));
+        assertNull("Imaging index should not hold office visits", occupancy.imagingAt(sameProfile, appDate, slot));
+        assertNull(occupancy.providerAt(doctor, appDate, new Timeslot(10, 30)));
+    }
+
+    @Test
+    public void testRemoveFreesSlot() {
+        Appointment appointment = new Appointment(appDate, slot, new Patient(patientProfile), doctor);
+        occupancy.add(appointment);
+        occupancy.remove(appointment);
+        assertNull(occupancy.patientAt(patientProfile, appDate, slot));
+        assertNull(occupancy.providerAt(doctor, appDate, slot));
+        assertEquals(0, occupancy.size());
+    }
+
+    @Test
+    public void testPatientsNamedIgnoresCase() {
+        Appointment office = new Appointment(appDate, slot, new Patient(patientProfile), doctor);
+        Technician technician = new Technician(Location.EDISON, new Profile("Gary", "Johnson", new Date(1987, 11, 14)), 110);
+        Appointment imaging = new Imaging(appDate, slot, new Patient(new Profile("JANE", "DOE", new Date(2000, 8, 9))),
+                technician, Radiology.XRAY);
+        occupancy.add(office);
+        occupancy.add(imaging);
+
+        assertArrayEquals(new Appointment[]{office, imaging}, occupancy.patientsNamed("jane", "doe", new Date(2000, 8, 9), appDate, slot));
+        assertEquals(0, occupancy.patientsNamed("jane", "doe", new Date(2000, 8, 10), appDate, slot).length);
+
+        Timeslot later = new Timeslot(10, 30);
+        imaging.setTimeslot(later);
+        occupancy.move(imaging, slot);
+        assertArrayEquals(new Appointment[]{office}, occupancy.patientsNamed("Jane", "Doe", new Date(2000, 8, 9), appDate, slot));
+        assertArrayEquals(new Appointment[]{imaging}, occupancy.patientsNamed("Jane", "Doe", new Date(2000, 8, 9), appDate, later));
+        occupancy.remove(office);
+        assertEquals(0, occupancy.patientsNamed("Jane", "Doe", new Date(2000, 8, 9), appDate, slot).length);
+    }
+}
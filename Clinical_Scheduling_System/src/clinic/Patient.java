@@ -48,6 +48,15 @@ public class Patient extends Person {
      */
     public Visit getVisits() { return visits; }
 
+    /**
+     * Adds a visit to the front of the list of visits
+     *
+     * @param appointment the appointment that was booked
+     */
+    public void addVisit(Appointment appointment) {
+        visits = new Visit(appointment, visits);
+    }
+
     /**
      * Removes a visit from list of visits
      *
@@ -9,9 +9,10 @@ import util.Date;
  * @author Jasmine Saffold
  */
 public class Profile implements Comparable<Profile> {
-    private String fname;  // First name of the patient
-    private String lname;  // Last name of the patient
-    private Date dob;      // Date of birth of the patient
+    private final String fname;  // First name of the patient
+    private final String lname;  // Last name of the patient
+    private final Date dob;      // Date of birth of the patient
+    private final int hash;      // Hash of the three fields, computed once
 
     /**
      * Constructor to create a profile with the patient's first name, last name, and date of birth.
@@ -24,6 +25,10 @@ public class Profile implements Comparable<Profile> {
         this.fname = fname;
         this.lname = lname;
         this.dob = dob;
+
+        int h = fname.hashCode();
+        h = 31 * h + lname.hashCode();
+        this.hash = 31 * h + dob.hashCode();
     }
 
     /**
@@ -59,9 +64,18 @@ public class Profile implements Comparable<Profile> {
         if (obj == null || getClass() != obj.getClass()) return false;
 
         Profile other = (Profile) obj;
-        return this.fname.equals(other.fname) && this.lname.equals(other.lname) && this.dob.equals(other.dob);
+        return this.hash == other.hash && this.fname.equals(other.fname) && this.lname.equals(other.lname) && this.dob.equals(other.dob);
     }
 
+    /**
+     * Gives a hash code built from the same fields as equals()
+     * Precomputed in the constructor since profiles are hashed on every command
+     *
+     * @return hash of first name, last name, and date of birth
+     */
+    @Override
+    public int hashCode() { return hash; }
+
     /**
      * Returns a string representation of the profile, including the patient's full name and date of birth.
      *
@@ -49,4 +49,20 @@ public class ProfileTest {
         Profile p2 = new Profile("John", "Doe", new Date(1990, 6, 15));
         assertEquals("Expected p1 to be equal to p2", 0, p1.compareTo(p2));
     }
+
+    @Test
+    public void testEqualProfilesHashAlike() {
+        // Case 8: Equal profiles built separately must land in the same hash bucket
+        Profile p1 = new Profile("John", "Doe", new Date(1990, 6, 15));
+        Profile p2 = new Profile("John", "Doe", new Date(1990, 6, 15));
+        assertEquals(p1, p2);
+        assertEquals(p1.hashCode(), p2.hashCode());
+
+        MedicalRecord record = new MedicalRecord();
+        Patient first = record.register(new Patient(p1));
+        assertSame("Registering the same profile twice should keep the first patient",
+                first, record.register(new Patient(p2)));
+        assertSame(first, record.find(p2));
+        assertEquals(1, record.getSize());
+    }
 }
@@ -0,0 +1,168 @@
+package clinic;
+
+import util.List;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Directory of providers built once after the provider file is loaded
+ * Indexes doctors by NPI, and providers by specialty and location, for constant time lookups
+ * Every provider also gets an id, its position in provider order, with its rate kept by id
+ *
+ * @author Jasmine Saffold
+ */
+public class ProviderDirectory {
+    private final HashMap<String, Doctor> byNpi;
+    private final Provider[] byId;
+    private final int[] rates;                                   // rate of each provider by id
+    private final IdentityHashMap<Person, Integer> ids;
+    private final EnumMap<Specialty, List<Doctor>> bySpecialty = new EnumMap<>(Specialty.class);
+    private final EnumMap<Location, List<Provider>> byLocation = new EnumMap<>(Location.class);
+    private final EnumMap<Specialty, EnumMap<Location, List<Doctor>>> bySpecialtyAndLocation = new EnumMap<>(Specialty.class);
+    private final HashMap<String, EnumMap<Specialty, List<Doctor>>> byCounty = new HashMap<>();
+    private final List<Doctor> none = new List<>(); // shared empty result
+
+    /**
+     * Constructor, indexes every provider in the list
+     *
+     * @param providers - doctors and technicians
+     */
+    public ProviderDirectory(List<Provider> providers) {
+        this.byNpi = new HashMap<>(Math.max(16, providers.size() * 2));
+        this.byId = new Provider[providers.size()];
+        this.rates = new int[providers.size()];
+        this.ids = new IdentityHashMap<>(providers.size());
+
+        for (Specialty specialty : Specialty.values()) {
+            bySpecialty.put(specialty, new List<>());
+            EnumMap<Location, List<Doctor>> locations = new EnumMap<>(Location.class);
+            for (Location location : Location.values()) {
+                locations.put(location, new List<>());
+            }
+            bySpecialtyAndLocation.put(specialty, locations);
+        }
+        for (Location location : Location.values()) {
+            byLocation.put(location, new List<>());
+        }
+
+        for (int i = 0; i < providers.size(); i++) {
+            Provider provider = providers.get(i);
+            byId[i] = provider;
+            rates[i] = provider.rate();
+            ids.put(provider, i);
+            byLocation.get(provider.getLocation()).add(provider);
+
+            if (provider instanceof Doctor) {
+                Doctor doctor = (Doctor) provider;
+                byNpi.putIfAbsent(doctor.getNpi(), doctor); // a duplicated NPI finds the first doctor in provider order
+                bySpecialty.get(doctor.getSpecialty()).add(doctor);
+                bySpecialtyAndLocation.get(doctor.getSpecialty()).get(doctor.getLocation()).add(doctor);
+                byCounty.computeIfAbsent(doctor.getLocation().getCounty(), c -> new EnumMap<>(Specialty.class))
+                        .computeIfAbsent(doctor.getSpecialty(), sp -> new List<>()).add(doctor);
+            }
+        }
+    }
+
+    /**
+     * Finds a doctor by National Provider Identification
+     *
+     * @param npi - NPI from the command
+     * @return doctor with that NPI, null if there is none
+     */
+    public Doctor doctor(String npi) {
+        return byNpi.get(npi);
+    }
+
+    /**
+     * Gives the id of a provider
+     *
+     * @param provider - doctor or technician
+     * @return id, -1 if the provider isn't in the directory
+     */
+    public int id(Person provider) {
+        Integer id = ids.get(provider);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gives the provider with an id
+     *
+     * @param id - provider id
+     * @return provider
+     */
+    public Provider provider(int id) {
+        return byId[id];
+    }
+
+    /**
+     * Gives the rate of the provider with an id
+     *
+     * @param id - provider id
+     * @return rate per appointment
+     */
+    public int rate(int id) {
+        return rates[id];
+    }
+
+    /**
+     * Gives the number of providers
+     *
+     * @return number of doctors and technicians
+     */
+    public int providerCount() {
+        return byId.length;
+    }
+
+    /**
+     * Gives the doctors with a specialty
+     *
+     * @param specialty - specialty to look up
+     * @return doctors in provider order, do not modify
+     */
+    public List<Doctor> doctors(Specialty specialty) {
+        return bySpecialty.get(specialty);
+    }
+
+    /**
+     * Gives the doctors with a specialty at one location
+     *
+     * @param specialty - specialty to look up
+     * @param location - clinic location
+     * @return doctors in provider order, do not modify
+     */
+    public List<Doctor> doctors(Specialty specialty, Location location) {
+        return bySpecialtyAndLocation.get(specialty).get(location);
+    }
+
+    /**
+     * Gives the doctors with a specialty in a county
+     *
+     * @param specialty - specialty to look up
+     * @param county - county name, as in Location.getCounty()
+     * @return doctors in provider order, do not modify
+     */
+    public List<Doctor> doctors(Specialty specialty, String county) {
+        EnumMap<Specialty, List<Doctor>> specialties = byCounty.get(county);
+        List<Doctor> doctors = specialties == null ? null : specialties.get(specialty);
+        return doctors != null ? doctors : none;
+    }
+
+    /**
+     * Gives the doctors and technicians at one location
+     *
+     * @param location - clinic location
+     * @return providers in provider order, do not modify
+     */
+    public List<Provider> providers(Location location) {
+        return byLocation.get(location);
+    }
+
+    /**
+     * Gives the number of doctors in the directory
+     *
+     * @return number of NPIs
+     */
+    public int doctorCount() { return byNpi.size(); }
+}
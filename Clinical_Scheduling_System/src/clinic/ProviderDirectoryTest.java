@@ -0,0 +1,81 @@
+package clinic;
+
+import org.junit.Before;
+import org.junit.Test;
+import util.Date;
+import util.List;
+
+import static org.junit.Assert.*;
+
+public class ProviderDirectoryTest {
+
+    private ProviderDirectory directory;
+    private Doctor garyDoctor;
+    private Doctor benDoctor;
+    private Technician garyTechnician;
+    private Technician benTechnician;
+
+    @Before
+    public void setUp() {
+        garyDoctor = new Doctor(Location.EDISON, new Profile("GARY", "JOHNSON", new Date(1977, 12, 13)), Specialty.FAMILY, "85");
+        benDoctor = new Doctor(Location.PISCATAWAY, new Profile("BEN", "JERRY", new Date(1977, 12, 28)), Specialty.FAMILY, "77");
+        garyTechnician = new Technician(Location.PISCATAWAY, new Profile("GARY", "JOHNSON", new Date(1987, 11, 14)), 110);
+        benTechnician = new Technician(Location.PISCATAWAY, new Profile("BEN", "JERRY", new Date(1987, 9, 28)), 150);
+        List<Provider> providers = new List<>();
+        providers.add(garyDoctor);
+        providers.add(benDoctor);
+        providers.add(garyTechnician);
+        providers.add(benTechnician);
+        directory = new ProviderDirectory(providers);
+    }
+
+    @Test
+    public void testLookupByNpi() {
+        assertSame(garyDoctor, directory.doctor("85"));
+        assertSame(benDoctor, directory.doctor("77"));
+        assertNull(directory.doctor("99"));
+        assertNull(directory.doctor("085"));
+        assertEquals(2, directory.doctorCount());
+    }
+
+    @Test
+    public void testSameNamesGetTheirOwnIds() {
+        assertEquals(0, directory.id(garyDoctor));
+        assertEquals(1, directory.id(benDoctor));
+        assertEquals(2, directory.id(garyTechnician));
+        assertEquals(3, directory.id(benTechnician));
+        assertSame(garyTechnician, directory.provider(2));
+        assertEquals(110, directory.rate(2));
+        assertEquals(150, directory.rate(3));
+        assertEquals(4, directory.providerCount());
+    }
+
+    @Test
+    public void testMissingProvider() {
+        Technician stranger = new Technician(Location.PISCATAWAY, new Profile("GARY", "JOHNSON", new Date(1987, 11, 14)), 110);
+        assertEquals(-1, directory.id(stranger)); // an equal provider that was never loaded
+        assertEquals(0, directory.doctors(Specialty.ALLERGIST).size());
+        assertEquals(0, directory.doctors(Specialty.FAMILY, "Mercer").size());
+        assertEquals(0, directory.providers(Location.PRINCETON).size());
+    }
+
+    @Test
+    public void testLookupBySpecialtyAndPlace() {
+        assertEquals(2, directory.doctors(Specialty.FAMILY).size());
+        assertSame(benDoctor, directory.doctors(Specialty.FAMILY, Location.PISCATAWAY).get(0));
+        assertSame(garyDoctor, directory.doctors(Specialty.FAMILY, Location.EDISON.getCounty()).get(0));
+        List<Provider> piscataway = directory.providers(Location.PISCATAWAY);
+        assertEquals(3, piscataway.size());
+        assertSame(benDoctor, piscataway.get(0));
+        assertSame(garyTechnician, piscataway.get(1));
+    }
+
+    @Test
+    public void testDuplicatedNpiFindsTheFirstDoctor() {
+        Doctor again = new Doctor(Location.CLARK, new Profile("TOM", "KAUR", new Date(1972, 11, 5)), Specialty.ALLERGIST, "85");
+        List<Provider> providers = new List<>();
+        providers.add(garyDoctor);
+        providers.add(again);
+        assertSame(garyDoctor, new ProviderDirectory(providers).doctor("85"));
+    }
+}
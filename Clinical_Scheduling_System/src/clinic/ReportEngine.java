@@ -0,0 +1,214 @@
+package clinic;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join helpers for reports over very large schedules
+ * Report lines are formatted in parallel chunks and written in their original order, so the output is
+ * byte for byte what formatting them one after the other gives, and per-row sums are added up in
+ * parallel ranges and combined; below the size threshold everything runs on the calling thread
+ *
+ * @author Jasmine Saffold
+ */
+public class ReportEngine {
+    /**
+     * Reports with at least this many rows are formatted and summed in parallel by default
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 13;
+    /**
+     * Rows formatted or summed by one fork/join task
+     */
+    private static final int CHUNK = 1 << 10;
+    /**
+     * Line separator of the report lines
+     */
+    private static final String NL = System.lineSeparator();
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Formats one report line
+     */
+    public interface LineRenderer<T> {
+        /**
+         * Appends the line for a row, without the line separator
+         *
+         * @param index - position of the row in the report, from 0
+         * @param row - row to format
+         * @param line - receives the line
+         */
+        void render(int index, T row, StringBuilder line);
+    }
+
+    /**
+     * Adds one row into running totals
+     */
+    public interface RowAggregator {
+        /**
+         * Adds a row's contribution to the totals
+         *
+         * @param row - row number
+         * @param totals - totals of the rows seen so far by this task
+         */
+        void add(int row, long[] totals);
+    }
+
+    /**
+     * Constructor, uses the common fork/join pool and the default threshold
+     */
+    public ReportEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param pool - pool that runs the parallel tasks
+     * @param threshold - smallest report that is worked on in parallel
+     */
+    public ReportEngine(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gives the smallest report that is worked on in parallel
+     *
+     * @return threshold in rows
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Writes one line per row, each followed by the line separator
+     * Large reports are formatted a window of chunks at a time, so only a window is held in memory
+     *
+     * @param rows - rows in report order
+     * @param renderer - formats a row
+     * @param out - receives the lines
+     * @throws IOException if out cannot be written
+     */
+    public <T> void write(T[] rows, LineRenderer<? super T> renderer, Appendable out) throws IOException {
+        if (rows.length < threshold) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < rows.length; i++) {
+                line.setLength(0);
+                renderer.render(i, rows[i], line);
+                out.append(line).append(NL);
+            }
+            return;
+        }
+        int window = CHUNK * Math.max(1, pool.getParallelism()) * 4;
+        StringBuilder[] chunks = new StringBuilder[(window + CHUNK - 1) / CHUNK];
+        for (int start = 0; start < rows.length; start += window) {
+            int end = Math.min(rows.length, start + window);
+            pool.invoke(new RenderTask<T>(rows, renderer, start, start, end, chunks));
+            for (int c = 0; c * CHUNK < end - start; c++) {
+                out.append(chunks[c]);
+                chunks[c] = null;
+            }
+        }
+    }
+
+    /**
+     * Adds up per-row totals over rows 0 to rows - 1
+     *
+     * @param rows - number of rows
+     * @param width - number of totals
+     * @param aggregator - adds a row into the totals, must only read shared state
+     * @return totals of every row
+     */
+    public long[] aggregate(int rows, int width, RowAggregator aggregator) {
+        if (rows < threshold) {
+            long[] totals = new long[width];
+            for (int row = 0; row < rows; row++) {
+                aggregator.add(row, totals);
+            }
+            return totals;
+        }
+        return pool.invoke(new SumTask(aggregator, width, 0, rows));
+    }
+
+    /**
+     * Formats a range of rows, one StringBuilder per chunk
+     */
+    private static final class RenderTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] rows;
+        private final LineRenderer<? super T> renderer;
+        private final int window;
+        private final int lo;
+        private final int hi;
+        private final StringBuilder[] chunks;
+
+        RenderTask(T[] rows, LineRenderer<? super T> renderer, int window, int lo, int hi, StringBuilder[] chunks) {
+            this.rows = rows;
+            this.renderer = renderer;
+            this.window = window;
+            this.lo = lo;
+            this.hi = hi;
+            this.chunks = chunks;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > CHUNK) {
+                int mid = lo + Math.max(1, (hi - lo) / CHUNK / 2) * CHUNK; // split on a chunk boundary
+                invokeAll(new RenderTask<T>(rows, renderer, window, lo, mid, chunks),
+                        new RenderTask<T>(rows, renderer, window, mid, hi, chunks));
+                return;
+            }
+            StringBuilder chunk = new StringBuilder((hi - lo) * 96);
+            for (int i = lo; i < hi; i++) {
+                renderer.render(i, rows[i], chunk);
+                chunk.append(NL);
+            }
+            chunks[(lo - window) / CHUNK] = chunk;
+        }
+    }
+
+    /**
+     * Adds up a range of rows, halves are summed separately and combined
+     */
+    private static final class SumTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final RowAggregator aggregator;
+        private final int width;
+        private final int lo;
+        private final int hi;
+
+        SumTask(RowAggregator aggregator, int width, int lo, int hi) {
+            this.aggregator = aggregator;
+            this.width = width;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hi - lo <= CHUNK * 8) {
+                long[] totals = new long[width];
+                for (int row = lo; row < hi; row++) {
+                    aggregator.add(row, totals);
+                }
+                return totals;
+            }
+            int mid = (lo + hi) >>> 1;
+            SumTask right = new SumTask(aggregator, width, mid, hi);
+            right.fork();
+            long[] totals = new SumTask(aggregator, width, lo, mid).compute();
+            long[] other = right.join();
+            for (int i = 0; i < width; i++) {
+                totals[i] += other[i];
+            }
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package clinic;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ReportEngineTest {
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testParallelOutputAndSumsMatchSequential() throws Exception {
+        Integer[] rows = new Integer[10_000]; // several windows of several chunks, last chunk partial
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i * 7 % 1_000;
+        }
+        ReportEngine.LineRenderer<Integer> renderer = (i, row, line) -> line.append('(').append(i + 1).append(") ").append(row);
+        StringBuilder sequential = new StringBuilder();
+        new ReportEngine(pool, Integer.MAX_VALUE).write(rows, renderer, sequential);
+        StringBuilder parallel = new StringBuilder();
+        new ReportEngine(pool, 1).write(rows, renderer, parallel);
+        assertEquals(sequential.toString(), parallel.toString());
+
+        ReportEngine.RowAggregator byValue = (row, totals) -> totals[rows[row] % 10] += rows[row];
+        assertArrayEquals(new ReportEngine(pool, Integer.MAX_VALUE).aggregate(rows.length, 10, byValue),
+                new ReportEngine(pool, 1).aggregate(rows.length, 10, byValue));
+    }
+
+    @Test
+    public void testParallelReportsAreByteIdentical() throws Exception {
+        SchedulingEngine sequential = new SchedulingEngine(new ReportEngine(pool, Integer.MAX_VALUE));
+        SchedulingEngine parallel = new SchedulingEngine(new ReportEngine(pool, 1));
+        ClinicFixture.load(sequential, parallel);
+        for (int d = 0; d < 5; d++) {
+            String day = ClinicFixture.day(d);
+            for (int slot = 1; slot <= 12; slot++) {
+                for (String command : new String[]{
+                        "D," + day + "," + slot + ",P" + (slot * 5 + d) % 17 + ",Doe,1/1/1990," + (slot % 2 == 0 ? "01" : "54"),
+                        "T," + day + "," + slot + ",Q" + (slot + d) % 11 + ",Roe,2/2/1992," + (slot % 3 == 0 ? "CATSCAN" : "XRAY")}) {
+                    assertEquals(sequential.execute(command, new StringBuilder()).toString(),
+                            parallel.execute(command, new StringBuilder()).toString());
+                }
+            }
+        }
+        for (String report : new String[]{"PA", "PP", "PL", "PO", "PI", "PS", "PC"}) {
+            StringBuilder expected = new StringBuilder();
+            StringBuilder actual = new StringBuilder();
+            sequential.execute(report, expected);
+            parallel.execute(report, actual);
+            assertTrue(report, expected.length() > 100);
+            assertEquals(report, expected.toString(), actual.toString());
+        }
+        assertEquals(Result.Status.OK, parallel.execute("PS,VERIFY", new StringBuilder()).getStatus());
+        assertEquals(Result.Status.OK, parallel.execute("PC,VERIFY", new StringBuilder()).getStatus());
+    }
+}
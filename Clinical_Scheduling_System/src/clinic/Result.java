@@ -0,0 +1,106 @@
+package clinic;
+
+/**
+ * Outcome of one scheduling command, returned by SchedulingEngine instead of printing
+ * The message is what the console prints for the command, null if it prints nothing
+ *
+ * @author Jasmine Saffold
+ */
+public final class Result {
+
+    /**
+     * How a command ended
+     */
+    public enum Status {
+        /**
+         * The command was carried out
+         */
+        OK,
+        /**
+         * The command was valid but the patient, provider or room is already taken
+         */
+        CONFLICT,
+        /**
+         * The command was malformed, invalid or refers to something that doesn't exist
+         */
+        REJECTED
+    }
+
+    private static final Result SILENT_OK = new Result(Status.OK, null);
+    private static final Result SILENT_REJECTED = new Result(Status.REJECTED, null);
+
+    private final Status status;
+    private final String message;
+
+    /**
+     * Private constructor, results are made with ok(), conflict() and rejected()
+     *
+     * @param status - outcome
+     * @param message - console text, null for none
+     */
+    private Result(Status status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * Gives a result for a command that was carried out
+     *
+     * @param message - console text, null for none
+     * @return result
+     */
+    public static Result ok(String message) {
+        return message == null ? SILENT_OK : new Result(Status.OK, message);
+    }
+
+    /**
+     * Gives a result for a command that clashed with an existing appointment
+     *
+     * @param message - console text
+     * @return result
+     */
+    public static Result conflict(String message) {
+        return new Result(Status.CONFLICT, message);
+    }
+
+    /**
+     * Gives a result for a command that was refused
+     *
+     * @param message - console text, null for none
+     * @return result
+     */
+    public static Result rejected(String message) {
+        return message == null ? SILENT_REJECTED : new Result(Status.REJECTED, message);
+    }
+
+    /**
+     * Gives the outcome
+     *
+     * @return status
+     */
+    public Status getStatus() { return status; }
+
+    /**
+     * Gives the console text, lines are separated by the platform line separator
+     *
+     * @return message, null if the command prints nothing
+     */
+    public String getMessage() { return message; }
+
+    /**
+     * Checks if the command was carried out
+     *
+     * @return true if the status is OK
+     */
+    public boolean isOk() { return status == Status.OK; }
+
+    /**
+     * Gives the status and message
+     *
+     * @return string
+     */
+    @Override
+    public String toString() {
+        return message == null ? status.name() : status + ": " + message;
+    }
+}
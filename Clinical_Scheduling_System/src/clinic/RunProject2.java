@@ -1,6 +1,6 @@
 package clinic;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
 
 /**
  * Runs project 2
@@ -14,7 +14,7 @@ public class RunProject2 {
      *
      * @param args - arguments from user input
      */
-    public static void main(String[] args) throws FileNotFoundException {
-        new ClinicManager().run();
+    public static void main(String[] args) throws IOException {
+        ClinicManager.main(args);
     }
 }
@@ -0,0 +1,349 @@
+package clinic;
+
+import util.Date;
+import util.List;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Memory-mapped file of fixed-width appointment records, so the schedule survives a restart
+ * Canceled records go on a free list and are reused by the next booking
+ * Patients are appended to a side file (the store path plus ".patients"), one profile per line,
+ * and a patient's line number is its id in the medical record
+ *
+ * @author Jasmine Saffold
+ */
+public class ScheduleFile implements Closeable {
+    /**
+     * File signature, "CSS1"
+     */
+    private static final int MAGIC = 0x43535331;
+    /**
+     * Bytes in the header
+     */
+    private static final int HEADER = 32;
+    /**
+     * Bytes in one appointment record
+     */
+    private static final int RECORD = 24;
+    /**
+     * Records the file is created with
+     */
+    private static final int INIT_CAPACITY = 1024;
+    /**
+     * Marks the end of the free list and "no rotation yet"
+     */
+    private static final int NONE = -1;
+    /**
+     * Record state of a free record
+     */
+    private static final byte FREE = 0;
+    /**
+     * Record state of a booked record
+     */
+    private static final byte BOOKED = 1;
+
+    // header offsets
+    private static final int H_MAGIC = 0;
+    private static final int H_HIGH_WATER = 4;  // records ever used
+    private static final int H_FREE_HEAD = 8;   // first free record, NONE if the free list is empty
+    private static final int H_BOOKED = 12;     // booked records
+    private static final int H_ROSTER = 16;     // hash of the provider roster the ids refer to
+    private static final int H_ROTATION = 20;   // provider id of the technician last rotated past
+
+    // record offsets
+    private static final int R_STATE = 0;
+    private static final int R_SLOT = 1;
+    private static final int R_ROOM = 2;
+    private static final int R_DAY = 4;         // epoch day, or the next free record when FREE
+    private static final int R_PATIENT = 8;
+    private static final int R_PROVIDER = 12;
+    private static final int R_SEQUENCE = 16;
+
+    private final FileChannel channel;
+    private final BufferedWriter patientWriter;
+    private final List<Profile> patients = new List<>();           // profiles from the side file
+    private final IdentityHashMap<Appointment, Integer> rowOf = new IdentityHashMap<>();
+    private MappedByteBuffer buffer;
+    private int capacity;
+
+    /**
+     * Opens a store, creating it if it doesn't exist
+     *
+     * @param path - store file
+     * @param roster - hash of the loaded provider roster, see rosterHash()
+     * @throws IOException if the files cannot be opened, or the store was written for another roster
+     */
+    public ScheduleFile(Path path, int roster) throws IOException {
+        Path patientPath = Paths.get(path.toString() + ".patients");
+        boolean created = !Files.exists(path) || Files.size(path) < HEADER;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (created) {
+            map(INIT_CAPACITY);
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_HIGH_WATER, 0);
+            buffer.putInt(H_FREE_HEAD, NONE);
+            buffer.putInt(H_BOOKED, 0);
+            buffer.putInt(H_ROSTER, roster);
+            buffer.putInt(H_ROTATION, NONE);
+            Files.deleteIfExists(patientPath); // a new store starts with no patients
+        } else {
+            map((int) ((channel.size() - HEADER) / RECORD));
+            if (buffer.getInt(H_MAGIC) != MAGIC) {
+                channel.close();
+                throw new IOException(path + " is not an appointment store.");
+            }
+            if (buffer.getInt(H_ROSTER) != roster) {
+                channel.close();
+                throw new IOException(path + " was written for a different provider list.");
+            }
+        }
+        if (Files.exists(patientPath)) {
+            for (String line : Files.readAllLines(patientPath, StandardCharsets.UTF_8)) {
+                String[] tokens = line.split(",");
+                String[] mdy = tokens[2].split("/");
+                patients.add(new Profile(tokens[0], tokens[1],
+                        Date.of(Integer.parseInt(mdy[2]), Integer.parseInt(mdy[0]), Integer.parseInt(mdy[1]))));
+            }
+        }
+        this.patientWriter = Files.newBufferedWriter(patientPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Hashes the providers in id order, a store can only be reopened with the same roster
+     *
+     * @param providers - provider directory
+     * @return roster hash
+     */
+    public static int rosterHash(ProviderDirectory providers) {
+        int hash = providers.providerCount();
+        for (int id = 0; id < providers.providerCount(); id++) {
+            Provider provider = providers.provider(id);
+            hash = 31 * hash + provider.getProfile().hashCode();
+            hash = 31 * hash + provider.rate();
+        }
+        return hash;
+    }
+
+    /**
+     * Gives the patients in the side file, in id order
+     *
+     * @return patient profiles, do not modify
+     */
+    public List<Profile> patients() {
+        return patients;
+    }
+
+    /**
+     * Appends a newly registered patient to the side file
+     * Patients must be appended in the order they are registered
+     *
+     * @param profile - profile of the new patient
+     * @throws IOException if the side file cannot be written
+     */
+    public void addPatient(Profile profile) throws IOException {
+        patientWriter.write(profile.getFname() + "," + profile.getLname() + "," + profile.getDob());
+        patientWriter.newLine();
+        patientWriter.flush();
+        patients.add(profile);
+    }
+
+    /**
+     * Gives the booked records in booking order
+     *
+     * @return record numbers sorted by sequence
+     */
+    public int[] bookedRows() {
+        int highWater = buffer.getInt(H_HIGH_WATER);
+        long[] keys = new long[highWater];
+        int count = 0;
+        for (int row = 0; row < highWater; row++) {
+            int at = offset(row);
+            if (buffer.get(at + R_STATE) == BOOKED) {
+                keys[count++] = (buffer.getLong(at + R_SEQUENCE) << 32) | row;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        buffer.putInt(H_BOOKED, count); // the state bytes are the truth if the count was not updated
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+    }
+
+    /**
+     * Gives the epoch day of a record
+     *
+     * @param row - record number
+     * @return days since 01/01/1970
+     */
+    public int epochDay(int row) { return buffer.getInt(offset(row) + R_DAY); }
+
+    /**
+     * Gives the slot ordinal of a record
+     *
+     * @param row - record number
+     * @return slot ordinal
+     */
+    public int slot(int row) { return buffer.get(offset(row) + R_SLOT); }
+
+    /**
+     * Gives the room ordinal of a record
+     *
+     * @param row - record number
+     * @return room ordinal, AppointmentStore.NO_ROOM for office appointments
+     */
+    public int room(int row) { return buffer.get(offset(row) + R_ROOM); }
+
+    /**
+     * Gives the patient id of a record
+     *
+     * @param row - record number
+     * @return patient id
+     */
+    public int patientId(int row) { return buffer.getInt(offset(row) + R_PATIENT); }
+
+    /**
+     * Gives the provider id of a record
+     *
+     * @param row - record number
+     * @return provider id
+     */
+    public int providerId(int row) { return buffer.getInt(offset(row) + R_PROVIDER); }
+
+    /**
+     * Ties a restored appointment to its record, renumbering the record with the appointment's sequence
+     *
+     * @param appointment - appointment rebuilt from the record
+     * @param row - record number
+     */
+    public void bind(Appointment appointment, int row) {
+        buffer.putLong(offset(row) + R_SEQUENCE, appointment.getSequence());
+        rowOf.put(appointment, row);
+    }
+
+    /**
+     * Writes a record for a booked appointment, reusing a free record if there is one
+     *
+     * @param appointment - appointment that was booked
+     * @param patientId - id of the patient in the medical record
+     * @param providerId - id of the provider in the directory
+     */
+    public void book(Appointment appointment, int patientId, int providerId) {
+        int row = buffer.getInt(H_FREE_HEAD);
+        if (row != NONE) {
+            buffer.putInt(H_FREE_HEAD, buffer.getInt(offset(row) + R_DAY));
+        } else {
+            row = buffer.getInt(H_HIGH_WATER);
+            if (row == capacity) {
+                map(capacity * 2);
+            }
+            buffer.putInt(H_HIGH_WATER, row + 1);
+        }
+        int at = offset(row);
+        buffer.put(at + R_SLOT, (byte) appointment.getTimeslot().getOrdinal());
+        buffer.put(at + R_ROOM, appointment instanceof Imaging
+                ? (byte) ((Imaging) appointment).getRoom().ordinal() : AppointmentStore.NO_ROOM);
+        buffer.putInt(at + R_DAY, appointment.getDate().getEpochDay());
+        buffer.putInt(at + R_PATIENT, patientId);
+        buffer.putInt(at + R_PROVIDER, providerId);
+        buffer.putLong(at + R_SEQUENCE, appointment.getSequence());
+        buffer.put(at + R_STATE, BOOKED); // written last, so a half-written record stays free
+        buffer.putInt(H_BOOKED, buffer.getInt(H_BOOKED) + 1);
+        rowOf.put(appointment, row);
+    }
+
+    /**
+     * Frees the record of a canceled appointment
+     *
+     * @param appointment - appointment that was canceled
+     */
+    public void release(Appointment appointment) {
+        Integer row = rowOf.remove(appointment);
+        if (row == null) {
+            return;
+        }
+        int at = offset(row);
+        buffer.put(at + R_STATE, FREE);
+        buffer.putInt(at + R_DAY, buffer.getInt(H_FREE_HEAD));
+        buffer.putInt(H_FREE_HEAD, row);
+        buffer.putInt(H_BOOKED, buffer.getInt(H_BOOKED) - 1);
+    }
+
+    /**
+     * Gives the technician the rotation last moved past
+     *
+     * @return provider id, -1 if no imaging appointment was booked yet
+     */
+    public int rotation() {
+        return buffer.getInt(H_ROTATION);
+    }
+
+    /**
+     * Records the technician the rotation last moved past
+     *
+     * @param providerId - id of the technician
+     */
+    public void setRotation(int providerId) {
+        buffer.putInt(H_ROTATION, providerId);
+    }
+
+    /**
+     * Gives the number of booked records
+     *
+     * @return booked records
+     */
+    public int size() {
+        return buffer.getInt(H_BOOKED);
+    }
+
+    /**
+     * Writes the mapped records to disk and closes the files
+     *
+     * @throws IOException if the files cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        patientWriter.close();
+        channel.close();
+    }
+
+    /**
+     * Private helper for the byte offset of a record
+     *
+     * @param row - record number
+     * @return offset in the file
+     */
+    private static int offset(int row) {
+        return HEADER + row * RECORD;
+    }
+
+    /**
+     * Private helper to map the file with room for a number of records, growing the file if needed
+     *
+     * @param records - record capacity
+     */
+    private void map(int records) {
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, offset(records));
+            capacity = records;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map the appointment store.", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package clinic;
+
+import org.junit.Test;
+import util.Date;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class ScheduleFileTest {
+
+    @Test
+    public void testRecordsSurviveReopenAndFreeRecordsAreReused() throws Exception {
+        Path path = Files.createTempFile("schedule", ".db");
+        Files.delete(path);
+        Doctor doctor = new Doctor(Location.BRIDGEWATER, new Profile("Andrew", "Patel", new Date(1989, 1, 21)), Specialty.FAMILY, "01");
+        Patient patient = new Patient(new Profile("Jane", "Doe", new Date(2000, 8, 9)));
+        Appointment first = new Appointment(new Date(2026, 11, 10), Timeslot.of(1), patient, doctor);
+        Appointment second = new Appointment(new Date(2026, 11, 10), Timeslot.of(2), patient, doctor);
+        Appointment third = new Appointment(new Date(2026, 11, 11), Timeslot.of(3), patient, doctor);
+        try {
+            ScheduleFile file = new ScheduleFile(path, 7);
+            file.addPatient(patient.getProfile());
+            file.book(first, 0, 0);
+            file.book(second, 0, 0);
+            file.release(first);
+            file.book(third, 0, 0); // takes the record first left
+            file.setRotation(3);
+            file.close();
+
+            ScheduleFile reopened = new ScheduleFile(path, 7);
+            int[] rows = reopened.bookedRows();
+            assertEquals(2, rows.length);
+            assertEquals(1, rows[0]); // second was booked before third
+            assertEquals(0, rows[1]);
+            assertEquals(new Date(2026, 11, 11).getEpochDay(), reopened.epochDay(rows[1]));
+            assertEquals(2, reopened.slot(rows[1]));
+            assertEquals(patient.getProfile(), reopened.patients().get(0));
+            assertEquals(3, reopened.rotation());
+            reopened.close();
+
+            try {
+                new ScheduleFile(path, 8);
+                fail("a store for another roster must not open");
+            } catch (java.io.IOException expected) {
+                // different provider list
+            }
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(Paths.get(path + ".patients"));
+        }
+    }
+}
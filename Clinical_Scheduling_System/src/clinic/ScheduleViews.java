@@ -0,0 +1,405 @@
+package clinic;
+
+import util.List;
+import util.Sort;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Sorted views of the schedule that are kept in order as appointments are booked, canceled and moved
+ * Reports iterate a view instead of sorting the appointment list
+ * Appointments with equal sort keys are kept in the order they were made
+ *
+ * @author Jasmine Saffold
+ */
+public class ScheduleViews {
+    private ConcurrentSkipListMap<Appointment, Boolean> byDate = new ConcurrentSkipListMap<>(order('d'));     // date/time/provider
+    private ConcurrentSkipListMap<Appointment, Boolean> byPatient = new ConcurrentSkipListMap<>(order('p'));  // patient/date/time
+    private final CountyPartitions byCounty = new CountyPartitions();                                          // county/date/time
+    private ConcurrentSkipListMap<Appointment, Boolean> byProvider = new ConcurrentSkipListMap<>(order('r')); // provider/date/time
+
+    /**
+     * Private helper to make a view's ordering total
+     *
+     * @param key - sort key from Sort.comparator()
+     * @return comparator that breaks ties by booking order
+     */
+    private static Comparator<Appointment> order(char key) {
+        return Sort.comparator(key).thenComparingLong(Appointment::getSequence);
+    }
+
+    /**
+     * Adds a booked appointment to every view
+     *
+     * @param appointment - appointment to add
+     */
+    public void add(Appointment appointment) {
+        byDate.put(appointment, Boolean.TRUE);
+        byPatient.put(appointment, Boolean.TRUE);
+        byCounty.add(appointment);
+        byProvider.put(appointment, Boolean.TRUE);
+    }
+
+    /**
+     * Fills empty views with many appointments at once
+     * Each view is sorted once and built from the sorted run in one pass, instead of one search per appointment
+     *
+     * @param appointments - appointments to add
+     * @throws IllegalStateException if the views are not empty
+     */
+    public void addAll(List<Appointment> appointments) {
+        if (!byDate.isEmpty()) {
+            throw new IllegalStateException("Views must be empty to be bulk loaded.");
+        }
+        Appointment[] rows = new Appointment[appointments.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = appointments.get(i);
+        }
+        Arrays.sort(rows, Comparator.comparingLong(Appointment::getSequence)); // row number is now booking order
+        byDate = build(rows, 'd');
+        byPatient = build(rows, 'p');
+        byCounty.addAll(sorted(rows, 'l'));
+        byProvider = build(rows, 'r');
+    }
+
+    /**
+     * Private helper to sort the rows and build a view from them
+     *
+     * @param rows - appointments in booking order
+     * @param key - 'd', 'p' or 'r'
+     * @return view holding every row
+     */
+    private static ConcurrentSkipListMap<Appointment, Boolean> build(Appointment[] rows, char key) {
+        return new ConcurrentSkipListMap<>(new SortedRun(sorted(rows, key), order(key))); // a SortedMap source is linked in without comparisons
+    }
+
+    /**
+     * Private helper to sort the rows in a view's order
+     * Sorts packed primitive keys when they fit in a long, otherwise sorts with the view comparator
+     *
+     * @param rows - appointments in booking order
+     * @param key - 'd', 'p', 'l' or 'r'
+     * @return new array of the rows in order
+     */
+    private static Appointment[] sorted(Appointment[] rows, char key) {
+        Comparator<Appointment> order = order(key);
+        long[] keys = packedKeys(rows, key);
+        Appointment[] sorted;
+        if (keys != null) {
+            Arrays.sort(keys);
+            long rowMask = (1L << bits(rows.length)) - 1;
+            sorted = new Appointment[rows.length];
+            for (int i = 0; i < keys.length; i++) {
+                sorted[i] = rows[(int) (keys[i] & rowMask)];
+            }
+        } else {
+            sorted = rows.clone();
+            Arrays.sort(sorted, order);
+        }
+        return sorted;
+    }
+
+    /**
+     * Private helper to pack each row's sort fields and row number into one long
+     * The fields are the ones Sort.comparator() compares, with provider names and counties replaced by their rank,
+     * and the row number last so equal fields stay in booking order
+     * The patient order is left to the comparator, ranking as many patients as rows costs as much as sorting
+     *
+     * @param rows - appointments in booking order
+     * @param key - 'd', 'p', 'l' or 'r'
+     * @return packed keys, null if they would not fit in 63 bits or the key is 'p'
+     */
+    private static long[] packedKeys(Appointment[] rows, char key) {
+        if (rows.length == 0 || key == 'p') {
+            return null;
+        }
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        for (Appointment row : rows) {
+            if (row.getTimeslot().getOrdinal() == Timeslot.NO_SLOT) {
+                return null;
+            }
+            minDay = Math.min(minDay, row.getDate().getEpochDay());
+            maxDay = Math.max(maxDay, row.getDate().getEpochDay());
+        }
+        IdentityHashMap<Object, Integer> ranks;
+        switch (key) {
+            case 'd':
+                ranks = ranks(rows, Appointment::getProvider, Comparator.comparing((Person p) -> p.getProfile().getLname())
+                        .thenComparing(p -> p.getProfile().getFname()));
+                break;
+            case 'r':
+                ranks = ranks(rows, Appointment::getProvider, Comparator.comparing((Person p) -> p.getProfile().getLname()));
+                break;
+            default:
+                ranks = ranks(rows, Appointment::getLocation, Comparator.comparing(Location::getCounty));
+                break;
+        }
+        int rankBits = bits(ranks.size());
+        int dayBits = bits(maxDay - minDay + 1);
+        int slotBits = bits(Timeslot.SLOTS);
+        int rowBits = bits(rows.length);
+        if (rankBits + dayBits + slotBits + rowBits > 63) {
+            return null;
+        }
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            Appointment row = rows[i];
+            long when = ((long) (row.getDate().getEpochDay() - minDay) << slotBits) | row.getTimeslot().getOrdinal();
+            long packed;
+            switch (key) {
+                case 'd':
+                    packed = (when << rankBits) | ranks.get(row.getProvider());
+                    break;
+                case 'r':
+                    packed = ((long) ranks.get(row.getProvider()) << (dayBits + slotBits)) | when;
+                    break;
+                default:
+                    packed = ((long) ranks.get(row.getLocation()) << (dayBits + slotBits)) | when;
+                    break;
+            }
+            keys[i] = (packed << rowBits) | i;
+        }
+        return keys;
+    }
+
+    /**
+     * Private helper to rank the distinct owners of the rows, owners that compare equal share a rank
+     *
+     * @param rows - appointments
+     * @param owner - gives the object ranked for a row
+     * @param order - order of the owners
+     * @return dense rank of each owner by identity
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> IdentityHashMap<Object, Integer> ranks(Appointment[] rows, Function<Appointment, ? extends T> owner,
+                                                              Comparator<? super T> order) {
+        IdentityHashMap<Object, Integer> ranks = new IdentityHashMap<>();
+        for (Appointment row : rows) {
+            ranks.putIfAbsent(owner.apply(row), 0);
+        }
+        Object[] distinct = ranks.keySet().toArray();
+        Arrays.sort(distinct, (a, b) -> order.compare((T) a, (T) b));
+        int rank = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i > 0 && order.compare((T) distinct[i - 1], (T) distinct[i]) != 0) {
+                rank++;
+            }
+            ranks.put(distinct[i], rank);
+        }
+        return ranks;
+    }
+
+    /**
+     * Private helper for the bits needed to hold the values 0 to count - 1
+     *
+     * @param count - number of values
+     * @return bits, at least 1
+     */
+    private static int bits(int count) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, count - 1)));
+    }
+
+    /**
+     * Read-only sorted map over a slice of a sorted array, every row maps to TRUE
+     * ConcurrentSkipListMap links a SortedMap source in without comparing its keys, which is how the views are
+     * bulk loaded; sub maps are narrower slices of the same array and lookups are binary searches
+     */
+    static final class SortedRun extends AbstractMap<Appointment, Boolean> implements SortedMap<Appointment, Boolean> {
+        private final Appointment[] rows;
+        private final int lo;   // first row of the slice
+        private final int hi;   // one past the last row of the slice
+        private final Comparator<Appointment> order;
+
+        /**
+         * Constructor for a run over a whole array
+         *
+         * @param rows - rows sorted by order, not copied
+         * @param order - order of the rows
+         */
+        SortedRun(Appointment[] rows, Comparator<Appointment> order) {
+            this(rows, 0, rows.length, order);
+        }
+
+        /**
+         * Constructor for a run over rows lo to hi - 1
+         *
+         * @param rows - rows sorted by order, not copied
+         * @param lo - first row
+         * @param hi - one past the last row
+         * @param order - order of the rows
+         */
+        private SortedRun(Appointment[] rows, int lo, int hi, Comparator<Appointment> order) {
+            this.rows = rows;
+            this.lo = lo;
+            this.hi = hi;
+            this.order = order;
+        }
+
+        @Override
+        public Set<Entry<Appointment, Boolean>> entrySet() {
+            return new AbstractSet<Entry<Appointment, Boolean>>() {
+                @Override
+                public Iterator<Entry<Appointment, Boolean>> iterator() {
+                    return new Iterator<Entry<Appointment, Boolean>>() {
+                        private int next = lo;
+
+                        @Override
+                        public boolean hasNext() { return next < hi; }
+
+                        @Override
+                        public Entry<Appointment, Boolean> next() {
+                            if (next >= hi) {
+                                throw new NoSuchElementException();
+                            }
+                            return new SimpleImmutableEntry<>(rows[next++], Boolean.TRUE);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() { return hi - lo; }
+            };
+        }
+
+        @Override
+        public int size() { return hi - lo; }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (!(key instanceof Appointment)) {
+                return false;
+            }
+            int i = lowerBound((Appointment) key);
+            return i < hi && order.compare(rows[i], (Appointment) key) == 0;
+        }
+
+        @Override
+        public Boolean get(Object key) {
+            return containsKey(key) ? Boolean.TRUE : null;
+        }
+
+        @Override
+        public Comparator<? super Appointment> comparator() { return order; }
+
+        @Override
+        public SortedMap<Appointment, Boolean> subMap(Appointment from, Appointment to) {
+            if (order.compare(from, to) > 0) {
+                throw new IllegalArgumentException("from is after to");
+            }
+            return new SortedRun(rows, lowerBound(from), lowerBound(to), order);
+        }
+
+        @Override
+        public SortedMap<Appointment, Boolean> headMap(Appointment to) {
+            return new SortedRun(rows, lo, lowerBound(to), order);
+        }
+
+        @Override
+        public SortedMap<Appointment, Boolean> tailMap(Appointment from) {
+            return new SortedRun(rows, lowerBound(from), hi, order);
+        }
+
+        @Override
+        public Appointment firstKey() {
+            if (lo == hi) {
+                throw new NoSuchElementException();
+            }
+            return rows[lo];
+        }
+
+        @Override
+        public Appointment lastKey() {
+            if (lo == hi) {
+                throw new NoSuchElementException();
+            }
+            return rows[hi - 1];
+        }
+
+        /**
+         * Private helper for the first row of the slice at or after a key
+         *
+         * @param key - appointment to look for
+         * @return row index from lo to hi
+         */
+        private int lowerBound(Appointment key) {
+            int low = lo;
+            int high = hi;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (order.compare(rows[mid], key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Removes an appointment from every view
+     * Must be called before the appointment's timeslot is changed
+     *
+     * @param appointment - appointment to remove
+     */
+    public void remove(Appointment appointment) {
+        byDate.remove(appointment);
+        byPatient.remove(appointment);
+        byCounty.remove(appointment);
+        byProvider.remove(appointment);
+    }
+
+    /**
+     * Gives the county partitions behind the 'l', 'o' and 'i' orders, with their counts and revenue
+     *
+     * @return partitions, do not modify
+     */
+    public CountyPartitions partitions() {
+        return byCounty;
+    }
+
+    /**
+     * Removes every appointment from the views
+     */
+    public void clear() {
+        byDate.clear();
+        byPatient.clear();
+        byCounty.clear();
+        byProvider.clear();
+    }
+
+    /**
+     * Gives the appointments in the order of a sort key
+     * Keys 'l', 'o' and 'i' merge the county partitions, 'o' and 'i' only hold their own appointment type
+     *
+     * @param key - 'd', 'p', 'l', 'r', 'o' or 'i'
+     * @return appointments in order, do not modify
+     */
+    public Iterable<Appointment> ordered(char key) {
+        switch (key) {
+            case 'd':
+                return byDate.keySet();
+            case 'p':
+                return byPatient.keySet();
+            case 'r':
+                return byProvider.keySet();
+            case 'l':
+            case 'o':
+            case 'i':
+                return byCounty.ordered(key);
+            default:
+                throw new IllegalArgumentException("Invalid sort key.");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package clinic;
+
+import org.junit.Test;
+import util.Date;
+import util.List;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.Assert.*;
+
+public class ScheduleViewsTest {
+
+    @Test
+    public void testBulkLoadMatchesIncrementalOrder() {
+        Provider[] providers = {
+                new Doctor(Location.EDISON, new Profile("Gary", "Johnson", new Date(1977, 12, 13)), Specialty.FAMILY, "01"),
+                new Doctor(Location.PISCATAWAY, new Profile("Gary", "Johnson", new Date(1987, 11, 14)), Specialty.ALLERGIST, "02"),
+                new Doctor(Location.CLARK, new Profile("Ben", "Jerry", new Date(1977, 12, 28)), Specialty.FAMILY, "03"),
+                new Technician(Location.EDISON, new Profile("Jenny", "Patel", new Date(1991, 8, 9)), 125)};
+        Random random = new Random(42);
+        List<Appointment> appointments = new List<>();
+        ScheduleViews incremental = new ScheduleViews();
+        for (int i = 0; i < 500; i++) {
+            Patient patient = new Patient(new Profile("P" + random.nextInt(40), "Doe", new Date(2000, 1, 1)));
+            Date date = new Date(2026, 11, 2 + random.nextInt(20));
+            Timeslot slot = Timeslot.of(1 + random.nextInt(Timeslot.SLOTS));
+            Provider provider = providers[random.nextInt(providers.length)];
+            Appointment appointment = provider instanceof Technician
+                    ? new Imaging(date, slot, patient, provider, Radiology.XRAY)
+                    : new Appointment(date, slot, patient, provider);
+            appointments.add(appointment);
+            incremental.add(appointment);
+        }
+        ScheduleViews bulk = new ScheduleViews();
+        bulk.addAll(appointments);
+
+        for (char key : new char[]{'d', 'p', 'l', 'r', 'o', 'i'}) {
+            Iterator<Appointment> expected = incremental.ordered(key).iterator();
+            for (Appointment appointment : bulk.ordered(key)) {
+                assertSame("view " + key, expected.next(), appointment);
+            }
+            assertFalse(expected.hasNext());
+        }
+    }
+
+    @Test
+    public void testSortedRunSlices() {
+        Provider doctor = new Doctor(Location.EDISON, new Profile("Gary", "Johnson", new Date(1977, 12, 13)), Specialty.FAMILY, "01");
+        Appointment[] rows = new Appointment[Timeslot.SLOTS];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Appointment(new Date(2026, 11, 10), Timeslot.of(i + 1),
+                    new Patient(new Profile("P" + i, "Doe", new Date(2000, 1, 1))), doctor);
+        }
+        Comparator<Appointment> order = Comparator.comparing(Appointment::getTimeslot);
+        ScheduleViews.SortedRun run = new ScheduleViews.SortedRun(rows, order);
+
+        assertEquals(12, run.size());
+        assertSame(rows[0], run.firstKey());
+        assertSame(rows[11], run.lastKey());
+        assertTrue(run.containsKey(rows[5]));
+        SortedMap<Appointment, Boolean> middle = run.subMap(rows[3], rows[7]);
+        assertEquals(4, middle.size());
+        assertSame(rows[3], middle.firstKey());
+        assertSame(rows[6], middle.lastKey());
+        assertFalse(middle.containsKey(rows[7]));
+        assertEquals(Boolean.TRUE, middle.get(rows[4]));
+        assertEquals(2, middle.tailMap(rows[5]).size());
+        assertEquals(1, middle.headMap(rows[4]).size());
+        assertTrue(run.headMap(rows[0]).isEmpty());
+        assertEquals(12, new ConcurrentSkipListMap<>(run).size());
+        assertEquals(new ArrayList<>(middle.keySet()), Arrays.asList(rows).subList(3, 7));
+        try {
+            run.subMap(rows[7], rows[3]);
+            fail("from after to");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            run.headMap(rows[0]).firstKey();
+            fail("empty run");
+        } catch (NoSuchElementException expected) {
+        }
+    }
+}
@@ -0,0 +1,1792 @@
+package clinic;
+
+import util.CircularLinkedList;
+import util.Date;
+import util.List;
+import util.Sort;
+import util.Visit;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Scanner;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The scheduling logic of the clinic, one instance per clinic, safe to call from many threads
+ * Every command returns a Result holding what the console prints instead of printing it,
+ * and the sorted reports are written to an Appendable
+ *
+ * Locking, always taken in this order:
+ * - tables: commands hold the read lock, loading, reset, restore and opening or closing a store or journal hold the write lock
+ * - stripes: a booking checks for conflicts holding the stripe of (provider, date) and the stripe of (patient, date),
+ *   so bookings for different doctors and days check in parallel
+ * - index: the appointment list, columns, medical record, store file and journal are updated under one short lock,
+ *   the concurrent occupancy index and imaging calendar are updated under the stripes only
+ * Imaging bookings hold only the patient's stripe, they claim a technician and room in the imaging calendar
+ * with compare-and-set and move the technician rotation's cursor the same way
+ *
+ * @author Jasmine Saffold
+ */
+public class SchedulingEngine {
+    /**
+     * Number of conflict-check locks, a power of two
+     */
+    private static final int STRIPES = 64;
+    /**
+     * Console line separator
+     */
+    private static final String NL = System.lineSeparator();
+    /**
+     * Message for a command with the wrong number of tokens
+     */
+    private static final String MISSING_TOKENS = "Missing data tokens.";
+
+    private final ReentrantReadWriteLock tables = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock index = new ReentrantLock();
+
+    private List<Provider> providerList = new List<Provider>();
+    private TechnicianRotation technicians = new TechnicianRotation(new CircularLinkedList<Provider>());
+    private List<Appointment> appList = new List<Appointment>();
+    private IdentityHashMap<Appointment, Row> appRows = new IdentityHashMap<>(); // where each appointment sits in appList
+    private long listed = 0; // appointments added to appList so far
+    private MedicalRecord medicalRecord = new MedicalRecord();
+    private final Occupancy occupancy = new Occupancy();
+    private final ScheduleViews scheduleViews = new ScheduleViews();
+    private ProviderDirectory providerDirectory = new ProviderDirectory(providerList);
+    private ImagingCalendar imagingCalendar = new ImagingCalendar(technicians);
+    private AppointmentStore appointmentStore = new AppointmentStore(providerDirectory, medicalRecord);
+    private BillingLedger billingLedger = new BillingLedger(providerDirectory, medicalRecord);
+    private CreditLedger creditLedger = new CreditLedger(providerDirectory);
+    private final ReportEngine reports;
+    private final CommandStats stats = new CommandStats();
+    private final BusinessCalendar businessCalendar = new BusinessCalendar();
+    private ScheduleFile scheduleFile = null;  // set when the schedule is kept in a store file
+    private CommandJournal journal = null;     // set when changes are journaled
+
+    /**
+     * Thrown by the parsing helpers with the message the console prints
+     */
+    private static final class Rejected extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        Rejected(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * Balances copied out of the billing ledger, so a report is written with no lock held
+     */
+    private static final class Statements {
+        private final Profile[] patients; // billed patients in profile order
+        private final long[] dues;        // amount each patient owes in dollars
+
+        Statements(int size) {
+            this.patients = new Profile[size];
+            this.dues = new long[size];
+        }
+    }
+
+    /**
+     * Credits copied out of the credit ledger, so a report is written with no lock held
+     */
+    private static final class Credits {
+        private final Provider[] providers; // every provider in provider order
+        private final int[] credits;        // credit of each provider in dollars
+        private final boolean empty;        // true if no appointment was booked when the credits were copied
+
+        Credits(int size, boolean empty) {
+            this.providers = new Provider[size];
+            this.credits = new int[size];
+            this.empty = empty;
+        }
+    }
+
+    /**
+     * Position of an appointment in the appointment list
+     * Canceled appointments are swapped out of the list, so the add order is kept to find the first match
+     */
+    private static final class Row {
+        private int index;        // position in appList, moves when another appointment is swapped out
+        private final long added; // order the appointment was added to appList in
+
+        Row(int index, long added) {
+            this.index = index;
+            this.added = added;
+        }
+    }
+
+    /**
+     * Constructor for an empty clinic, load the providers before booking
+     */
+    public SchedulingEngine() {
+        this(new ReportEngine());
+    }
+
+    /**
+     * Constructor with the report engine that formats large reports and recomputes the ledgers in parallel
+     *
+     * @param reports - report engine
+     */
+    public SchedulingEngine(ReportEngine reports) {
+        this.reports = reports;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Reads providers.txt and populates technician and provider lists
+     *
+     * @param filename - providers.txt
+     * @throws FileNotFoundException if the file doesn't exist
+     */
+    public void loadProviders(String filename) throws FileNotFoundException {
+        tables.writeLock().lock();
+        try {
+            Scanner providerFile = new Scanner(new File(filename));
+            CircularLinkedList<Provider> technicianList = new CircularLinkedList<Provider>();
+
+            while (providerFile.hasNextLine()) {
+
+                // reads a line and splits the line by the space character, then splits the DOB
+                String line = providerFile.nextLine();
+                String[] tokens = line.split("  ");
+                String[] birthday = tokens[3].split("/");
+
+                // Make Date object for DOB, make Profile for provider, Find location of provider
+                Date dob = Date.of(Integer.parseInt(birthday[2]), Integer.parseInt(birthday[0]), Integer.parseInt(birthday[1]));
+                Profile provProfile = new Profile(tokens[1], tokens[2], dob);
+                Location provLocate = Location.valueOf(tokens[4].toUpperCase());
+
+                if(tokens[0].equals("T")){ // separate technicians in order to add them to the technician list
+
+                    Provider technician = new Technician(provLocate, provProfile, Integer.parseInt(tokens[5]));
+                    technicianList.add(technician);
+                    providerList.add(technician);
+
+                } else{ // If they are a doctor
+
+                    Specialty docSpecial = Specialty.valueOf(tokens[5]);
+                    Provider doctor = new Doctor(provLocate, provProfile, docSpecial, tokens[6]);
+                    providerList.add(doctor);
+
+                }
+            }
+            providerFile.close();
+            Sort.provider(providerList);
+            technicianList.reverse(); // rotation starts from the last technician in the file
+            technicians = new TechnicianRotation(technicianList);
+            providerDirectory = new ProviderDirectory(providerList);
+            imagingCalendar = new ImagingCalendar(technicians);
+            appointmentStore = new AppointmentStore(providerDirectory, medicalRecord);
+            billingLedger = new BillingLedger(providerDirectory, medicalRecord);
+            creditLedger = new CreditLedger(providerDirectory);
+        } finally {
+            tables.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a closure file into the business calendar
+     *
+     * @param filename - closure file, see BusinessCalendar.loadClosures()
+     * @return number of closure lines read
+     * @throws FileNotFoundException if the file doesn't exist
+     */
+    public int loadClosures(String filename) throws FileNotFoundException {
+        tables.writeLock().lock();
+        try {
+            return businessCalendar.loadClosures(filename);
+        } finally {
+            tables.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Clears every provider, patient, appointment and closure and closes the store and journal
+     */
+    public void reset() {
+        tables.writeLock().lock();
+        try {
+            clearSchedule();
+            businessCalendar.clear();
+            closeStore();
+            closeJournal();
+        } finally {
+            tables.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Opens a store file and rebuilds the schedule from it
+     * Appointments are restored through the indexes without validation or printing,
+     * and the sorted views are bulk loaded at the end
+     *
+     * @param path - store file, created if it doesn't exist
+     * @return result with the restore message
+     * @throws IOException if the store cannot be opened or belongs to another provider list
+     */
+    public Result openStore(Path path) throws IOException {
+        tables.writeLock().lock();
+        try {
+            ScheduleFile file = new ScheduleFile(path, ScheduleFile.rosterHash(providerDirectory));
+            List<Profile> patients = file.patients();
+            for (int i = 0; i < patients.size(); i++) {
+                medicalRecord.register(new Patient(patients.get(i)));
+            }
+            int[] rows = file.bookedRows();
+            appList.ensureCapacity(rows.length);
+            for (int row : rows) {
+                Date date = Date.ofEpochDay(file.epochDay(row));
+                Timeslot timeslot = Timeslot.of(file.slot(row) + 1);
+                Patient patient = medicalRecord.getPatient(file.patientId(row));
+                Provider provider = providerDirectory.provider(file.providerId(row));
+                Appointment appointment = file.room(row) == AppointmentStore.NO_ROOM
+                        ? new Appointment(date, timeslot, patient, provider)
+                        : new Imaging(date, timeslot, patient, provider, Radiology.values()[file.room(row)]);
+                patient.addVisit(appointment);
+                indexAppointment(appointment);
+                file.bind(appointment, row);
+            }
+            scheduleViews.addAll(appList); // sorted once per view instead of once per appointment
+            if (file.rotation() >= 0) {
+                technicians.rotate(providerDirectory.provider(file.rotation()));
+            }
+            scheduleFile = file;
+            return Result.ok("Restored " + rows.length + " appointments from " + path + ".");
+        } finally {
+            tables.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the store file to disk and closes it, if one is open
+     */
+    public void closeStore() {
+        tables.writeLock().lock();
+        try {
+            if (scheduleFile != null) {
+                scheduleFile.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            scheduleFile = null;
+            tables.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Opens a journal and rebuilds the schedule by replaying it
+     * Records are applied through the indexes without validation or printing,
+     * the sorted views are bulk loaded at the end, and a long journal is checkpointed
+     *
+     * @param path - journal file, created if it doesn't exist
+     * @return result with the replay message
+     * @throws IOException if the journal cannot be opened or belongs to another provider list
+     */
+    public Result openJournal(Path path) throws IOException {
+        tables.writeLock().lock();
+        try {
+            CommandJournal opened = new CommandJournal(path, ScheduleFile.rosterHash(providerDirectory), this::replayRecord);
+            long replayed = opened.size();
+            scheduleViews.addAll(appList);
+            journal = opened;
+            if (journal.needsCheckpoint()) {
+                checkpoint();
+            }
+            return Result.ok("Replayed " + replayed + " journal records from " + path + ".");
+        } finally {
+            tables.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Syncs the journal and closes it, if one is open
+     */
+    public void closeJournal() {
+        tables.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            journal = null;
+            tables.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until every journal record appended so far is on disk, a no-op without a journal
+     * Call before acknowledging a command
+     */
+    public void awaitDurable() {
+        CommandJournal current = journal;
+        if (current != null) {
+            current.awaitDurable();
+        }
+    }
+
+    /**
+     * Runs one command line
+     *
+     * @param line - comma separated command line
+     * @param out - receives the sorted reports
+     * @return result of the command
+     */
+    public Result execute(String line, Appendable out) {
+        return execute(line.split(","), out);
+    }
+
+    /**
+     * Runs one command that was already split into tokens
+     * Q is not a command of the engine, the caller decides what quitting means
+     *
+     * @param command - command tokens
+     * @param out - receives the sorted reports
+     * @return result of the command
+     */
+    public Result execute(String[] command, Appendable out) {
+        long start = System.nanoTime();
+        Result result = null;
+        try {
+            result = dispatch(command, out);
+            return result;
+        } finally {
+            stats.record(command[0], result == null ? null : result.getStatus(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gives the per-command counters and latency histograms, also registered with JMX by ClinicManager
+     *
+     * @return statistics of every command run through execute
+     */
+    public CommandStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Private helper to run one command by its code
+     *
+     * @param command - command tokens
+     * @param out - receives the sorted reports
+     * @return result of the command
+     */
+    private Result dispatch(String[] command, Appendable out) {
+        switch (command[0]) {
+            case "":
+                return Result.ok(null);
+            case "D": // schedule office appointment with doctor
+                return scheduleAppointment(command);
+            case "T": // schedule imaging appointment
+                return scheduleImagingAppointment(command);
+            case "C": // cancel existing office or imaging appointment
+                return cancelAppointment(command);
+            case "R": // reschedule office appointment, imaging appointments are not to be rescheduled
+                return rescheduleAppointment(command);
+            case "PP": // sorted by the patient (by last name, first name, date of birth, then appointment date and time)
+                printAppointments('p', out);
+                return Result.ok(null);
+            case "PA": // sorted by appointment date, time, providers name
+                printAppointments('d', out);
+                return Result.ok(null);
+            case "PL": // like PA but with county then appointment date and time
+                printAppointments('l', out);
+                return Result.ok(null);
+            case "PS": // billing statements of all patients, PS,VERIFY checks the ledger instead
+                if (command.length > 1 && command[1].equals("VERIFY")) {
+                    return verifyBilling();
+                }
+                printBillingStatements(out);
+                return Result.ok(null);
+            case "PO": // office appointments, sorted by county, then date, then time
+                printAppointments('o', out);
+                return Result.ok(null);
+            case "PI": // same as PO but with imaging instead of appointments
+                printAppointments('i', out);
+                return Result.ok(null);
+            case "PC": // credit amounts for providers, sorted by provider profile, PC,VERIFY checks the ledger instead
+                if (command.length > 1 && command[1].equals("VERIFY")) {
+                    return verifyCredits();
+                }
+                printCreditAmounts(out);
+                return Result.ok(null);
+            case "L": // look up one patient and list their appointments
+                return lookupPatient(command);
+            case "SNAPSHOT": // write a binary image of the clinic
+                return saveSnapshot(command);
+            case "RESTORE": // replace the clinic with a binary image
+                return restoreSnapshot(command);
+            case "STATS": // command counters and latencies, STATS,RESET clears them, STATS,file writes Prometheus text
+                return printStats(command, out);
+            default:
+                return Result.rejected("Invalid command!");
+        }
+    }
+
+    /**
+     * Case D, schedules an appointment
+     *
+     * @param command - command tokens (D,date,slot,fname,lname,dob,npi)
+     * @return result of the booking
+     */
+    public Result scheduleAppointment(String[] command) {
+        if (command.length != 7) {
+            return Result.rejected(MISSING_TOKENS);
+        }
+        Date appDate;
+        Timeslot appTimeslot;
+        Profile profile;
+        String npi;
+        try {
+            appDate = appointmentDate(command[1]);
+            appTimeslot = timeslot(command[2].trim());
+            String fname = command[3].trim();
+            String lname = command[4].trim();
+            Date dob = birthday(command[5]);
+            npi = command[6].trim();
+            if (!onlyDigits(npi)) {
+                return Result.rejected(npi + " - provider doesn't exist");
+            }
+            profile = new Profile(fname, lname, dob);
+        } catch (Rejected e) {
+            return Result.rejected(e.getMessage());
+        } catch (RuntimeException e) {
+            return Result.rejected(null);
+        }
+        tables.readLock().lock();
+        try {
+            return bookOffice(profile, npi, appDate, appTimeslot, command[2].trim());
+        } finally {
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case T, schedules an imaging appointment with a rotating technician
+     *
+     * @param command - command tokens (T,date,slot,fname,lname,dob,room)
+     * @return result of the booking
+     */
+    public Result scheduleImagingAppointment(String[] command) {
+        if (command.length != 7) {
+            return Result.rejected(MISSING_TOKENS);
+        }
+        Date appDate;
+        Timeslot appTimeslot;
+        Profile profile;
+        Radiology roomtype;
+        try {
+            appDate = appointmentDate(command[1]);
+            appTimeslot = timeslot(command[2].trim());
+            String fname = command[3].trim();
+            String lname = command[4].trim();
+            Date dob = birthday(command[5]);
+            String tempRoomType = command[6].trim().toUpperCase();
+            try {
+                roomtype = Radiology.valueOf(tempRoomType);
+            } catch (IllegalArgumentException e) {
+                return Result.rejected(tempRoomType.toLowerCase() + " - imaging service not provided.");
+            }
+            profile = new Profile(fname, lname, dob);
+        } catch (Rejected e) {
+            return Result.rejected(e.getMessage());
+        } catch (RuntimeException e) {
+            return Result.rejected(null);
+        }
+        tables.readLock().lock();
+        try {
+            return bookImaging(profile, appDate, appTimeslot, roomtype, command[2]);
+        } finally {
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case C, cancels an appointment, names are matched without case
+     *
+     * @param command - command tokens (C,date,slot,fname,lname,dob)
+     * @return result of the cancellation
+     */
+    public Result cancelAppointment(String[] command) {
+        if (command.length != 6) {
+            return Result.rejected(MISSING_TOKENS);
+        }
+        Date appDate;
+        Timeslot appTimeslot;
+        String fname;
+        String lname;
+        Date dob;
+        try {
+            appDate = appointmentDate(command[1]);
+            appTimeslot = timeslot(command[2].trim());
+            fname = command[3].trim();
+            lname = command[4].trim();
+            dob = birthday(command[5]);
+        } catch (Rejected e) {
+            return Result.rejected(e.getMessage());
+        } catch (RuntimeException e) {
+            return Result.rejected(null);
+        }
+        String described = String.format("%s %s %s %s %s", appDate, appTimeslot, fname, lname, dob);
+        tables.readLock().lock();
+        try {
+            while (true) {
+                Appointment tempApp = find(appDate, appTimeslot, fname, lname, dob, false);
+                if (tempApp == null) {
+                    return Result.rejected(described + " - appointment does not exist.");
+                }
+                int provider = stripe(tempApp.getProvider(), appDate);
+                int patient = stripe(tempApp.getPatient().getProfile(), appDate);
+                lock(provider, patient);
+                try {
+                    if (!isBooked(tempApp, appTimeslot)) {
+                        continue; // canceled or moved since it was found, look again
+                    }
+                    index.lock();
+                    try {
+                        journalChange("C", tempApp, tempApp instanceof Imaging
+                                ? ((Imaging) tempApp).getRoom().ordinal() : AppointmentStore.NO_ROOM);
+                        ((Patient) tempApp.getPatient()).removeVisit(tempApp);
+                        removeAppointment(tempApp);
+                    } finally {
+                        index.unlock();
+                    }
+                    vacate(tempApp);
+                    return Result.ok(described + " - appointment has been canceled.");
+                } finally {
+                    unlock(provider, patient);
+                }
+            }
+        } finally {
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case R, moves an office appointment to another timeslot on the same day
+     *
+     * @param command - command tokens (R,date,slot,fname,lname,dob,new slot)
+     * @return result of the reschedule
+     */
+    public Result rescheduleAppointment(String[] command) {
+        if (command.length != 7) {
+            return Result.rejected(MISSING_TOKENS);
+        }
+        Date appDate;
+        Timeslot originalAppTime;
+        String fname;
+        String lname;
+        Date dob;
+        Timeslot newAppTime;
+        try {
+            appDate = appointmentDate(command[1]);
+            originalAppTime = timeslot(command[2].trim());
+            fname = command[3].trim();
+            lname = command[4].trim();
+            dob = birthday(command[5]);
+            newAppTime = timeslot(command[6].trim());
+        } catch (Rejected e) {
+            return Result.rejected(e.getMessage());
+        } catch (RuntimeException e) {
+            return Result.rejected(null);
+        }
+        tables.readLock().lock();
+        try {
+            while (true) {
+                Appointment tempApp = find(appDate, originalAppTime, fname, lname, dob, true);
+                if (tempApp == null) {
+                    return Result.rejected(appDate + " " + originalAppTime + " " + fname + " " + lname + " " + dob + " does not exist.");
+                }
+                Provider doctor = (Provider) tempApp.getProvider();
+                int provider = stripe(doctor, appDate);
+                int patient = stripe(tempApp.getPatient().getProfile(), appDate);
+                lock(provider, patient);
+                try {
+                    if (!isBooked(tempApp, originalAppTime)) {
+                        continue;
+                    }
+                    Appointment patientBusy = occupancy.patientAt(tempApp.getPatient().getProfile(), appDate, newAppTime);
+                    if (patientBusy != null) {
+                        return Result.conflict(patientBusy.getPatient() + " has an existing appointment at " + appDate + " " + newAppTime);
+                    }
+                    if (!businessCalendar.isOpen(doctor.getLocation(), appDate)) {
+                        return Result.rejected(closed(doctor.getLocation(), appDate));
+                    }
+                    if (occupancy.providerAt(doctor, appDate, newAppTime) != null) {
+                        return Result.conflict(notAvailable(doctor, command[6].trim()));
+                    }
+                    index.lock();
+                    try {
+                        journalChange("R", tempApp, newAppTime.getOrdinal());
+                        removeAppointment(tempApp);
+                        tempApp.setTimeslot(newAppTime);
+                        addAppointment(tempApp);
+                    } finally {
+                        index.unlock();
+                    }
+                    occupancy.move(tempApp, originalAppTime);
+                    return Result.ok("Rescheduled to " + tempApp);
+                } finally {
+                    unlock(provider, patient);
+                }
+            }
+        } finally {
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case L, looks up a single patient by profile and lists their appointments
+     *
+     * @param command - command tokens (L,fname,lname,dob)
+     * @return result with the patient's appointments
+     */
+    public Result lookupPatient(String[] command) {
+        if (command.length != 4) {
+            return Result.rejected(MISSING_TOKENS);
+        }
+        Profile profile;
+        try {
+            String[] dobList = command[3].trim().split("/");
+            Date dob = Date.of(Integer.parseInt(dobList[2]), Integer.parseInt(dobList[0]), Integer.parseInt(dobList[1]));
+            profile = new Profile(command[1].trim(), command[2].trim(), dob);
+        } catch (RuntimeException e) {
+            return Result.rejected(command[3].trim() + " is not a valid date of birth.");
+        }
+        tables.readLock().lock();
+        index.lock();
+        try {
+            Patient patient = medicalRecord.find(profile);
+            if (patient == null) {
+                return Result.rejected(profile + " - patient does not exist.");
+            }
+            StringBuilder lines = new StringBuilder("** Appointments for ").append(patient).append(" **").append(NL);
+            for (Visit visit = patient.getVisits(); visit != null; visit = visit.getNext()) {
+                lines.append(visit).append(NL);
+            }
+            return Result.ok(lines.append("** end of list **").toString());
+        } finally {
+            index.unlock();
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case SNAPSHOT, writes a binary image of the providers, patients, appointments and technician rotation
+     * The image is copied under the locks and written after they are released
+     *
+     * @param command - command tokens (SNAPSHOT,file)
+     * @return result of the snapshot
+     */
+    public Result saveSnapshot(String[] command) {
+        if (command.length != 2) {
+            return Result.rejected(MISSING_TOKENS);
+        }
+        Path path = Paths.get(command[1].trim());
+        int count;
+        ClinicSnapshot.Capture image;
+        tables.readLock().lock();
+        index.lock(); // the rotation may already be past the technicians of bookings that are still being indexed
+        try {
+            count = appList.size();
+            image = ClinicSnapshot.capture(providerDirectory, technicians.toList(), medicalRecord, bookingOrder());
+        } finally {
+            index.unlock();
+            tables.readLock().unlock();
+        }
+        try {
+            image.write(path); // no lock held, bookings go on while the file is written
+        } catch (IOException e) {
+            return Result.rejected(path + " - cannot write snapshot.");
+        }
+        return Result.ok("Snapshot of " + count + " appointments written to " + path + ".");
+    }
+
+    /**
+     * Case RESTORE, replaces the clinic with a binary image written by SNAPSHOT
+     * Appointments are restored through the indexes without validation or printing,
+     * the sorted views are bulk loaded at the end and an open journal is checkpointed to the new schedule
+     *
+     * @param command - command tokens (RESTORE,file)
+     * @return result of the restore
+     */
+    public Result restoreSnapshot(String[] command) {
+        if (command.length != 2) {
+            return Result.rejected(MISSING_TOKENS);
+        }
+        Path path = Paths.get(command[1].trim());
+        tables.writeLock().lock();
+        try {
+            if (scheduleFile != null) {
+                return Result.rejected("RESTORE is not available with a store file.");
+            }
+            ClinicSnapshot snapshot;
+            try {
+                snapshot = ClinicSnapshot.read(path);
+            } catch (IOException e) {
+                return Result.rejected(path + " - cannot read snapshot.");
+            }
+            ProviderDirectory directory = new ProviderDirectory(snapshot.getProviders());
+            if (journal != null && ScheduleFile.rosterHash(directory) != journal.getRoster()) {
+                return Result.rejected(path + " was written for a different provider list.");
+            }
+            clearSchedule();
+            providerList = snapshot.getProviders();
+            technicians = new TechnicianRotation(snapshot.getTechnicians());
+            providerDirectory = directory;
+            imagingCalendar = new ImagingCalendar(technicians);
+            appointmentStore = new AppointmentStore(providerDirectory, medicalRecord);
+            billingLedger = new BillingLedger(providerDirectory, medicalRecord);
+            creditLedger = new CreditLedger(providerDirectory);
+            for (Patient patient : snapshot.getPatients()) {
+                medicalRecord.register(patient);
+            }
+            List<Appointment> appointments = snapshot.getAppointments();
+            appList.ensureCapacity(appointments.size());
+            for (Appointment appointment : appointments) {
+                ((Patient) appointment.getPatient()).addVisit(appointment);
+                indexAppointment(appointment);
+            }
+            scheduleViews.addAll(appList);
+            if (journal != null) {
+                checkpoint();
+            }
+            return Result.ok("Restored " + appointments.size() + " appointments from " + path + ".");
+        } finally {
+            tables.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Case STATS, prints the counters and latencies of every command code that was run
+     * STATS,RESET clears them and STATS,file writes them to a file in Prometheus text format
+     * The statistics are lock-free, so this takes none of the schedule locks
+     *
+     * @param command - command tokens (STATS, STATS,RESET or STATS,file)
+     * @param out - receives the report
+     * @return result of the command
+     */
+    public Result printStats(String[] command, Appendable out) {
+        if (command.length > 2) {
+            return Result.rejected(MISSING_TOKENS);
+        }
+        if (command.length == 1) {
+            try {
+                stats.print(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return Result.ok(null);
+        }
+        if (command[1].equals("RESET")) {
+            stats.reset();
+            return Result.ok("Command statistics cleared.");
+        }
+        Path path = Paths.get(command[1].trim());
+        try {
+            stats.writePrometheus(path);
+        } catch (IOException e) {
+            return Result.rejected(path + " - cannot write statistics.");
+        }
+        return Result.ok("Command statistics written to " + path + ".");
+    }
+
+    /**
+     * Prints appointments sorted by key
+     * Iterates the matching sorted view, so nothing is sorted and the appointment list keeps its order
+     *
+     * @param key - key for accessing specific sort type
+     * @param out - receives the report
+     */
+    public void printAppointments(char key, Appendable out) {
+        Appointment[] rows = reportRows(key);
+        if (rows == null) {
+            line(out, "Schedule calendar is empty.");
+            return;
+        }
+        if (key == 'o'){
+            line(out, "** List of office appointments ordered by county/date/time.");
+        }else if (key == 'd'){
+            line(out, "** List of appointments, ordered by date/time/provider.");
+        }else if(key == 'l'){
+            line(out, "** List of appointments ordered by county/date/time.");
+        }else{
+            line(out, "** List of radiology appointments ordered by county/date/time.");
+        }
+        write(rows, (i, appointment, line) -> line.append(appointment), out);
+        line(out, "** end of list **");
+    }
+
+    /**
+     * Visits the appointments of a report in report order
+     * The rows are copied out of the sorted view under the read lock and visited outside it,
+     * so a slow visitor, such as a network write, never holds up the schedule
+     *
+     * @param key - 'p', 'd', 'l', 'o' (office only) or 'i' (imaging only), as for printAppointments()
+     * @param action - called with each appointment
+     */
+    public void forEachAppointment(char key, Consumer<Appointment> action) {
+        Appointment[] rows = reportRows(key);
+        if (rows == null) {
+            return;
+        }
+        for (Appointment appointment : rows) {
+            action.accept(appointment);
+        }
+    }
+
+    /**
+     * Private helper to copy the appointments of a report out of its sorted view
+     * Copies under the index lock, a cancel or reschedule changes the views under it
+     *
+     * @param key - sort key, as for printAppointments()
+     * @return appointments in report order, null if the schedule is empty
+     */
+    private Appointment[] reportRows(char key) {
+        tables.readLock().lock();
+        index.lock();
+        try {
+            if (appList.size() == 0) {
+                return null;
+            }
+            ArrayList<Appointment> rows = new ArrayList<>(appList.size());
+            for (Appointment appointment : scheduleViews.ordered(key)) {
+                rows.add(appointment);
+            }
+            return rows.toArray(new Appointment[0]);
+        } finally {
+            index.unlock();
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case PS, billing statements for all appointments, the billing amount is based on the provider's specialty
+     *
+     * @param out - receives the report
+     */
+    public void printBillingStatements(Appendable out) {
+        Statements statements = billingStatements();
+        if (statements.patients.length == 0) {
+            line(out, "Schedule calendar is empty.");
+            return;
+        }
+        line(out, "** Billing Statement ordered by patient. **");
+        long[] due = statements.dues;
+        write(statements.patients, (i, profile, line) -> line.append('(').append(i + 1).append(") ")
+                .append(profile.getFname()).append(' ').append(profile.getLname()).append(' ').append(profile.getDob())
+                .append(" [due: $").append(due[i]).append(".00]"), out);
+        line(out, "** end of list **");
+    }
+
+    /**
+     * Visits every patient with an appointment in profile order with the amount they owe
+     * Copies the balances out of the billing ledger under the locks, then visits with no lock held
+     *
+     * @param action - called with each patient's profile and amount due in dollars
+     * @return number of patients visited, 0 if the schedule is empty
+     */
+    public int forEachBillingStatement(ObjLongConsumer<Profile> action) {
+        Statements statements = billingStatements();
+        for (int i = 0; i < statements.patients.length; i++) {
+            action.accept(statements.patients[i], statements.dues[i]);
+        }
+        return statements.patients.length;
+    }
+
+    /**
+     * Private helper to copy the balances out of the billing ledger under the locks
+     *
+     * @return billed patients in profile order with the amount each owes
+     */
+    private Statements billingStatements() {
+        tables.readLock().lock();
+        index.lock();
+        try {
+            Statements statements = new Statements(billingLedger.billedCount());
+            int[] count = {0};
+            billingLedger.forEach((profile, due) -> {
+                statements.patients[count[0]] = profile;
+                statements.dues[count[0]++] = due;
+            });
+            return statements;
+        } finally {
+            index.unlock();
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case PS,VERIFY, checks every balance in the billing ledger against a full recomputation
+     *
+     * @return ok if the ledger matches, conflict with the first difference otherwise
+     */
+    public Result verifyBilling() {
+        tables.readLock().lock();
+        index.lock();
+        try {
+            AppointmentStore store = appointmentStore;
+            ProviderDirectory directory = providerDirectory;
+            int patients = medicalRecord.getSize();
+            long[] totals = reports.aggregate(store.size(), 2 * patients, (row, sums) -> {
+                sums[store.patientId(row)] += directory.rate(store.providerId(row));
+                sums[patients + store.patientId(row)]++;
+            });
+            String problem = billingLedger.verify(Arrays.copyOf(totals, patients),
+                    Arrays.copyOfRange(totals, patients, 2 * patients));
+            if (problem != null) {
+                return Result.conflict("Billing ledger mismatch: " + problem);
+            }
+            return Result.ok("Billing ledger matches " + billingLedger.billedCount() + " patient(s).");
+        } finally {
+            index.unlock();
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case PC, credit statement per provider
+     *
+     * @param out - receives the report
+     */
+    public void printCreditAmounts(Appendable out) {
+        Credits credits = credits();
+        if (credits.empty) {
+            line(out, "Schedule calendar is empty.");
+            return;
+        }
+        line(out, "** Credit amount ordered by provider. **");
+        int[] credit = credits.credits;
+        write(credits.providers, (i, provider, line) -> line.append('(').append(i + 1).append(") ")
+                .append(provider.getProfile().getFname()).append(' ').append(provider.getProfile().getLname())
+                .append(' ').append(provider.getProfile().getDob()).append(" [credit amount: $").append(credit[i])
+                .append(".00]"), out);
+        line(out, "** end of list **");
+    }
+
+    /**
+     * Visits every provider in provider order with the amount they are credited
+     * Copies the credits out of the credit ledger under the locks, then visits with no lock held
+     *
+     * @param action - called with each provider and their credit in dollars
+     */
+    public void forEachCredit(ObjIntConsumer<Provider> action) {
+        Credits credits = credits();
+        for (int id = 0; id < credits.credits.length; id++) {
+            action.accept(credits.providers[id], credits.credits[id]);
+        }
+    }
+
+    /**
+     * Private helper to copy the credits out of the credit ledger under the locks
+     * Checks for an empty schedule under the same locks, so the report and its header agree
+     *
+     * @return every provider in provider order with their credit
+     */
+    private Credits credits() {
+        tables.readLock().lock();
+        index.lock();
+        try {
+            Credits credits = new Credits(creditLedger.size(), appList.size() == 0);
+            for (int id = 0; id < credits.credits.length; id++) {
+                credits.providers[id] = providerDirectory.provider(id);
+                credits.credits[id] = creditLedger.credit(id);
+            }
+            return credits;
+        } finally {
+            index.unlock();
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case PC,VERIFY, checks every provider's count and credit in the credit ledger against a full recount
+     *
+     * @return ok if the ledger matches, conflict with the first difference otherwise
+     */
+    public Result verifyCredits() {
+        tables.readLock().lock();
+        index.lock();
+        try {
+            AppointmentStore store = appointmentStore;
+            String problem = creditLedger.verify(reports.aggregate(store.size(), creditLedger.size(),
+                    (row, counts) -> counts[store.providerId(row)]++));
+            if (problem != null) {
+                return Result.conflict("Credit ledger mismatch: " + problem);
+            }
+            return Result.ok("Credit ledger matches " + creditLedger.size() + " provider(s).");
+        } finally {
+            index.unlock();
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Prints the providers in provider order
+     *
+     * @param out - receives the list
+     */
+    public void printProviders(Appendable out) {
+        tables.readLock().lock();
+        try {
+            line(out, "Providers loaded to the list.");
+            for (int i = 0; i < providerList.size(); i++) {
+                Provider provider = providerList.get(i);
+                line(out, "[" + provider.getProfile().getFname() + " " + provider.getProfile().getLname() + " "
+                        + provider.getProfile().getDob() + ", " + provider.getLocation() + "][" + provider + "]");
+            }
+        } finally {
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Prints the technicians in rotation order
+     *
+     * @param out - receives the list
+     */
+    public void printTechnicians(Appendable out) {
+        tables.readLock().lock();
+        try {
+            line(out, "\nRotation list for the technicians.");
+            StringBuilder techString = new StringBuilder();
+            CircularLinkedList<Provider> technicianList = technicians.toList();
+            int i = 0;
+            for (Provider tech : technicianList) {
+                techString.append(tech.getProfile().getFname()).append(' ').append(tech.getProfile().getLname())
+                        .append(" (").append(tech.getLocation().name()).append(')');
+                if (++i != technicianList.size()) {
+                    techString.append(" --> ");
+                }
+            }
+            line(out, techString.toString());
+        } finally {
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gives the appointment list, for tests and benchmarks
+     * The list is live and not safe to read while commands run on other threads,
+     * it is in booking order until an appointment is canceled or rescheduled
+     *
+     * @return appointments, do not modify
+     */
+    public List<Appointment> getAppointments() {
+        return appList;
+    }
+
+    /**
+     * Gives the number of appointments with the providers of one location, from the county partition counters
+     *
+     * @param location - location of the providers
+     * @param imaging - true for imaging appointments, false for office appointments
+     * @return number of appointments
+     */
+    public int countAt(Location location, boolean imaging) {
+        index.lock();
+        try {
+            return scheduleViews.partitions().count(location, imaging);
+        } finally {
+            index.unlock();
+        }
+    }
+
+    /**
+     * Gives the charges of the appointments with the providers of one location, from the county partition counters
+     *
+     * @param location - location of the providers
+     * @param imaging - true for imaging appointments, false for office appointments
+     * @return revenue in dollars
+     */
+    public long revenueAt(Location location, boolean imaging) {
+        index.lock();
+        try {
+            return scheduleViews.partitions().revenue(location, imaging);
+        } finally {
+            index.unlock();
+        }
+    }
+
+    /**
+     * Gives the number of booked appointments
+     *
+     * @return appointments
+     */
+    public int size() {
+        index.lock();
+        try {
+            return appList.size();
+        } finally {
+            index.unlock();
+        }
+    }
+
+    /**
+     * Private helper to book an office appointment once the command is parsed
+     * The conflict checks and the booking happen under the doctor's and patient's stripes for the date
+     *
+     * @param profile - patient profile
+     * @param npi - NPI of the doctor
+     * @param appDate - appointment date
+     * @param appTimeslot - appointment timeslot
+     * @param slotToken - timeslot as typed, for the conflict message
+     * @return result of the booking
+     */
+    private Result bookOffice(Profile profile, String npi, Date appDate, Timeslot appTimeslot, String slotToken) {
+        Doctor doctor = providerDirectory.doctor(npi);
+        if (doctor == null) {
+            return Result.rejected(npi + " - provider doesn't exist");
+        }
+        if (!businessCalendar.isOpen(doctor.getLocation(), appDate)) {
+            return Result.rejected(closed(doctor.getLocation(), appDate));
+        }
+        int provider = stripe(doctor, appDate);
+        int patient = stripe(profile, appDate);
+        lock(provider, patient);
+        try {
+            Appointment patientBusy = occupancy.officeAt(profile, appDate, appTimeslot);
+            Appointment doctorBusy = occupancy.providerAt(doctor, appDate, appTimeslot);
+            if (patientBusy != null || doctorBusy != null) {
+                String message = null;
+                if (patientBusy != null) {
+                    message = profile + " has an existing appointment at the same time slot.";
+                }
+                if (doctorBusy != null && doctorBusy != patientBusy) {
+                    message = (message == null ? "" : message + NL) + notAvailable(doctor, slotToken);
+                }
+                return Result.conflict(message);
+            }
+            Appointment booked;
+            index.lock();
+            try {
+                Patient owner = registerPatient(profile);
+                booked = new Appointment(appDate, appTimeslot, owner, doctor);
+                owner.addVisit(booked);
+                addAppointment(booked);
+                journalBooking(booked);
+            } finally {
+                index.unlock();
+            }
+            occupy(booked);
+            return Result.ok(booked + " booked.");
+        } finally {
+            unlock(provider, patient);
+        }
+    }
+
+    /**
+     * Private helper to book an imaging appointment once the command is parsed
+     * The free technician is claimed with compare-and-set, a booking that loses the claim to another one looks again
+     * The rotation's cursor moves before the index lock is taken, so bookings may journal in another order
+     * than they moved it; the rotation is journaled after any booking that leaves it past another technician
+     *
+     * @param profile - patient profile
+     * @param appDate - appointment date
+     * @param appTimeslot - appointment timeslot
+     * @param roomtype - radiology room needed
+     * @param slotToken - timeslot as typed, for the conflict message
+     * @return result of the booking
+     */
+    private Result bookImaging(Profile profile, Date appDate, Timeslot appTimeslot, Radiology roomtype, String slotToken) {
+        int patient = stripe(profile, appDate);
+        int closed = businessCalendar.closedLocations(appDate);
+        stripes[patient].lock();
+        try {
+            while (true) {
+                int seen = technicians.cursor();
+                Technician tech = imagingCalendar.findFree(appDate, appTimeslot, roomtype, seen, closed);
+                if (tech == null) {
+                    return Result.conflict("Cannot find an available technician for " + roomtype + " at slot " + slotToken);
+                }
+                if (occupancy.imagingAt(profile, appDate, appTimeslot) != null) {
+                    return Result.conflict(profile + " has an existing appointment at the same time slot.");
+                }
+                if (!imagingCalendar.claim(appDate, appTimeslot, roomtype, tech)) {
+                    continue; // another booking took the technician or the room first
+                }
+                technicians.advance(seen, tech);
+                Imaging booked;
+                index.lock();
+                try {
+                    Patient owner = registerPatient(profile);
+                    booked = new Imaging(appDate, appTimeslot, owner, tech, roomtype);
+                    owner.addVisit(booked);
+                    addAppointment(booked);
+                    if (scheduleFile != null) {
+                        scheduleFile.setRotation(providerDirectory.id(technicians.last()));
+                    }
+                    journalBooking(booked);
+                    if (technicians.last() != tech) {
+                        journalRotation();
+                    }
+                } finally {
+                    index.unlock();
+                }
+                occupy(booked);
+                return Result.ok(booked + " booked.");
+            }
+        } finally {
+            stripes[patient].unlock();
+        }
+    }
+
+    /**
+     * Private helper to find the first appointment in list order at a date and timeslot for a patient
+     * Office appointments are looked up by profile, otherwise by the patient's upper-cased name,
+     * so only that patient's appointments at the date and timeslot are compared
+     *
+     * @param appDate - appointment date
+     * @param appTimeslot - appointment timeslot
+     * @param fname - patient's first name
+     * @param lname - patient's last name
+     * @param dob - patient's date of birth
+     * @param office - true to match office appointments only, with exact names; false for any appointment, ignoring case
+     * @return appointment, null if there is none
+     */
+    private Appointment find(Date appDate, Timeslot appTimeslot, String fname, String lname, Date dob, boolean office) {
+        if (office) {
+            return occupancy.officeAt(new Profile(fname, lname, dob), appDate, appTimeslot);
+        }
+        Appointment first = null;
+        for (Appointment appointment : occupancy.patientsNamed(fname, lname, dob, appDate, appTimeslot)) {
+            first = first == null ? appointment : earlier(first, appointment);
+        }
+        return first;
+    }
+
+    /**
+     * Private helper to pick the appointment that was added to the appointment list first
+     * Only needed when a patient has an office and an imaging appointment at the same slot,
+     * or two patients whose names differ in case are booked at it
+     *
+     * @param a - appointment
+     * @param b - another appointment
+     * @return a or b, whichever comes first in list order
+     */
+    private Appointment earlier(Appointment a, Appointment b) {
+        index.lock();
+        try {
+            Row rowA = appRows.get(a);
+            Row rowB = appRows.get(b);
+            if (rowA == null || rowB == null) { // canceled since it was found
+                return rowA == null ? b : a;
+            }
+            return rowA.added < rowB.added ? a : b;
+        } finally {
+            index.unlock();
+        }
+    }
+
+    /**
+     * Private helper to check that an appointment found earlier is still booked at the timeslot
+     * Must hold the appointment's stripes
+     *
+     * @param appointment - appointment to check
+     * @param appTimeslot - timeslot it was found at
+     * @return true if it is still booked there
+     */
+    private boolean isBooked(Appointment appointment, Timeslot appTimeslot) {
+        return appointment.getTimeslot().equals(appTimeslot)
+                && occupancy.providerAt(appointment.getProvider(), appointment.getDate(), appTimeslot) == appointment;
+    }
+
+    /**
+     * Private helper to check if there are no appointments
+     *
+     * @return true if the appointment list is empty
+     */
+    private boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Private helper for the closure message
+     *
+     * @param location - closed location
+     * @param appDate - closure date
+     * @return message
+     */
+    private static String closed(Location location, Date appDate) {
+        return location.name() + " is closed on " + appDate + ".";
+    }
+
+    /**
+     * Private helper for the message of a doctor who is booked at the slot
+     *
+     * @param doctor - booked doctor
+     * @param slotToken - timeslot as typed
+     * @return message
+     */
+    private static String notAvailable(Provider doctor, String slotToken) {
+        return String.format("[%s %s %s, %s][%s] is not available at slot %s",
+                doctor.getProfile().getFname(),                    // Provider's first name
+                doctor.getProfile().getLname(),                    // Provider's last name
+                doctor.getProfile().getDob(),
+                doctor.getLocation().toString(),
+                doctor.toString(),
+                slotToken);
+    }
+
+    /**
+     * Private helper to parse and check an appointment date
+     *
+     * @param token - date token, MM/DD/YYYY
+     * @return date
+     * @throws Rejected if the date cannot be booked
+     */
+    private Date appointmentDate(String token) throws Rejected {
+        String[] appDateList = token.split("/");
+        Date appDate = Date.of(Integer.parseInt(appDateList[2]), Integer.parseInt(appDateList[0]), Integer.parseInt(appDateList[1]));
+        if (businessCalendar.isBookable(appDate)) { // the bitmap answers valid dates, appTimeProblem() says why a date was rejected
+            return appDate;
+        }
+        String problem = appDate.appTimeProblem();
+        if (problem != null) {
+            throw new Rejected(problem);
+        }
+        return appDate;
+    }
+
+    /**
+     * Private helper to parse and check a date of birth
+     *
+     * @param token - date token, MM/DD/YYYY
+     * @return date
+     * @throws Rejected if the date is not a valid birthday
+     */
+    private static Date birthday(String token) throws Rejected {
+        String[] dobList = token.split("/");
+        Date dob = Date.of(Integer.parseInt(dobList[2]), Integer.parseInt(dobList[0]), Integer.parseInt(dobList[1]));
+        String problem = dob.birthdayProblem();
+        if (problem != null) {
+            throw new Rejected(problem);
+        }
+        return dob;
+    }
+
+    /**
+     * Private helper to give the shared timeslot object if the time is valid
+     *
+     * @param slotNum - timeslot token
+     * @return time
+     * @throws Rejected if the token is not a timeslot number
+     */
+    private static Timeslot timeslot(String slotNum) throws Rejected {
+        if (!onlyDigits(slotNum)) {
+            throw new Rejected(slotNum + " is not a valid time slot.");
+        }
+        int number = Integer.parseInt(slotNum);
+        if (number < 1 || number > Timeslot.SLOTS) {
+            throw new Rejected(slotNum + " is not a valid time slot.");
+        }
+        return Timeslot.of(number);
+    }
+
+    /**
+     * Checks to see if a string only contains digits
+     *
+     * @param str - string to check
+     * @return true if the string is only digits, false otherwise
+     */
+    private static boolean onlyDigits(String str) {
+        return str != null && str.matches("\\d+");
+    }
+
+    /**
+     * Private helper to write one report line
+     *
+     * @param out - report destination
+     * @param text - line without its separator
+     */
+    private static void line(Appendable out, String text) {
+        try {
+            out.append(text).append(NL);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Private helper to write report lines through the report engine, in parallel for large reports
+     *
+     * @param rows - rows in report order
+     * @param renderer - formats a row
+     * @param out - receives the lines
+     * @throws UncheckedIOException if out cannot be written
+     */
+    private <T> void write(T[] rows, ReportEngine.LineRenderer<? super T> renderer, Appendable out) {
+        try {
+            reports.write(rows, renderer, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Private helper for the stripe of an owner on a date
+     *
+     * @param owner - provider or patient profile
+     * @param date - appointment date
+     * @return stripe number
+     */
+    private static int stripe(Object owner, Date date) {
+        int h = owner.hashCode() * 31 + date.getEpochDay();
+        h ^= h >>> 16;
+        h *= 0x45D9F3B;
+        h ^= h >>> 16;
+        return h & (STRIPES - 1);
+    }
+
+    /**
+     * Private helper to lock two stripes, lower number first so threads never wait on each other in a cycle
+     *
+     * @param a - stripe number
+     * @param b - stripe number
+     */
+    private void lock(int a, int b) {
+        stripes[Math.min(a, b)].lock();
+        if (a != b) {
+            stripes[Math.max(a, b)].lock();
+        }
+    }
+
+    /**
+     * Private helper to unlock two stripes locked by lock()
+     *
+     * @param a - stripe number
+     * @param b - stripe number
+     */
+    private void unlock(int a, int b) {
+        if (a != b) {
+            stripes[Math.max(a, b)].unlock();
+        }
+        stripes[Math.min(a, b)].unlock();
+    }
+
+    /**
+     * Private helper to clear providers, patients and appointments, keeping closures, store and journal
+     * Must hold the tables write lock
+     */
+    private void clearSchedule() {
+        providerList = new List<Provider>();
+        technicians = new TechnicianRotation(new CircularLinkedList<Provider>());
+        appList = new List<Appointment>();
+        appRows = new IdentityHashMap<>();
+        medicalRecord = new MedicalRecord();
+        occupancy.clear();
+        scheduleViews.clear();
+        providerDirectory = new ProviderDirectory(providerList);
+        imagingCalendar = new ImagingCalendar(technicians);
+        appointmentStore = new AppointmentStore(providerDirectory, medicalRecord);
+        billingLedger = new BillingLedger(providerDirectory, medicalRecord);
+        creditLedger = new CreditLedger(providerDirectory);
+    }
+
+    /**
+     * Private helper to find or register the patient who is booking, new patients are appended to the store file
+     * Must hold the index lock
+     *
+     * @param profile - patient profile
+     * @return the patient in the medical record
+     */
+    private Patient registerPatient(Profile profile) {
+        Patient patient = medicalRecord.find(profile);
+        if (patient != null) {
+            return patient;
+        }
+        patient = medicalRecord.register(new Patient(profile));
+        if (scheduleFile != null) {
+            try {
+                scheduleFile.addPatient(profile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return patient;
+    }
+
+    /**
+     * Private helper to add a booked appointment to the appointment list, columns and sorted views
+     * Must hold the index lock, the caller occupies its slots once the lock is released
+     *
+     * @param appointment - appointment to add
+     */
+    private void addAppointment(Appointment appointment) {
+        listAppointment(appointment);
+        scheduleViews.add(appointment);
+        if (scheduleFile != null) {
+            scheduleFile.book(appointment, medicalRecord.id(appointment.getPatient().getProfile()),
+                    providerDirectory.id(appointment.getProvider()));
+        }
+    }
+
+    /**
+     * Private helper to add an appointment to the appointment list, the columns and the hash and bitmap indexes
+     *
+     * @param appointment - appointment to add
+     */
+    private void indexAppointment(Appointment appointment) {
+        listAppointment(appointment);
+        occupy(appointment);
+    }
+
+    /**
+     * Private helper to add an appointment to the appointment list and the columns
+     *
+     * @param appointment - appointment to add
+     */
+    private void listAppointment(Appointment appointment) {
+        appRows.put(appointment, new Row(appList.size(), listed++));
+        appList.add(appointment);
+        appointmentStore.add(appointment);
+        billingLedger.add(appointment);
+        creditLedger.add(appointment);
+    }
+
+    /**
+     * Private helper to remove an appointment from the appointment list, columns and sorted views
+     * The list is kept unordered, the last appointment takes the removed one's place
+     * Must hold the index lock, the caller vacates its slots
+     *
+     * @param appointment - appointment to remove
+     */
+    private void removeAppointment(Appointment appointment) {
+        scheduleViews.remove(appointment);
+        appointmentStore.remove(appointment);
+        billingLedger.remove(appointment);
+        creditLedger.remove(appointment);
+        if (scheduleFile != null) {
+            scheduleFile.release(appointment);
+        }
+        Row row = appRows.remove(appointment);
+        Appointment moved = appList.swapRemove(row.index);
+        if (moved != null) {
+            appRows.get(moved).index = row.index;
+        }
+    }
+
+    /**
+     * Private helper to mark the provider, patient and imaging room of an appointment as busy
+     * Must hold the appointment's stripes, the occupancy index and imaging calendar take concurrent updates
+     *
+     * @param appointment - appointment that was booked
+     */
+    private void occupy(Appointment appointment) {
+        occupancy.add(appointment);
+        if (appointment instanceof Imaging) {
+            imagingCalendar.book((Imaging) appointment);
+        }
+    }
+
+    /**
+     * Private helper to free the provider, patient and imaging room of an appointment
+     * Must hold the appointment's stripes and be called before its timeslot changes
+     *
+     * @param appointment - appointment that was canceled
+     */
+    private void vacate(Appointment appointment) {
+        occupancy.remove(appointment);
+        if (appointment instanceof Imaging) {
+            imagingCalendar.release((Imaging) appointment);
+        }
+    }
+
+    /**
+     * Private helper to list the appointments in the order they were booked
+     *
+     * @return new list sorted by sequence
+     */
+    private List<Appointment> bookingOrder() {
+        long[] order = new long[appList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (appList.get(i).getSequence() << 32) | i;
+        }
+        Arrays.sort(order);
+        List<Appointment> booked = new List<Appointment>();
+        booked.ensureCapacity(order.length);
+        for (long key : order) {
+            booked.add(appList.get((int) key));
+        }
+        return booked;
+    }
+
+    /**
+     * Private helper to apply one replayed journal record
+     * D and T book, C cancels, R moves an office appointment, P registers a patient and W sets the rotation
+     *
+     * @param record - record fields
+     */
+    private void replayRecord(String[] record) {
+        switch (record[0]) {
+            case "P":
+                registerPatient(journalProfile(record, 1));
+                break;
+            case "D":
+            case "T": {
+                Date date = Date.ofEpochDay(Integer.parseInt(record[1]));
+                Timeslot timeslot = Timeslot.of(Integer.parseInt(record[2]) + 1);
+                Patient patient = registerPatient(journalProfile(record, 3));
+                Provider provider = providerDirectory.provider(Integer.parseInt(record[6]));
+                Appointment appointment = record[0].equals("D")
+                        ? new Appointment(date, timeslot, patient, provider)
+                        : new Imaging(date, timeslot, patient, provider, Radiology.values()[Integer.parseInt(record[7])]);
+                patient.addVisit(appointment);
+                indexAppointment(appointment);
+                if (appointment instanceof Imaging) {
+                    technicians.rotate(provider);
+                }
+                break;
+            }
+            case "C":
+            case "R": {
+                Date date = Date.ofEpochDay(Integer.parseInt(record[1]));
+                Timeslot timeslot = Timeslot.of(Integer.parseInt(record[2]) + 1);
+                Profile profile = journalProfile(record, 3);
+                Appointment appointment = record[0].equals("C") && Integer.parseInt(record[6]) != AppointmentStore.NO_ROOM
+                        ? occupancy.imagingAt(profile, date, timeslot) : occupancy.officeAt(profile, date, timeslot);
+                if (appointment == null) {
+                    throw new IllegalStateException("Journal record does not match the schedule: " + String.join(",", record));
+                }
+                vacate(appointment);
+                removeAppointment(appointment);
+                if (record[0].equals("C")) {
+                    ((Patient) appointment.getPatient()).removeVisit(appointment);
+                } else {
+                    appointment.setTimeslot(Timeslot.of(Integer.parseInt(record[6]) + 1));
+                    indexAppointment(appointment);
+                }
+                break;
+            }
+            case "W":
+                technicians.rotate(providerDirectory.provider(Integer.parseInt(record[1])));
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record: " + String.join(",", record));
+        }
+    }
+
+    /**
+     * Private helper to read the patient profile of a journal record
+     *
+     * @param record - record fields
+     * @param at - index of the first name, the last name and epoch day of birth follow
+     * @return profile
+     */
+    private static Profile journalProfile(String[] record, int at) {
+        return new Profile(record[at], record[at + 1], Date.ofEpochDay(Integer.parseInt(record[at + 2])));
+    }
+
+    /**
+     * Private helper to journal a booking before it is acknowledged
+     * T records name the technician, so replay doesn't depend on the rotation or the closures of the day
+     * Must hold the index lock
+     *
+     * @param appointment - appointment that was booked
+     */
+    private void journalBooking(Appointment appointment) {
+        if (journal == null) {
+            return;
+        }
+        Profile patient = appointment.getPatient().getProfile();
+        int provider = providerDirectory.id(appointment.getProvider());
+        if (appointment instanceof Imaging) {
+            journal.append("T", appointment.getDate().getEpochDay(), appointment.getTimeslot().getOrdinal(),
+                    patient.getFname(), patient.getLname(), patient.getDob().getEpochDay(), provider,
+                    ((Imaging) appointment).getRoom().ordinal());
+        } else {
+            journal.append("D", appointment.getDate().getEpochDay(), appointment.getTimeslot().getOrdinal(),
+                    patient.getFname(), patient.getLname(), patient.getDob().getEpochDay(), provider);
+        }
+        checkpointIfDue();
+    }
+
+    /**
+     * Private helper to journal a cancellation or reschedule before it is acknowledged
+     * Must hold the index lock
+     *
+     * @param type - "C" or "R"
+     * @param appointment - appointment at its old timeslot
+     * @param last - room ordinal for C (NO_ROOM for an office appointment), new slot ordinal for R
+     */
+    private void journalChange(String type, Appointment appointment, int last) {
+        if (journal == null) {
+            return;
+        }
+        Profile patient = appointment.getPatient().getProfile();
+        journal.append(type, appointment.getDate().getEpochDay(), appointment.getTimeslot().getOrdinal(),
+                patient.getFname(), patient.getLname(), patient.getDob().getEpochDay(), last);
+        checkpointIfDue();
+    }
+
+    /**
+     * Private helper to journal the rotation when the cursor is past another technician than an imaging booking's,
+     * replaying its T record rotates past its technician and this record puts the cursor back where it is
+     * Must hold the index lock
+     */
+    private void journalRotation() {
+        if (journal != null) {
+            journal.append("W", providerDirectory.id(technicians.last()));
+        }
+    }
+
+    /**
+     * Private helper to checkpoint the journal once enough records piled up since the last one
+     */
+    private void checkpointIfDue() {
+        if (journal.needsCheckpoint()) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Private helper to rewrite the journal as the records of the current schedule
+     * Patients come first in record order, then the appointments in booking order and the rotation last
+     * Must hold the index lock or the tables write lock, so nothing is appended meanwhile
+     */
+    private void checkpoint() {
+        try {
+            long count = medicalRecord.getSize() + appList.size() + (technicians.isEmpty() ? 0 : 1);
+            journal.checkpoint(count, out -> {
+                for (int id = 0; id < medicalRecord.getSize(); id++) {
+                    Profile profile = medicalRecord.getPatient(id).getProfile();
+                    out.record("P", profile.getFname(), profile.getLname(), profile.getDob().getEpochDay());
+                }
+                for (Appointment appointment : bookingOrder()) {
+                    Profile patient = appointment.getPatient().getProfile();
+                    int provider = providerDirectory.id(appointment.getProvider());
+                    if (appointment instanceof Imaging) {
+                        out.record("T", appointment.getDate().getEpochDay(), appointment.getTimeslot().getOrdinal(),
+                                patient.getFname(), patient.getLname(), patient.getDob().getEpochDay(), provider,
+                                ((Imaging) appointment).getRoom().ordinal());
+                    } else {
+                        out.record("D", appointment.getDate().getEpochDay(), appointment.getTimeslot().getOrdinal(),
+                                patient.getFname(), patient.getLname(), patient.getDob().getEpochDay(), provider);
+                    }
+                }
+                if (!technicians.isEmpty()) { // rotating past the last technician puts the cursor back
+                    out.record("W", providerDirectory.id(technicians.last()));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package clinic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SchedulingEngineTest {
+    private SchedulingEngine engine;
+    private String day;
+
+    @Before
+    public void setUp() throws Exception {
+        engine = ClinicFixture.engine();
+        day = ClinicFixture.day(0);
+    }
+
+    @Test
+    public void testResultsReplacePrinting() {
+        Result booked = engine.execute("D," + day + ",1,John,Doe,1/1/1990,01", new StringBuilder());
+        assertEquals(Result.Status.OK, booked.getStatus());
+        assertTrue(booked.getMessage().endsWith(" booked."));
+        assertEquals(Result.Status.CONFLICT, engine.execute("D," + day + ",1,Jane,Doe,1/1/1990,01", new StringBuilder()).getStatus());
+        assertEquals(Result.Status.REJECTED, engine.execute("D," + day + ",13,Jane,Doe,1/1/1990,01", new StringBuilder()).getStatus());
+        assertEquals(Result.Status.REJECTED, engine.execute("D," + day + ",1,Jane,Doe", new StringBuilder()).getStatus());
+        assertEquals(Result.Status.REJECTED, engine.execute("X", new StringBuilder()).getStatus());
+
+        StringBuilder report = new StringBuilder();
+        assertTrue(engine.execute("PA", report).isOk());
+        assertTrue(report.toString().contains("John Doe"));
+        assertTrue(engine.execute("C," + day + ",1,john,doe,1/1/1990", report).isOk());
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    public void testCancelTakesTheFirstMatchInListOrder() {
+        engine.execute("D," + day + ",1,john,doe,1/1/1990,54", new StringBuilder());
+        engine.execute("D," + day + ",1,JOHN,DOE,1/1/1990,01", new StringBuilder());
+        engine.execute("D," + day + ",2,Jane,Doe,1/1/1990,01", new StringBuilder());
+        assertTrue(engine.execute("C," + day + ",1,John,Doe,1/1/1990", new StringBuilder()).isOk());
+        assertEquals("Jane", engine.getAppointments().get(0).getPatient().getProfile().getFname()); // last one swapped in
+        assertEquals("JOHN", engine.getAppointments().get(1).getPatient().getProfile().getFname());
+        assertEquals(2, engine.size());
+
+        assertTrue(engine.execute("R," + day + ",1,JOHN,DOE,1/1/1990,3", new StringBuilder()).isOk());
+        assertEquals(Result.Status.REJECTED, engine.execute("R," + day + ",1,JOHN,DOE,1/1/1990,4", new StringBuilder()).getStatus());
+        assertTrue(engine.execute("C," + day + ",3,john,doe,1/1/1990", new StringBuilder()).isOk());
+        assertTrue(engine.execute("C," + day + ",2,JANE,DOE,1/1/1990", new StringBuilder()).isOk());
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    public void testConcurrentBookingsNeverDoubleBook() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            ArrayList<Callable<Result>> tasks = new ArrayList<>();
+            for (int i = 0; i < 96; i++) { // 8 patients race for each of the 12 slots of one doctor
+                String command = "D," + day + "," + (i % 12 + 1) + ",Patient,N" + i + ",1/1/1990,01";
+                tasks.add(() -> engine.execute(command, new StringBuilder()));
+            }
+            for (int i = 0; i < 24; i++) { // one patient tries two doctors at the same slot
+                String command = "D," + day + "," + (i % 12 + 1) + ",Same,Person,2/2/1980," + (i < 12 ? "01" : "54");
+                tasks.add(() -> engine.execute(command, new StringBuilder()));
+            }
+            int ok = 0;
+            for (Future<Result> result : pool.invokeAll(tasks)) {
+                Result.Status status = result.get().getStatus();
+                assertNotEquals(Result.Status.REJECTED, status);
+                if (status == Result.Status.OK) {
+                    ok++;
+                }
+            }
+            assertEquals(ok, engine.size());
+            assertTrue(ok >= 12 && ok <= 24); // every slot of doctor 01 is taken, doctor 54 only gets the same patient
+            StringBuilder credits = new StringBuilder();
+            engine.printCreditAmounts(credits);
+            assertTrue(credits.toString().startsWith("** Credit amount ordered by provider. **"));
+        } finally {
+            pool.shutdown();
+        }
+        for (int slot = 1; slot <= 12; slot++) {
+            assertEquals(Result.Status.CONFLICT,
+                    engine.execute("D," + day + "," + slot + ",Late,Comer,3/3/1970,01", new StringBuilder()).getStatus());
+        }
+    }
+
+    @Test
+    public void testConcurrentImagingClaimsEachTechnicianOnceAndReplays() throws Exception {
+        Path journal = Files.createTempFile("engine", ".journal");
+        Files.delete(journal);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            engine.openJournal(journal);
+            ArrayList<Callable<Result>> tasks = new ArrayList<>();
+            for (int i = 0; i < 60; i++) { // every patient wants an xray at one of two slots, each location has one room
+                String command = "T," + day + "," + (i % 2 + 1) + ",Patient,N" + i + ",1/1/1990,xray";
+                tasks.add(() -> engine.execute(command, new StringBuilder()));
+            }
+            int ok = 0;
+            for (Future<Result> result : pool.invokeAll(tasks)) {
+                if (result.get().isOk()) {
+                    ok++;
+                }
+            }
+            assertEquals(6, ok); // three technicians at three locations, two slots
+            StringBuilder imaging = new StringBuilder();
+            engine.printAppointments('i', imaging);
+            StringBuilder rotation = new StringBuilder();
+            engine.printTechnicians(rotation);
+            engine.closeJournal();
+
+            SchedulingEngine replayed = ClinicFixture.engine();
+            replayed.openJournal(journal);
+            StringBuilder replayedImaging = new StringBuilder();
+            replayed.printAppointments('i', replayedImaging);
+            StringBuilder replayedRotation = new StringBuilder();
+            replayed.printTechnicians(replayedRotation);
+            replayed.closeJournal();
+            assertEquals(imaging.toString(), replayedImaging.toString());
+            assertEquals(rotation.toString(), replayedRotation.toString());
+        } finally {
+            pool.shutdown();
+            engine.closeJournal();
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    @Test
+    public void testReportVisitorsHoldNoLock() throws Exception {
+        engine.execute("D," + day + ",1,John,Doe,1/1/1990,01", new StringBuilder());
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            int[] visited = {0};
+            engine.forEachAppointment('d', appointment -> { // a stalled HTTP client must not block a writer
+                try {
+                    pool.submit(() -> engine.execute("D," + day + ",2,Jane,Doe,1/1/1990,01", new StringBuilder()))
+                            .get(10, TimeUnit.SECONDS);
+                    pool.submit(engine::reset).get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                visited[0]++;
+            });
+            assertEquals(1, visited[0]);
+            assertEquals(0, engine.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
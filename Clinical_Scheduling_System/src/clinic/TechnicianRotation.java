@@ -0,0 +1,133 @@
+package clinic;
+
+import util.CircularLinkedList;
+
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Round-robin order of the technicians for imaging appointments, safe to share between threads
+ * The technicians sit in a fixed array in rotation order and a cursor holds the position of the next one,
+ * so rotating is one compare-and-set on the cursor instead of a walk around a linked ring
+ *
+ * @author Jasmine Saffold
+ */
+public class TechnicianRotation {
+    private final Technician[] ring;                            // technicians in rotation order
+    private final IdentityHashMap<Person, Integer> position;    // ring position of each technician
+    private final AtomicInteger cursor = new AtomicInteger();   // ring position of the next technician
+
+    /**
+     * Constructor, the first technician of the list is next up
+     *
+     * @param technicians - technicians in rotation order
+     */
+    public TechnicianRotation(CircularLinkedList<Provider> technicians) {
+        this.ring = new Technician[technicians.size()];
+        this.position = new IdentityHashMap<>();
+        int i = 0;
+        for (Provider provider : technicians) {
+            ring[i] = (Technician) provider;
+            position.put(provider, i++);
+        }
+    }
+
+    /**
+     * Gives the number of technicians
+     *
+     * @return size of the rotation
+     */
+    public int size() { return ring.length; }
+
+    /**
+     * Checks if there are no technicians
+     *
+     * @return true if the rotation is empty
+     */
+    public boolean isEmpty() { return ring.length == 0; }
+
+    /**
+     * Gives the technician at a ring position, positions never change as the rotation moves
+     *
+     * @param index - ring position
+     * @return technician
+     */
+    public Technician technician(int index) { return ring[index]; }
+
+    /**
+     * Gives the ring position of a technician
+     *
+     * @param provider - technician
+     * @return ring position, -1 if the provider is not in the rotation
+     */
+    public int position(Person provider) {
+        Integer index = position.get(provider);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gives the ring position of the next technician up
+     *
+     * @return cursor, 0 if the rotation is empty
+     */
+    public int cursor() { return cursor.get(); }
+
+    /**
+     * Moves the cursor past a technician who was just booked, unless another booking moved it first
+     * A booking that lost the race leaves the cursor where the winner put it
+     *
+     * @param seen - cursor the booking started its search from
+     * @param technician - technician who was booked
+     * @return true if the cursor was moved
+     */
+    public boolean advance(int seen, Provider technician) {
+        return cursor.compareAndSet(seen, after(technician));
+    }
+
+    /**
+     * Makes the technician after the given one next up, used to restore a saved rotation
+     *
+     * @param technician - technician to rotate past
+     */
+    public void rotate(Provider technician) {
+        cursor.set(after(technician));
+    }
+
+    /**
+     * Gives the technician before the cursor, rotating past it restores the current rotation
+     *
+     * @return last technician in rotation order, null if the rotation is empty
+     */
+    public Technician last() {
+        return ring.length == 0 ? null : ring[(cursor.get() + ring.length - 1) % ring.length];
+    }
+
+    /**
+     * Gives the technicians in the current rotation order
+     *
+     * @return new list starting with the next technician up
+     */
+    public CircularLinkedList<Provider> toList() {
+        CircularLinkedList<Provider> list = new CircularLinkedList<Provider>();
+        int start = cursor.get();
+        for (int i = 0; i < ring.length; i++) {
+            list.add(ring[(start + i) % ring.length]);
+        }
+        return list;
+    }
+
+    /**
+     * Private helper to give the ring position after a technician
+     *
+     * @param technician - technician in the rotation
+     * @return next ring position
+     * @throws IllegalArgumentException if the provider is not in the rotation
+     */
+    private int after(Provider technician) {
+        int index = position(technician);
+        if (index < 0) {
+            throw new IllegalArgumentException(technician + " is not in the technician rotation.");
+        }
+        return (index + 1) % ring.length;
+    }
+}
@@ -0,0 +1,35 @@
+package clinic;
+
+import org.junit.Test;
+import util.CircularLinkedList;
+import util.Date;
+
+import static org.junit.Assert.*;
+
+public class TechnicianRotationTest {
+
+    @Test
+    public void testCursorMatchesLinkedRotation() {
+        Technician gary = new Technician(Location.EDISON, new Profile("Gary", "Johnson", new Date(1987, 11, 14)), 110);
+        Technician ben = new Technician(Location.CLARK, new Profile("Ben", "Jerry", new Date(1960, 9, 28)), 150);
+        Technician jenny = new Technician(Location.BRIDGEWATER, new Profile("Jenny", "Patel", new Date(1991, 8, 9)), 125);
+        CircularLinkedList<Provider> list = new CircularLinkedList<Provider>();
+        list.add(gary);
+        list.add(ben);
+        list.add(jenny);
+        TechnicianRotation rotation = new TechnicianRotation(list);
+
+        assertEquals(0, rotation.cursor());
+        assertSame(jenny, rotation.last());
+        assertTrue(rotation.advance(0, ben));
+        assertEquals(2, rotation.cursor());
+        assertFalse(rotation.advance(0, gary)); // lost to the booking that moved the cursor
+        assertSame(ben, rotation.last());
+
+        list.rotate(ben);
+        assertEquals(list.toString(), rotation.toList().toString());
+        rotation.rotate(jenny);
+        assertSame(gary, rotation.toList().get(0).getData());
+        assertEquals(-1, rotation.position(new Technician(Location.EDISON, new Profile("No", "One", new Date(1990, 1, 1)), 100)));
+    }
+}
@@ -3,14 +3,42 @@ package clinic;
 /**
  * Class for timeslots for appointments
  * Timeslots have both an hour and a minute parameter
+ * The twelve bookable slots are shared instances from Timeslot.of(), each with its slot ordinal
+ * and its display string made once
  *
  * @author Jasmine Saffold
  */
 
 public class Timeslot implements Comparable<Timeslot> {
 
+    /**
+     * Number of bookable timeslots in a day
+     */
+    public static final int SLOTS = 12;
+    /**
+     * Ordinal of a timeslot that is not one of the bookable slots
+     */
+    public static final int NO_SLOT = -1;
+    /**
+     * Hour and minute of each bookable slot, in slot order
+     */
+    private static final int[][] SLOT_TIMES = {{9, 0}, {9, 30}, {10, 0}, {10, 30}, {11, 0}, {11, 30},
+            {14, 0}, {14, 30}, {15, 0}, {15, 30}, {16, 0}, {16, 30}};
+    /**
+     * The shared bookable slots, indexed by ordinal
+     */
+    private static final Timeslot[] TABLE = new Timeslot[SLOTS];
+
+    static {
+        for (int i = 0; i < SLOTS; i++) {
+            TABLE[i] = new Timeslot(SLOT_TIMES[i][0], SLOT_TIMES[i][1]);
+        }
+    }
+
     private final int hour;
     private final int minute;
+    private final byte ordinal;   // 0 for 9:00 AM through 11 for 4:30 PM, NO_SLOT otherwise
+    private final String display; // standard time, rendered once
 
     /**
      * Timeslot constructor with hour and minute
@@ -29,6 +57,48 @@ public class Timeslot implements Comparable<Timeslot> {
         }
         this.hour = hour;
         this.minute = minute;
+        this.ordinal = (byte) ordinalOf(hour, minute);
+        this.display = hour > 12 ? String.format("%02d:%02d PM", hour - 12, minute)
+                : String.format("%02d:%02d AM", hour, minute);
+    }
+
+    /**
+     * Gives the shared timeslot for a slot number
+     *
+     * @param slotNumber - 1 for 9:00 AM through 12 for 4:30 PM
+     * @return timeslot
+     * @throws IllegalArgumentException if the slot number is not 1-12
+     */
+    public static Timeslot of(int slotNumber) {
+        if (slotNumber < 1 || slotNumber > SLOTS) {
+            throw new IllegalArgumentException("Slot number needs to be between 1 and " + SLOTS);
+        }
+        return TABLE[slotNumber - 1];
+    }
+
+    /**
+     * Private helper to find the slot ordinal of a time
+     *
+     * @param hour - hour of the time
+     * @param minute - minute of the time
+     * @return slot ordinal, NO_SLOT if the time is not a bookable slot
+     */
+    private static int ordinalOf(int hour, int minute) {
+        for (int i = 0; i < SLOTS; i++) {
+            if (SLOT_TIMES[i][0] == hour && SLOT_TIMES[i][1] == minute) {
+                return i;
+            }
+        }
+        return NO_SLOT;
+    }
+
+    /**
+     * Gives the slot ordinal
+     *
+     * @return 0 for 9:00 AM through 11 for 4:30 PM, NO_SLOT if this is not a bookable slot
+     */
+    public int getOrdinal() {
+        return ordinal;
     }
 
     /**
@@ -64,23 +134,30 @@ public class Timeslot implements Comparable<Timeslot> {
             return false;
         }
         Timeslot timeslot = (Timeslot) o;
+        if (ordinal != NO_SLOT) {
+            return ordinal == timeslot.ordinal;
+        }
         return hour == timeslot.hour && minute == timeslot.minute;
     }
 
     /**
-     * Creates a new format for standard time
+     * Override hashCode() method for timeslot class
+     * Consistent with equals(), so timeslots can be used in hashed keys
+     *
+     * @return minutes since midnight
+     */
+    @Override
+    public int hashCode() {
+        return hour * 60 + minute;
+    }
+
+    /**
+     * Gives the time in standard format, rendered when the timeslot was made
      *
      * @return newTime string
      */
     public String getStandardTime() {
-        String newTime = "";
-
-        if(hour > 12) {
-            newTime = String.format("%02d:%02d PM", hour - 12, minute);
-        } else {
-            newTime = String.format("%02d:%02d AM", hour, minute);
-        }
-        return newTime;
+        return display;
     }
     /**
      * Gives a string for the timeslot formatted as HH:MM
@@ -101,6 +178,9 @@ public class Timeslot implements Comparable<Timeslot> {
      */
     @Override
     public int compareTo(Timeslot o) {
+        if(this.ordinal != NO_SLOT && o.ordinal != NO_SLOT) { // slot order is time order
+            return Integer.compare(this.ordinal, o.ordinal);
+        }
         if(this.hour < o.hour) { // Compare hours returning -1 if earlier, 1 if later
             return -1;
         } else if(this.hour > o.hour) {
@@ -0,0 +1,61 @@
+package clinic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeslotTest {
+
+    @Test
+    public void testOfSharesOneInstancePerSlot() {
+        for (int slot = 1; slot <= Timeslot.SLOTS; slot++) {
+            assertSame(Timeslot.of(slot), Timeslot.of(slot));
+            assertEquals(slot - 1, Timeslot.of(slot).getOrdinal());
+        }
+        assertEquals("09:00 AM", Timeslot.of(1).toString());
+        assertEquals("02:00 PM", Timeslot.of(7).toString());
+        assertEquals("04:30 PM", Timeslot.of(12).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfRejectsSlot0() {
+        Timeslot.of(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfRejectsSlot13() {
+        Timeslot.of(13);
+    }
+
+    @Test
+    public void testSharedSlotEqualsConstructedSlot() {
+        Timeslot shared = Timeslot.of(4);
+        Timeslot made = new Timeslot(10, 30);
+        assertNotSame(shared, made);
+        assertEquals(3, made.getOrdinal());
+        assertEquals(shared, made);
+        assertEquals(made, shared);
+        assertEquals(shared.hashCode(), made.hashCode());
+        assertEquals(0, shared.compareTo(made));
+        assertEquals(0, made.compareTo(shared));
+        assertTrue(Timeslot.of(3).compareTo(made) < 0);
+        assertTrue(made.compareTo(Timeslot.of(5)) < 0);
+    }
+
+    @Test
+    public void testTimesBetweenSlots() {
+        Timeslot between = new Timeslot(10, 15);
+        assertEquals(Timeslot.NO_SLOT, between.getOrdinal());
+        assertEquals(between, new Timeslot(10, 15));
+        assertEquals(between.hashCode(), new Timeslot(10, 15).hashCode());
+        assertNotEquals(between, Timeslot.of(3));
+        assertNotEquals(Timeslot.of(3), between);
+        assertNotEquals(between, new Timeslot(10, 16));
+        assertTrue(Timeslot.of(3).compareTo(between) < 0);  // 10:00 AM
+        assertTrue(between.compareTo(Timeslot.of(4)) < 0);  // 10:30 AM
+        assertTrue(Timeslot.of(4).compareTo(between) > 0);
+        assertEquals(0, between.compareTo(new Timeslot(10, 15)));
+        assertTrue(new Timeslot(12, 0).compareTo(Timeslot.of(7)) < 0); // lunch is before 2:00 PM
+        assertTrue(new Timeslot(12, 0).compareTo(Timeslot.of(6)) > 0);
+    }
+}
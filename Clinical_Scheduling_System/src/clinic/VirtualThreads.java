@@ -0,0 +1,89 @@
+package clinic;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts virtual threads when the JDK has them and daemon platform threads otherwise
+ * The build targets Java 17, so the Java 21 methods are looked up by reflection
+ *
+ * @author Jasmine Saffold
+ */
+final class VirtualThreads {
+    /**
+     * Thread.startVirtualThread(Runnable), null before virtual threads
+     */
+    private static final Method START = lookup(Thread.class, "startVirtualThread", Runnable.class);
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor(), null before virtual threads
+     */
+    private static final Method PER_TASK = lookup(Executors.class, "newVirtualThreadPerTaskExecutor");
+
+    /**
+     * Private constructor, only static methods
+     */
+    private VirtualThreads() {
+    }
+
+    /**
+     * Runs a task on a new virtual thread, or on a new daemon platform thread
+     *
+     * @param task - task to run
+     * @param name - name of the platform thread
+     */
+    static void start(Runnable task, String name) {
+        if (START != null) {
+            try {
+                START.invoke(null, task);
+                return;
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                // virtual threads are a preview feature that isn't enabled, use a platform thread
+            }
+        }
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gives an executor that runs every task on a new virtual thread,
+     * or a cached pool of daemon platform threads
+     *
+     * @param name - prefix of the platform thread names
+     * @return executor
+     */
+    static ExecutorService perTaskExecutor(String name) {
+        if (PER_TASK != null) {
+            try {
+                return (ExecutorService) PER_TASK.invoke(null);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                // fall back to platform threads
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Private helper to look up a public static method
+     *
+     * @param owner - declaring class
+     * @param method - method name
+     * @param parameters - parameter types
+     * @return the method, null if this JDK doesn't have it
+     */
+    private static Method lookup(Class<?> owner, String method, Class<?>... parameters) {
+        try {
+            return owner.getMethod(method, parameters);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
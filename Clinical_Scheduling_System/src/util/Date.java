@@ -5,13 +5,17 @@ import java.util.Calendar;
 /**
  * This class creates a date with day, month, and year.
  * It has methods to check if the date is valid and compares dates.
+ * Every date also carries its epoch day (days since 01/01/1970), so comparing,
+ * hashing and day-of-week checks are plain int arithmetic.
  *
  * @author Jasmine Saffold
  */
 public class Date implements Comparable<Date>{
-    private int year;
-    private int month;
-    private int day;
+    private final int year;
+    private final int month;
+    private final int day;
+    private final int epochDay;     // days since 01/01/1970, the value dates are compared by
+    private final byte dayOfWeek;   // Calendar.SUNDAY through Calendar.SATURDAY
 
     /**
      * Constant for every four years
@@ -34,15 +38,36 @@ public class Date implements Comparable<Date>{
      */
     private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30,
             31, 31, 30, 31, 30, 31};
+    /**
+     * Days in a 400 year Gregorian cycle
+     */
+    private static final int DAYS_PER_CYCLE = 146097;
+    /**
+     * Days from 03/01/0000 to 01/01/1970
+     */
+    private static final int DAYS_0000_TO_1970 = 719468;
+    /**
+     * Valid dates from 01/01/1900 up to this year are interned by of()
+     */
+    private static final int INTERN_LAST_YEAR = 2099;
+    /**
+     * Epoch day of the first interned date
+     */
+    private static final int INTERN_FIRST_DAY = epochDay(MIN_YEAR, 1, 1);
+    /**
+     * Interned dates indexed by epoch day, filled in lazily
+     */
+    private static final Date[] INTERNED = new Date[epochDay(INTERN_LAST_YEAR + 1, 1, 1) - INTERN_FIRST_DAY];
+    /**
+     * Today's epoch day and booking window, refreshed at midnight
+     */
+    private static volatile Today today = Today.now();
 
     /**
      * Default constructor, sets an arbitrary date
      */
     public Date(){
-
-        this.year = 1900;
-        this.month = 1;
-        this.day = 1;
+        this(1900, 1, 1);
     }
 
     /**
@@ -57,6 +82,70 @@ public class Date implements Comparable<Date>{
         this.year = year;
         this.month = month;
         this.day = day;
+        this.epochDay = epochDay(year, month, day);
+        this.dayOfWeek = (byte) (Math.floorMod(epochDay + 4, 7) + Calendar.SUNDAY); // 01/01/1970 was a Thursday
+    }
+
+    /**
+     * Gives the shared instance for a valid date between 1900 and 2099
+     * Other dates, including invalid ones, get a new object
+     *
+     * @param year -- the year in the date
+     * @param month -- the month in the date
+     * @param day -- the day in the date
+     * @return date
+     */
+    public static Date of(int year, int month, int day) {
+        if (year < MIN_YEAR || year > INTERN_LAST_YEAR || month < 1 || month > 12 || day < 1 || day > 31) {
+            return new Date(year, month, day);
+        }
+        int index = epochDay(year, month, day) - INTERN_FIRST_DAY;
+        Date date = INTERNED[index];
+        if (date == null) {
+            date = new Date(year, month, day);
+            if (!date.isValid()) {
+                return date; // e.g. 02/30 would alias 03/02, never intern it
+            }
+            INTERNED[index] = date; // racing threads store equal immutable dates
+        }
+        return date;
+    }
+
+    /**
+     * Gives the date for an epoch day
+     *
+     * @param epochDay -- days since 01/01/1970
+     * @return date
+     */
+    public static Date ofEpochDay(int epochDay) {
+        int z = epochDay + DAYS_0000_TO_1970;
+        int era = Math.floorDiv(z, DAYS_PER_CYCLE);
+        int dayOfEra = z - era * DAYS_PER_CYCLE;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153; // March is 0
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return of(year, month, day);
+    }
+
+    /**
+     * Helper method, counts days since 01/01/1970 in the Gregorian calendar
+     *
+     * @param year -- the year in the date
+     * @param month -- the month in the date
+     * @param day -- the day in the date
+     * @return epoch day
+     */
+    private static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int shiftedMonth = Math.floorMod(month + 9, 12); // March is 0
+        int dayOfYear = (153 * shiftedMonth + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_CYCLE + dayOfEra - DAYS_0000_TO_1970;
     }
 
     /**
@@ -68,7 +157,7 @@ public class Date implements Comparable<Date>{
 
         boolean leapYear = false;
 
-        if(year % QUADRENNIAL == 0 || (year % CENTENNIAL == 0 && year % QUATERCENTENNIAL == 0)) {
+        if((year % QUADRENNIAL == 0 && year % CENTENNIAL != 0) || year % QUATERCENTENNIAL == 0) {
             leapYear = true;
         }
         return leapYear;
@@ -98,72 +187,209 @@ public class Date implements Comparable<Date>{
 
     /**
      * Checks if the date is a valid appointment date
+     * Uses the cached epoch day of today, so a valid date costs no allocation
+     * Prints why the date was rejected
      *
      * @return true if the appoinment time is valid, false otherwise
      */
     public boolean isValidAppTime(){
+        String problem = appTimeProblem();
+        if (problem != null) {
+            System.out.println(problem);
+            return false;
+        }
+        return true;
+    }
 
-        if (isValid()){
-
-            Calendar calendar = Calendar.getInstance();
-
-            int year = calendar.get(Calendar.YEAR);
-            int month = calendar.get(Calendar.MONTH) + 1;
-            int day = calendar.get(Calendar.DAY_OF_MONTH);
-            int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+    /**
+     * Gives the reason the date is not a valid appointment date, without printing it
+     *
+     * @return message, null if the date is valid
+     */
+    public String appTimeProblem(){
 
-            Calendar setDates = Calendar.getInstance();
-            setDates.set(this.year, this.month - 1, this.day);
+        if (isValid()){
 
-            Calendar sixMonths = Calendar.getInstance();
-            sixMonths.add(Calendar.MONTH, 6);
+            Today now = today();
 
-            if ((this.year < year) || (this.year == year && this.month < month) || (this.year == year && this.month == month && this.day <= day)) { // checking if date is today or before today
-                System.out.println("Appointment date: " + this.toString() + " is today or a date before today.");
-                return false;
-            } else if (setDates.get(Calendar.DAY_OF_WEEK) == Calendar.SATURDAY || (setDates.get(Calendar.DAY_OF_WEEK)) == Calendar.SUNDAY) { // return false if it's a weekend
-                System.out.println("Appointment date: " + this.toString() + " is Saturday or Sunday.");
-                return false;
-            } else if (!(setDates.compareTo(calendar) >= 0 && setDates.compareTo(sixMonths) <= 0)){
-                System.out.println("Appointment date: " + this.toString() + " is not within six months.");
-                return false;
+            if (epochDay <= now.epochDay) { // checking if date is today or before today
+                return "Appointment date: " + this.toString() + " is today or a date before today.";
+            } else if (isWeekend()) { // return false if it's a weekend
+                return "Appointment date: " + this.toString() + " is Saturday or Sunday.";
+            } else if (epochDay > now.sixMonthsEpochDay){ // needs to be within a six month period
+                return "Appointment date: " + this.toString() + " is not within six months.";
             }
 
         } else{
-            System.out.println("Appointment date: " + this.toString() + " is not a valid calendar date");
-            return false;
+            return "Appointment date: " + this.toString() + " is not a valid calendar date";
         }
-        // needs to be within a six month period
-        return true;
+        return null;
 
     }
 
     /**
      * Checks if the date is a valid birthday
+     * Prints why the date was rejected
      *
      * @return true if the year is a valid birthday, false otherwise
      */
     public boolean isValidBirthday(){
+        String problem = birthdayProblem();
+        if (problem != null) {
+            System.out.println(problem);
+            return false;
+        }
+        return true;
+    }
 
-        if (isValid()){
-
-            Calendar calendar = Calendar.getInstance();
+    /**
+     * Gives the reason the date is not a valid birthday, without printing it
+     *
+     * @return message, null if the date is valid
+     */
+    public String birthdayProblem(){
 
-            int year = calendar.get(Calendar.YEAR);
-            int month = calendar.get(Calendar.MONTH);
-            int day = calendar.get(Calendar.DAY_OF_MONTH);
+        if (isValid()){
 
-            if ((this.year > year) || (this.year == year && this.month > month) || (this.year == year && this.month == month && this.day >= day)) {
-                System.out.println("Patient dob: " + this.toString() + " is today or a date after today.");
-                return false;
+            if (epochDay >= today().epochDay) {
+                return "Patient dob: " + this.toString() + " is today or a date after today.";
             }
 
         }else{
-            System.out.println("Patient dob: " + this.toString() + " is not a valid calendar date");
-            return false;
+            return "Patient dob: " + this.toString() + " is not a valid calendar date";
         }
-        return true;
+        return null;
+
+    }
+
+    /**
+     * Checks if the date falls on a Saturday or Sunday
+     *
+     * @return true on weekends, false otherwise
+     */
+    public boolean isWeekend() {
+        return dayOfWeek == Calendar.SATURDAY || dayOfWeek == Calendar.SUNDAY;
+    }
+
+    /**
+     * Gives the day of the week
+     *
+     * @return Calendar.SUNDAY through Calendar.SATURDAY
+     */
+    public int getDayOfWeek() { return dayOfWeek; }
+
+    /**
+     * Gives the number of days since 01/01/1970
+     *
+     * @return epoch day
+     */
+    public int getEpochDay() { return epochDay; }
+
+    /**
+     * Gives the year
+     *
+     * @return year
+     */
+    public int getYear() { return year; }
+
+    /**
+     * Gives the month, 1 for January
+     *
+     * @return month
+     */
+    public int getMonth() { return month; }
+
+    /**
+     * Gives the day of the month
+     *
+     * @return day
+     */
+    public int getDay() { return day; }
+
+    /**
+     * Gives the date a number of days later
+     *
+     * @param days -- days to add, may be negative
+     * @return new date
+     */
+    public Date plusDays(int days) {
+        return ofEpochDay(epochDay + days);
+    }
+
+    /**
+     * Counts the days from this date to another date
+     *
+     * @param other -- the later date
+     * @return days between, negative if other is earlier
+     */
+    public int daysBetween(Date other) {
+        return other.epochDay - this.epochDay;
+    }
 
+    /**
+     * Gives today's epoch day and the last bookable day
+     * Recomputed from Calendar only when the day changes
+     *
+     * @return today
+     */
+    public static Today today() {
+        Today now = today;
+        if (System.currentTimeMillis() >= now.expiresAt) {
+            now = Today.now();
+            today = now;
+        }
+        return now;
+    }
+
+    /**
+     * Today's epoch day and the end of the six month booking window
+     */
+    public static final class Today {
+        private final int epochDay;
+        private final int sixMonthsEpochDay;
+        private final long expiresAt; // next local midnight in milliseconds
+
+        private Today(int epochDay, int sixMonthsEpochDay, long expiresAt) {
+            this.epochDay = epochDay;
+            this.sixMonthsEpochDay = sixMonthsEpochDay;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Reads the clock and computes today's values
+         *
+         * @return today
+         */
+        private static Today now() {
+            Calendar calendar = Calendar.getInstance();
+            int epoch = epochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+
+            Calendar sixMonths = (Calendar) calendar.clone();
+            sixMonths.add(Calendar.MONTH, 6);
+            int sixMonthsEpoch = epochDay(sixMonths.get(Calendar.YEAR), sixMonths.get(Calendar.MONTH) + 1, sixMonths.get(Calendar.DAY_OF_MONTH));
+
+            Calendar midnight = (Calendar) calendar.clone();
+            midnight.set(Calendar.HOUR_OF_DAY, 0);
+            midnight.set(Calendar.MINUTE, 0);
+            midnight.set(Calendar.SECOND, 0);
+            midnight.set(Calendar.MILLISECOND, 0);
+            midnight.add(Calendar.DAY_OF_MONTH, 1);
+            return new Today(epoch, sixMonthsEpoch, midnight.getTimeInMillis());
+        }
+
+        /**
+         * Gives today's epoch day
+         *
+         * @return epoch day
+         */
+        public int getEpochDay() { return epochDay; }
+
+        /**
+         * Gives the epoch day six months from today, the last bookable day
+         *
+         * @return epoch day
+         */
+        public int getSixMonthsEpochDay() { return sixMonthsEpochDay; }
     }
 
     /**
@@ -178,16 +404,17 @@ public class Date implements Comparable<Date>{
     @Override
     public int compareTo(Date date) {
 
+        if(this.epochDay != date.epochDay) {
+            return this.epochDay < date.epochDay ? -1 : 1;
+        }
+        // only invalid dates such as 02/30 share an epoch day with another date
         if(this.year != date.year) {
             return this.year - date.year;
         }
         if(this.month != date.month) {
             return this.month - date.month;
         }
-        if(this.day != date.day) {
-            return this.day - date.day;
-        }
-        return 0;
+        return this.day - date.day;
     }
 
     /**
@@ -205,11 +432,23 @@ public class Date implements Comparable<Date>{
         }
         if(date instanceof Date) {
             Date otherDate = (Date) date;
-            return this.year == otherDate.year && this.month == otherDate.month && this.day == otherDate.day;
+            return this.epochDay == otherDate.epochDay && this.year == otherDate.year
+                    && this.month == otherDate.month && this.day == otherDate.day;
         }
         return false;
     }
 
+    /**
+     * Gives a hash code consistent with equals()
+     * Overrides hashCode() method
+     *
+     * @return the epoch day
+     */
+    @Override
+    public int hashCode() {
+        return epochDay;
+    }
+
     /**
      * Converts the numerical date to a string with the format "MM/DD/YYYY"
      *
@@ -245,4 +484,4 @@ public class Date implements Comparable<Date>{
         Date leapYear = new Date(2000, 2, 29);
         System.out.println("Is 2/29/2000 a valid date? " + leapYear.isValid()); // Test Case # 6
     }
-}
\ No newline at end of file
+}
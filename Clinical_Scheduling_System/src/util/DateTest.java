@@ -46,4 +46,32 @@ public class DateTest {
         Date invalidLeapDate = new Date(2001, 2, 29); // February 29 on a non-leap year
         assertFalse("2/29/2001 should be an invalid date (non-leap year)", invalidLeapDate.isValid());
     }
-}
\ No newline at end of file
+
+    // Test Case #7: 1900 is not a leap year, 2000 is
+    @Test
+    public void testCenturyLeapYear() {
+        assertFalse("2/29/1900 should be an invalid date (century)", new Date(1900, 2, 29).isValid());
+        assertTrue("2/29/2024 should be a valid date (leap year)", new Date(2024, 2, 29).isValid());
+    }
+
+    // Test Case #8: epoch day arithmetic round trips and gives the weekday
+    @Test
+    public void testEpochDayArithmetic() {
+        Date date = new Date(2024, 2, 28);
+        assertEquals(new Date(2024, 3, 1), date.plusDays(2));
+        assertEquals(2, date.daysBetween(new Date(2024, 3, 1)));
+        assertEquals(0, new Date(1970, 1, 1).getEpochDay());
+        assertEquals(new Date(1969, 12, 31), Date.ofEpochDay(-1));
+        assertTrue("11/21/2026 is a Saturday", new Date(2026, 11, 21).isWeekend());
+        assertFalse("11/23/2026 is a Monday", new Date(2026, 11, 23).isWeekend());
+        assertTrue(new Date(2024, 12, 31).compareTo(new Date(2025, 1, 1)) < 0);
+    }
+
+    // Test Case #9: of() shares valid dates and never interns invalid ones
+    @Test
+    public void testInterning() {
+        assertSame(Date.of(2026, 11, 2), Date.of(2026, 11, 2));
+        assertFalse("2/30/2026 should stay invalid", Date.of(2026, 2, 30).isValid());
+        assertFalse(Date.of(2026, 2, 30).equals(Date.of(2026, 3, 2)));
+    }
+}
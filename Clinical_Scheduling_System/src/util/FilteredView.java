@@ -0,0 +1,166 @@
+package util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Read-only view of the objects of an Iterable that pass a filter
+ * Nothing is copied, the iterator walks the source and skips the objects that don't match,
+ * so the view sees the source as it is when it is iterated and keeps the source's order
+ *
+ * @author Jasmine Saffold
+ */
+public class FilteredView<E> implements Iterable<E> {
+    private final Iterable<? extends E> source;
+    private final Predicate<? super E> filter;
+
+    /**
+     * Constructor for FilteredView class
+     *
+     * @param source - objects to filter
+     * @param filter - true for the objects the view holds
+     */
+    public FilteredView(Iterable<? extends E> source, Predicate<? super E> filter) {
+        this.source = source;
+        this.filter = filter;
+    }
+
+    /**
+     * Gives a view of the objects of a class, typed as that class
+     *
+     * @param source - objects to filter
+     * @param type - class of the objects the view holds
+     * @return view of the objects that are instances of type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> FilteredView<T> of(Iterable<?> source, Class<T> type) {
+        return new FilteredView<T>((Iterable<? extends T>) source, type::isInstance); // only instances get through
+    }
+
+    /**
+     * Sorts a list in place and gives a view of the objects that pass a filter, in that order
+     * Filtering a sorted list keeps it sorted, so the filtered objects are never copied to be sorted
+     *
+     * @param list - list to sort, it is left sorted
+     * @param comparator - order of the view
+     * @param filter - true for the objects the view holds
+     * @return view of the sorted list
+     */
+    public static <E> FilteredView<E> sorted(List<E> list, Comparator<? super E> comparator, Predicate<? super E> filter) {
+        list.sort(comparator);
+        return new FilteredView<E>(list, filter);
+    }
+
+    /**
+     * Gives a view that also has to pass another filter
+     *
+     * @param other - second filter
+     * @return view of the objects that pass both filters
+     */
+    public FilteredView<E> and(Predicate<? super E> other) {
+        Predicate<? super E> first = filter;
+        return new FilteredView<E>(source, e -> first.test(e) && other.test(e));
+    }
+
+    /**
+     * Gives a view of the objects that don't pass the filter
+     *
+     * @return view of the rest of the source
+     */
+    public FilteredView<E> negate() {
+        Predicate<? super E> first = filter;
+        return new FilteredView<E>(source, e -> !first.test(e));
+    }
+
+    /**
+     * Counts the objects in the view, walking the source
+     *
+     * @return number of objects that pass the filter
+     */
+    public int count() {
+        int count = 0;
+        for (E e : source) {
+            if (filter.test(e)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Tells if no object of the source passes the filter, stopping at the first that does
+     *
+     * @return true if the view is empty
+     */
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    /**
+     * Copies the view into a new list, for callers that need to index or keep it
+     *
+     * @return new list of the objects in the view
+     */
+    public List<E> toList() {
+        List<E> list = new List<E>();
+        for (E e : this) {
+            list.add(e);
+        }
+        return list;
+    }
+
+    /**
+     * Iterates over the objects that pass the filter
+     *
+     * @return iterator for the view, remove() is not supported
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new FilteredIterator();
+    }
+
+    /**
+     * Class to make an iterator that looks one object ahead for the next match
+     */
+    private class FilteredIterator implements Iterator<E> {
+        private final Iterator<? extends E> from = source.iterator();
+        private E next;
+        private boolean found;
+
+        /**
+         * Tells you if another object passes the filter, moving the source to it
+         *
+         * @return true if there is a next object
+         */
+        @Override
+        public boolean hasNext() {
+            while (!found && from.hasNext()) {
+                E e = from.next();
+                if (filter.test(e)) {
+                    next = e;
+                    found = true;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Tells you the next object that passes the filter
+         *
+         * @return next object in the view
+         * @throws NoSuchElementException if there is no next object
+         */
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            found = false;
+            E e = next;
+            next = null;
+            return e;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package util;
+
+import clinic.Appointment;
+import clinic.Doctor;
+import clinic.Imaging;
+import clinic.Location;
+import clinic.Patient;
+import clinic.Profile;
+import clinic.Radiology;
+import clinic.Specialty;
+import clinic.Technician;
+import clinic.Timeslot;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+public class FilteredViewTest {
+
+    private List<Appointment> list;
+
+    @Before
+    public void setUp() {
+        Doctor doctor = new Doctor(Location.BRIDGEWATER, new Profile("Andrew", "Patel", new Date(1989, 1, 21)), Specialty.FAMILY, "01");
+        Technician technician = new Technician(Location.EDISON, new Profile("Jenny", "Patel", new Date(1991, 8, 9)), 125);
+        Patient patient = new Patient(new Profile("Jane", "Doe", new Date(2000, 8, 9)));
+        list = new List<>();
+        for (int slot = 6; slot >= 1; slot--) { // booked latest first
+            list.add(slot % 2 == 0
+                    ? new Imaging(new Date(2026, 11, 10), Timeslot.of(slot), patient, technician, Radiology.XRAY)
+                    : new Appointment(new Date(2026, 11, 10), Timeslot.of(slot), patient, doctor));
+        }
+    }
+
+    @Test
+    public void testViewSkipsWithoutCopying() {
+        FilteredView<Imaging> imaging = FilteredView.of(list, Imaging.class);
+        assertEquals(3, imaging.count());
+        assertFalse(imaging.isEmpty());
+        for (Imaging appointment : imaging) {
+            assertEquals(1, appointment.getTimeslot().getOrdinal() % 2); // even slots are imaging
+        }
+
+        list.add(new Appointment(new Date(2026, 11, 11), Timeslot.of(1), list.get(0).getPatient(), list.get(1).getProvider()));
+        FilteredView<Appointment> office = new FilteredView<>(list, a -> !(a instanceof Imaging));
+        assertEquals(4, office.count()); // the view sees the list as it is now
+        assertEquals(1, office.and(a -> a.getDate().getDay() == 11).count());
+        assertEquals(3, office.negate().count());
+        assertTrue(office.and(a -> false).isEmpty());
+
+        Iterator<Appointment> none = office.and(a -> false).iterator();
+        assertFalse(none.hasNext());
+        try {
+            none.next();
+            fail("next() past the end of the view");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSortAppointmentGivesOrderedViews() {
+        int previous = -1;
+        int count = 0;
+        for (Appointment appointment : Sort.appointment(list, 'i')) {
+            assertTrue(appointment instanceof Imaging);
+            assertTrue(appointment.getTimeslot().getOrdinal() > previous);
+            previous = appointment.getTimeslot().getOrdinal();
+            count++;
+        }
+        assertEquals(3, count);
+        assertEquals(Timeslot.of(2), list.get(0).getTimeslot()); // the list itself was sorted, Middlesex before Somerset
+        assertEquals(3, ((FilteredView<Appointment>) Sort.appointment(list, 'o')).count());
+    }
+}
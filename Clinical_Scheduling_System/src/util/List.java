@@ -1,8 +1,12 @@
 package util;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
 
 /**
  * Generic list class for code reuse
@@ -18,9 +22,17 @@ public class List<E> implements Iterable<E> {
      */
     private static final int INIT_CAPACITY = 4;
     /**
-     * The growth rate for method grow()
+     * Runs shorter than this are sorted with insertion sort
      */
-    private static final int GROWTH_RATE = 4;
+    private static final int INSERTION_CUTOFF = 32;
+    /**
+     * Lists at least this long are sorted in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+    /**
+     * Parallel sort tasks stop splitting below this length
+     */
+    private static final int PARALLEL_CUTOFF = 1 << 12;
     /**
      * Constant for find() method
      * Will return -1 if not found
@@ -52,31 +64,143 @@ public class List<E> implements Iterable<E> {
     }
 
     /**
-     * Helper method to increase the capacity by 4
+     * Helper method to grow the capacity by half, so n adds cost O(n) in total
+     *
+     * @param minCapacity - capacity that is needed
      */
-    private void grow() {
-        E[] newObjects = (E[]) new Object[objects.length + GROWTH_RATE];
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, objects.length + (objects.length >> 1) + 1);
+        objects = Arrays.copyOf(objects, newCapacity);
+    }
 
-        for(int i = 0; i < objects.length; i++) {
-            newObjects[i] = objects[i];
+    /**
+     * Makes sure the list can hold at least minCapacity objects without growing again
+     *
+     * @param minCapacity - number of objects the list should hold
+     */
+    public void ensureCapacity(int minCapacity) {
+        if(minCapacity > objects.length) {
+            grow(minCapacity);
         }
-        objects = newObjects;
     }
 
     /**
-     * Sorts the list using the comparator class using insertion sort
+     * Sorts the list with a stable merge sort
+     * Lists longer than PARALLEL_THRESHOLD are sorted with fork/join tasks,
+     * so the comparator must be safe to call from several threads
      *
      * @param comparator - Objects to sort through
      */
-    public void sort(Comparator<E> comparator) {
-        for (int i = 1; i < size; i++) {
-            E key = objects[i];
+    public void sort(Comparator<? super E> comparator) {
+        if(size < 2) {
+            return;
+        }
+        E[] buffer = (E[]) new Object[size];
+        if(size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new SortTask<>(objects, buffer, 0, size, comparator));
+        } else {
+            mergeSort(objects, buffer, 0, size, comparator);
+        }
+    }
+
+    /**
+     * Helper method, sorts a[lo, hi) using buffer[lo, hi) as scratch space
+     *
+     * @param a - array to sort
+     * @param buffer - scratch array at least as long as a
+     * @param lo - first index, inclusive
+     * @param hi - last index, exclusive
+     * @param comparator - ordering
+     */
+    private static <E> void mergeSort(E[] a, E[] buffer, int lo, int hi, Comparator<? super E> comparator) {
+        if(hi - lo <= INSERTION_CUTOFF) {
+            insertionSort(a, lo, hi, comparator);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(a, buffer, lo, mid, comparator);
+        mergeSort(a, buffer, mid, hi, comparator);
+        merge(a, buffer, lo, mid, hi, comparator);
+    }
+
+    /**
+     * Helper method, insertion sort for short runs
+     *
+     * @param a - array to sort
+     * @param lo - first index, inclusive
+     * @param hi - last index, exclusive
+     * @param comparator - ordering
+     */
+    private static <E> void insertionSort(E[] a, int lo, int hi, Comparator<? super E> comparator) {
+        for (int i = lo + 1; i < hi; i++) {
+            E key = a[i];
             int j = i - 1;
-            while (j >= 0 && comparator.compare(objects[j], key) > 0) {
-                objects[j + 1] = objects[j];
+            while (j >= lo && comparator.compare(a[j], key) > 0) {
+                a[j + 1] = a[j];
                 j = j - 1;
             }
-            objects[j + 1] = key;
+            a[j + 1] = key;
+        }
+    }
+
+    /**
+     * Helper method, merges the sorted runs a[lo, mid) and a[mid, hi)
+     * Takes from the left run on ties, which keeps the sort stable
+     *
+     * @param a - array holding both runs
+     * @param buffer - scratch array
+     * @param lo - start of the left run
+     * @param mid - start of the right run
+     * @param hi - end of the right run
+     * @param comparator - ordering
+     */
+    private static <E> void merge(E[] a, E[] buffer, int lo, int mid, int hi, Comparator<? super E> comparator) {
+        if(comparator.compare(a[mid - 1], a[mid]) <= 0) {
+            return; // runs are already in order
+        }
+        System.arraycopy(a, lo, buffer, lo, mid - lo);
+        int left = lo;
+        int right = mid;
+        int out = lo;
+        while (left < mid && right < hi) {
+            if(comparator.compare(a[right], buffer[left]) < 0) {
+                a[out++] = a[right++];
+            } else {
+                a[out++] = buffer[left++];
+            }
+        }
+        System.arraycopy(buffer, left, a, out, mid - left);
+    }
+
+    /**
+     * Fork/join task that sorts both halves of a range in parallel, then merges them
+     */
+    private static final class SortTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final E[] a;
+        private final E[] buffer;
+        private final int lo;
+        private final int hi;
+        private final Comparator<? super E> comparator;
+
+        SortTask(E[] a, E[] buffer, int lo, int hi, Comparator<? super E> comparator) {
+            this.a = a;
+            this.buffer = buffer;
+            this.lo = lo;
+            this.hi = hi;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if(hi - lo <= PARALLEL_CUTOFF) {
+                mergeSort(a, buffer, lo, hi, comparator);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask<>(a, buffer, lo, mid, comparator), new SortTask<>(a, buffer, mid, hi, comparator));
+            merge(a, buffer, lo, mid, hi, comparator);
         }
     }
 
@@ -98,12 +222,53 @@ public class List<E> implements Iterable<E> {
      */
     public void add(E e) {
         if(size == objects.length){
-            grow();
+            grow(size + 1);
         }
         objects[size] = e;
         size++;
     }
 
+    /**
+     * Adds every object of another list to the end of this list
+     *
+     * @param other - list to copy from
+     */
+    public void addAll(List<? extends E> other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.objects, 0, objects, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Removes every object that matches the filter in one pass
+     * Keeps the order of the objects that stay
+     *
+     * @param filter - returns true for objects to remove
+     * @return true if anything was removed
+     */
+    public boolean removeIf(Predicate<? super E> filter) {
+        int kept = 0;
+        for(int i = 0; i < size; i++) {
+            if(!filter.test(objects[i])) {
+                objects[kept++] = objects[i];
+            }
+        }
+        if(kept == size) {
+            return false;
+        }
+        Arrays.fill(objects, kept, size, null);
+        size = kept;
+        return true;
+    }
+
+    /**
+     * Removes every object from the list
+     */
+    public void clear() {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+    }
+
     /**
      * Removes an object from the objects array
      * Decreases the size by 1
@@ -114,14 +279,31 @@ public class List<E> implements Iterable<E> {
         int index = find(e);
 
         if(index != NOT_FOUND) {
-            for(int i = index; i < size - 1; i++) {
-                objects[i] = objects[i + 1];
-            }
+            System.arraycopy(objects, index + 1, objects, index, size - index - 1);
             objects[size - 1] = null;
             size--;
         }
     }
 
+    /**
+     * Removes the object at an index by moving the last object into its place
+     * Takes constant time, but does not keep the order of the objects
+     *
+     * @param index - index of the object to remove
+     * @return the object now at index, null if the last object was removed
+     * @throws IndexOutOfBoundsException if index is out of bounds
+     */
+    public E swapRemove(int index) {
+        if (index >= size || index < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        size--;
+        E moved = index == size ? null : objects[size];
+        objects[index] = objects[size];
+        objects[size] = null;
+        return moved;
+    }
+
     /**
      * Checks if the list is empty
      *
@@ -207,8 +389,7 @@ public class List<E> implements Iterable<E> {
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
-            currentIndex++;
-            return objects[currentIndex];
+            return objects[currentIndex++];
         }
     }
 
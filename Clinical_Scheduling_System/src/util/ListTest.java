@@ -10,8 +10,14 @@ import util.Date;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Comparator;
+import java.util.Iterator;
+
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertNull;
 
 public class ListTest {
 
@@ -57,4 +63,80 @@ public class ListTest {
         providerList.remove(technician);
         assertFalse("Technician should be removed from the provider list", providerList.contains(technician));
     }
+
+    @Test
+    public void testGrowKeepsEveryObject() {
+        List<Integer> numbers = new List<>();
+        for (int i = 0; i < 10000; i++) {
+            numbers.add(i);
+        }
+        assertEquals(10000, numbers.size());
+        assertEquals(Integer.valueOf(9999), numbers.get(9999));
+        numbers.remove(0);
+        assertEquals(Integer.valueOf(1), numbers.get(0));
+        assertEquals(9999, numbers.size());
+    }
+
+    @Test
+    public void testIteratorVisitsEveryObjectOnce() {
+        providerList.add(doctor);
+        providerList.add(technician);
+        Iterator<Provider> it = providerList.iterator();
+        assertSame(doctor, it.next());
+        assertSame(technician, it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testSwapRemoveMovesTheLastObject() {
+        List<Integer> numbers = new List<>();
+        for (int i = 0; i < 5; i++) {
+            numbers.add(i);
+        }
+        assertEquals(Integer.valueOf(4), numbers.swapRemove(1));
+        assertEquals(4, numbers.size());
+        assertEquals(Integer.valueOf(4), numbers.get(1));
+        assertNull(numbers.swapRemove(3)); // the last object has nothing to move
+        assertEquals(3, numbers.size());
+        assertEquals(Integer.valueOf(0), numbers.get(0));
+        assertEquals(Integer.valueOf(2), numbers.get(2));
+    }
+
+    @Test
+    public void testAddAllAndRemoveIf() {
+        List<Integer> numbers = new List<>();
+        List<Integer> more = new List<>();
+        for (int i = 0; i < 10; i++) {
+            numbers.add(i);
+            more.add(i + 10);
+        }
+        numbers.addAll(more);
+        assertEquals(20, numbers.size());
+        assertTrue(numbers.removeIf(n -> n % 2 == 1));
+        assertEquals(10, numbers.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            assertEquals(Integer.valueOf(i * 2), numbers.get(i));
+        }
+        assertFalse(numbers.removeIf(n -> n < 0));
+    }
+
+    @Test
+    public void testSortIsStable() {
+        // Sort pairs by the first value only; equal keys must keep their insertion order
+        // Large enough to go through the parallel merge sort
+        int n = 50000;
+        List<int[]> pairs = new List<>();
+        for (int i = 0; i < n; i++) {
+            pairs.add(new int[]{(i * 7919) % 97, i});
+        }
+        pairs.sort(Comparator.comparingInt((int[] p) -> p[0]));
+        for (int i = 1; i < n; i++) {
+            int[] prev = pairs.get(i - 1);
+            int[] curr = pairs.get(i);
+            assertTrue("keys out of order at " + i, prev[0] <= curr[0]);
+            if (prev[0] == curr[0]) {
+                assertTrue("equal keys reordered at " + i, prev[1] < curr[1]);
+            }
+        }
+    }
 }
@@ -3,6 +3,7 @@ package util;
 import clinic.*;
 
 import java.util.Comparator;
+import java.util.function.Predicate;
 /**
  * Handles the sorting for classes that need it
  * Static methods only
@@ -13,72 +14,96 @@ public class Sort {
 
     /**
      * Helps with dividing imaging appointments from office appointments
+     * Sorts the list in place and gives a filtered view of it, the appointments of the type are not copied
      *
      * @param comparator - the comparator chain
-     * @param list - appointment list
+     * @param list - appointment list, left sorted
      * @param type - type of appointment
+     * @return view of the appointments of the type, in order
      */
-    public static List<Appointment>  appHelp(Comparator<Appointment> comparator, List<Appointment> list, String type){
-        comparator = Comparator.comparing((Appointment a) -> a.getLocation().getCounty())
-                .thenComparing(Appointment::getDate)
-                .thenComparing(Appointment::getTimeslot);
-        List<Appointment> appointments = new List<>();
-        if (type.equals("i")) {
-            for (int i = 0; i < list.size(); i++) {
-                if (list.get(i) instanceof Imaging) {
-                    appointments.add(list.get(i));
-                }
-            }
-        }else{
-            for (int i = 0; i < list.size(); i++) {
-                if (!(list.get(i) instanceof Imaging)) {
-                    appointments.add(list.get(i));
-                }
-            }
-        }
-        appointments.sort(comparator);
-        return appointments;
+    public static FilteredView<Appointment> appHelp(Comparator<Appointment> comparator, List<Appointment> list, String type){
+        Predicate<Appointment> imaging = appointment -> appointment instanceof Imaging;
+        return FilteredView.sorted(list, comparator, type.equals("i") ? imaging : imaging.negate());
     }
+
     /**
-     * Static method to sort appointments
+     * Gives the comparator chain for a sort key
+     * Shared by appointment() and the sorted schedule views
+     * Written out by hand because the views compare on every booking and bulk load
      *
-     * @param list - appointment list
      * @param key - key to access type of sort
+     * @return comparator, or null if the key is not valid
      */
-    public static List<Appointment> appointment(List<Appointment> list, char key) {
-        Comparator<Appointment> comparator = null;
+    public static Comparator<Appointment> comparator(char key) {
         switch (key) {
             case 't': // Sort by timeslot first, then date, then patient last name
-                comparator = Comparator.comparing(Appointment::getTimeslot).thenComparing(Appointment::getDate)
-                        .thenComparing(a -> a.getPatient().getProfile().getLname());
-                break;
+                return (a, b) -> {
+                    int c = a.getTimeslot().compareTo(b.getTimeslot());
+                    if (c == 0) c = a.getDate().compareTo(b.getDate());
+                    return c != 0 ? c : a.getPatient().getProfile().getLname().compareTo(b.getPatient().getProfile().getLname());
+                };
             case 'd': // Sort by date first, then timeslot, then providers last name, then providers first name
-                comparator = Comparator.comparing(Appointment::getDate).thenComparing(Appointment::getTimeslot)
-                        .thenComparing(a -> a.getProvider().getProfile().getLname())
-                        .thenComparing(a -> a.getProvider().getProfile().getFname());
-                break;
+                return (a, b) -> {
+                    int c = a.getDate().compareTo(b.getDate());
+                    if (c == 0) c = a.getTimeslot().compareTo(b.getTimeslot());
+                    if (c != 0 || a.getProvider() == b.getProvider()) return c;
+                    Profile pa = a.getProvider().getProfile(), pb = b.getProvider().getProfile();
+                    c = pa.getLname().compareTo(pb.getLname());
+                    return c != 0 ? c : pa.getFname().compareTo(pb.getFname());
+                };
             case 'p': // Sort by patient last name first, then date, then timeslot
-                comparator = Comparator.comparing((Appointment a) -> a.getPatient().getProfile().getLname())
-                        .thenComparing((Appointment a) -> a.getPatient().getProfile().getFname())
-                        .thenComparing((Appointment a) -> a.getPatient().getProfile().getDob())
-                        .thenComparing(Appointment::getDate).thenComparing(Appointment::getTimeslot);
-                break;
+                return (a, b) -> {
+                    int c = 0;
+                    if (a.getPatient() != b.getPatient()) {
+                        Profile pa = a.getPatient().getProfile(), pb = b.getPatient().getProfile();
+                        c = pa.getLname().compareTo(pb.getLname());
+                        if (c == 0) c = pa.getFname().compareTo(pb.getFname());
+                        if (c == 0) c = pa.getDob().compareTo(pb.getDob());
+                    }
+                    if (c == 0) c = a.getDate().compareTo(b.getDate());
+                    return c != 0 ? c : a.getTimeslot().compareTo(b.getTimeslot());
+                };
             case 'r': // Sort by provider last name first, then date, then timeslot
-                comparator = Comparator.comparing((Appointment a) -> a.getProvider().getProfile().getLname())
-                        .thenComparing(Appointment::getDate).thenComparing(Appointment::getTimeslot);
-                break;
+                return (a, b) -> {
+                    int c = a.getProvider() == b.getProvider() ? 0
+                            : a.getProvider().getProfile().getLname().compareTo(b.getProvider().getProfile().getLname());
+                    if (c == 0) c = a.getDate().compareTo(b.getDate());
+                    return c != 0 ? c : a.getTimeslot().compareTo(b.getTimeslot());
+                };
             case 'l': // Sort by county, then appointment date, and then appointment time
-                comparator = Comparator.comparing((Appointment a) -> a.getLocation().getCounty())
-                        .thenComparing(Appointment::getDate).thenComparing(Appointment::getTimeslot);
-                break;
-            case 'o': // Sort office (non-imaging) appointments
-                return  appHelp(comparator, list, "o");
-            case 'i': // Sort imaging appointments
-                return appHelp(comparator, list, "i");
+            case 'o': // office (non-imaging) appointments use the county order
+            case 'i': // so do imaging appointments
+                return (a, b) -> {
+                    int c = a.getLocation() == b.getLocation() ? 0
+                            : a.getLocation().getCounty().compareTo(b.getLocation().getCounty());
+                    if (c == 0) c = a.getDate().compareTo(b.getDate());
+                    return c != 0 ? c : a.getTimeslot().compareTo(b.getTimeslot());
+                };
             default:
-                System.out.println("Invalid sort key.");
                 return null;
         }
+    }
+
+    /**
+     * Static method to sort appointments
+     * The list is sorted in place, for 'o' and 'i' the result is a filtered view of it
+     *
+     * @param list - appointment list
+     * @param key - key to access type of sort
+     * @return appointments in order, null if the key is not valid
+     */
+    public static Iterable<Appointment> appointment(List<Appointment> list, char key) {
+        Comparator<Appointment> comparator = comparator(key);
+        if (comparator == null) {
+            System.out.println("Invalid sort key.");
+            return null;
+        }
+        if (key == 'o') { // Sort office (non-imaging) appointments
+            return appHelp(comparator, list, "o");
+        }
+        if (key == 'i') { // Sort imaging appointments
+            return appHelp(comparator, list, "i");
+        }
         list.sort(comparator);
         return list;
     }
@@ -89,20 +114,6 @@ public class Sort {
      * @param list - provider list
      */
     public static void provider(List<Provider> list) {
-
-        for(int i = 0; i < list.size() - 1; i++) {
-            for(int j = 0; j < list.size() - i - 1; j++) {
-                boolean willSwap = false;
-
-                if (list.get(j).getProfile().getLname().compareTo(list.get(j + 1).getProfile().getLname()) > 0) {
-                    willSwap = true; // sort by provider name
-                }
-                if(willSwap) {
-                    Provider temp = list.get(j);
-                    list.set(j, list.get(j + 1));
-                    list.set(j + 1, temp);
-                }
-            }
-        }
+        list.sort(Comparator.comparing((Provider p) -> p.getProfile().getLname())); // sort by provider name
     }
-}
\ No newline at end of file
+}